@@ -0,0 +1,56 @@
+package com.bitacora.bitacora.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tiempo por mensaje de ClasificadorTranscripcion frente a las expresiones regulares que reemplaza
+ * (ClasificadorConRegex), sobre textos de 1 KB, 10 KB y 100 KB. El texto corrido es el peor caso
+ * para la pasada única: la única señal ("reunión") está al final y hay que recorrerlo entero.
+ *
+ * mvn -Pbenchmark test-compile exec:exec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClasificadorTranscripcionBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tamano;
+
+    @Param({"transcripcion", "texto-corrido"})
+    private String tipo;
+
+    private String texto;
+
+    @Setup
+    public void preparar() {
+        texto = tipo.equals("transcripcion")
+                ? ClasificadorTranscripcionTest.transcripcion(tamano)
+                : ClasificadorTranscripcionTest.textoCorrido(tamano) + " Fin de la reunión";
+    }
+
+    @Benchmark
+    public boolean unaPasada() {
+        return ClasificadorTranscripcion.esTranscripcionReunion(texto);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return ClasificadorConRegex.esTranscripcionReunion(texto);
+    }
+}
@@ -2,8 +2,10 @@ package com.bitacora.bitacora;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BitacoraApplication {
     public static void main(String[] args) {
         SpringApplication.run(BitacoraApplication.class, args);
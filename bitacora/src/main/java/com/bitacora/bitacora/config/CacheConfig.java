@@ -0,0 +1,89 @@
+package com.bitacora.bitacora.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Cachés de lectura, acotadas en tamaño y con expiración:
+ * 1️⃣ Caché de segundo nivel de Hibernate para Proyecto y Tarea por id (findById no va a la base
+ *    de datos si la entidad está en caché; Hibernate la invalida en cada escritura).
+ * 2️⃣ Cachés de Spring nombre → id que usa ChatService para resolver proyectos y tareas.
+ *    Se vacían al escribir por ProyectoService / TareaService, después del commit.
+ *
+ * Los aciertos/fallos se publican en Micrometer: cache.gets{name, result} y
+ * hibernate.second.level.cache.requests{region, result}. Las de Hibernate necesitan
+ * hibernate.generate_statistics=true, que tiene un costo por sesión y solo activan los tests
+ * (o quien lo configure a mano para diagnosticar).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PROYECTO_ID_POR_NOMBRE = "proyectoIdPorNombre";
+    public static final String TAREA_ID_POR_TITULO = "tareaIdPorTitulo";
+
+    // Regiones de la caché de segundo nivel (ver @Cache en Proyecto y Tarea)
+    public static final String REGION_PROYECTOS = "proyectos";
+    public static final String REGION_TAREAS = "tareas";
+
+    @Value("${bitacora.cache.tamano-maximo:10000}")
+    private long tamanoMaximo;
+
+    @Value("${bitacora.cache.expiracion-minutos:30}")
+    private long expiracionMinutos;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PROYECTO_ID_POR_NOMBRE, TAREA_ID_POR_TITULO);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(Duration.ofMinutes(expiracionMinutos))
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        // Las invalidaciones dentro de una transacción se aplican al hacer commit
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // CacheManager JCache propio de esta aplicación (URI única para no compartirlo entre contextos)
+    @Bean(destroyMethod = "close")
+    public javax.cache.CacheManager cacheManagerEntidades() {
+        javax.cache.CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("bitacora-entidades-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (String region : List.of(REGION_PROYECTOS, REGION_TAREAS)) {
+            CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+            configuracion.setMaximumSize(OptionalLong.of(tamanoMaximo));
+            configuracion.setExpireAfterWrite(OptionalLong.of(Duration.ofMinutes(expiracionMinutos).toNanos()));
+            cacheManager.createCache(region, configuracion);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(javax.cache.CacheManager cacheManagerEntidades) {
+        return propiedades -> {
+            propiedades.put("hibernate.cache.use_second_level_cache", true);
+            propiedades.put("hibernate.cache.region.factory_class", "jcache");
+            propiedades.put("hibernate.javax.cache.cache_manager", cacheManagerEntidades);
+            propiedades.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            // Si se activan las estadísticas, sin el log por sesión
+            propiedades.putIfAbsent("hibernate.session.events.log", false);
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.bitacora.bitacora.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Réplica de lectura opcional. Solo se activa si se define bitacora.datasource.replica.url;
+ * sin ella la aplicación usa el DataSource único de spring.datasource.
+ *
+ * 1️⃣ "primaria": pool de spring.datasource (+ spring.datasource.hikari.*).
+ * 2️⃣ "replica": pool de bitacora.datasource.replica.* (usuario y contraseña de la primaria
+ *    si no se indican), con conexiones de solo lectura.
+ * 3️⃣ "dataSource": el que usan JPA y JdbcTemplate. El proxy perezoso retrasa la conexión real
+ *    hasta la primera sentencia, cuando ya se sabe si la transacción es readOnly.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "bitacora.datasource.replica", name = "url")
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName(DataSourceEnrutado.PRIMARIA);
+        return primaria;
+    }
+
+    @Bean
+    @ConfigurationProperties("bitacora.datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(DataSourceProperties propiedades,
+                                              @Value("${bitacora.datasource.replica.url}") String url,
+                                              @Value("${bitacora.datasource.replica.username:}") String usuario,
+                                              @Value("${bitacora.datasource.replica.password:}") String contrasena) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(propiedades.determineDriverClassName())
+                .url(url)
+                .username(usuario.isEmpty() ? propiedades.determineUsername() : usuario)
+                .password(contrasena.isEmpty() ? propiedades.determinePassword() : contrasena)
+                .build();
+        replica.setPoolName(DataSourceEnrutado.REPLICA);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource dataSourcePrimaria, HikariDataSource dataSourceReplica,
+                                 MeterRegistry meterRegistry) {
+        DataSourceEnrutado enrutado = new DataSourceEnrutado(dataSourcePrimaria, dataSourceReplica, meterRegistry);
+        enrutado.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(enrutado);
+    }
+}
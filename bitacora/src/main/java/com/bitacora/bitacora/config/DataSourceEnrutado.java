@@ -0,0 +1,47 @@
+package com.bitacora.bitacora.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Envía las conexiones de transacciones @Transactional(readOnly = true) a la réplica
+ * y todo lo demás (escrituras, código sin transacción) a la primaria.
+ * Cuenta cada conexión entregada en bitacora.datasource.conexiones{destino}.
+ */
+class DataSourceEnrutado extends AbstractRoutingDataSource {
+
+    static final String PRIMARIA = "primaria";
+    static final String REPLICA = "replica";
+
+    private final Counter conexionesPrimaria;
+    private final Counter conexionesReplica;
+
+    DataSourceEnrutado(DataSource primaria, DataSource replica, MeterRegistry meterRegistry) {
+        setTargetDataSources(Map.of(PRIMARIA, primaria, REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+        this.conexionesPrimaria = contador(meterRegistry, PRIMARIA);
+        this.conexionesReplica = contador(meterRegistry, REPLICA);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            conexionesReplica.increment();
+            return REPLICA;
+        }
+        conexionesPrimaria.increment();
+        return PRIMARIA;
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String destino) {
+        return Counter.builder("bitacora.datasource.conexiones")
+                .description("Conexiones JDBC entregadas por destino")
+                .tag("destino", destino)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.bitacora.bitacora.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Los ids de proyectos y tareas salen de la tabla id_generadores en bloques de 50
+ * (permite agrupar los INSERT en lotes JDBC). Las bases creadas con AUTO_INCREMENT
+ * ya tienen ids usados, así que antes de atender peticiones se adelanta cada
+ * generador por encima del id máximo existente. Es idempotente.
+ */
+@Component
+public class GeneradoresIdInicial {
+
+    // Debe coincidir con allocationSize de @TableGenerator en Proyecto y Tarea
+    static final int TAMANO_BLOQUE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Se inyecta EntityManagerFactory para ejecutarse después de que Hibernate cree las tablas
+    public GeneradoresIdInicial(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void ajustarGeneradores() {
+        ajustar("proyectos");
+        ajustar("tareas");
+    }
+
+    private void ajustar(String tabla) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        // El optimizador "pooled" entrega ids por debajo del valor guardado: se deja un bloque de margen
+        long minimo = maxId + TAMANO_BLOQUE + 1;
+
+        Integer filas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM id_generadores WHERE entidad = ?", Integer.class, tabla);
+        if (filas == null || filas == 0) {
+            jdbcTemplate.update("INSERT INTO id_generadores (entidad, siguiente_valor) VALUES (?, ?)", tabla, minimo);
+        } else {
+            jdbcTemplate.update("UPDATE id_generadores SET siguiente_valor = ? WHERE entidad = ? AND siguiente_valor < ?",
+                    minimo, tabla, minimo);
+        }
+    }
+}
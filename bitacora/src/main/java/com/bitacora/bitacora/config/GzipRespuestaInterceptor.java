@@ -0,0 +1,74 @@
+package com.bitacora.bitacora.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pide la respuesta comprimida (Accept-Encoding: gzip) y la entrega ya descomprimida.
+ * El HttpClient del JDK no lo hace solo. La respuesta se lee completa aquí: las de OpenAI son
+ * JSON chicos, y así la conexión queda libre (y cuenta dentro del timeout total) antes de salir.
+ */
+class GzipRespuestaInterceptor implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        try (ClientHttpResponse respuesta = execution.execute(request, body)) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(respuesta.getHeaders());
+            byte[] contenido;
+            try (InputStream entrada = respuesta.getBody()) {
+                contenido = entrada.readAllBytes();
+            }
+            if ("gzip".equalsIgnoreCase(headers.getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                if (contenido.length > 0) {
+                    try (InputStream descomprimida = new GZIPInputStream(new ByteArrayInputStream(contenido))) {
+                        contenido = descomprimida.readAllBytes();
+                    }
+                }
+                headers.remove(HttpHeaders.CONTENT_ENCODING);
+                headers.setContentLength(contenido.length);
+            }
+            return new RespuestaLeida(respuesta.getStatusCode(), respuesta.getStatusText(), headers, contenido);
+        }
+    }
+
+    private record RespuestaLeida(HttpStatusCode estado, String textoEstado, HttpHeaders headers, byte[] contenido)
+            implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return estado;
+        }
+
+        @Override
+        public String getStatusText() {
+            return textoEstado;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(contenido);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.bitacora.bitacora.config;
+
+import com.bitacora.bitacora.util.CamposRespuesta;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Proyectos y tareas llevan @JsonFilter para poder pedir solo algunos campos (?fields=).
+ * Sin filtro explícito en la respuesta, se serializan completos.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer filtrosCampos() {
+        return builder -> builder.filters(CamposRespuesta.sinFiltrar());
+    }
+}
@@ -0,0 +1,23 @@
+package com.bitacora.bitacora.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Valores por defecto de Hibernate para agrupar INSERT/UPDATE en lotes JDBC
+ * (por ejemplo, un proyecto con 40 tareas de una reunión). Se pueden sobrescribir
+ * con spring.jpa.properties.hibernate.* en application.properties.
+ */
+@Configuration
+public class JpaConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer lotesJdbc() {
+        return propiedades -> {
+            propiedades.putIfAbsent("hibernate.jdbc.batch_size", 50);
+            propiedades.putIfAbsent("hibernate.order_inserts", true);
+            propiedades.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+}
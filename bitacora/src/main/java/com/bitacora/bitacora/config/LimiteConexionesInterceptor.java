@@ -0,0 +1,71 @@
+package com.bitacora.bitacora.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las llamadas simultáneas a OpenAI (una conexión ocupada por llamada en curso).
+ * Si no hay lugar en espera-conexion, la llamada falla enseguida con IOException
+ * (RestTemplate la entrega como ResourceAccessException).
+ * Publica bitacora.openai.conexiones.{activas, esperando, maximo, rechazadas}.
+ *
+ * Debe ir antes de GzipRespuestaInterceptor, que lee la respuesta completa: así el permiso
+ * se devuelve recién cuando la conexión queda libre.
+ */
+class LimiteConexionesInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Semaphore permisos;
+    private final Duration espera;
+    private final Counter rechazadas;
+
+    LimiteConexionesInterceptor(int maxConexiones, Duration espera, MeterRegistry meterRegistry) {
+        int maximo = Math.max(1, maxConexiones);
+        this.permisos = new Semaphore(maximo, true);
+        this.espera = espera;
+
+        Gauge.builder("bitacora.openai.conexiones.activas", permisos, p -> maximo - p.availablePermits())
+                .description("Llamadas a OpenAI en curso")
+                .register(meterRegistry);
+        Gauge.builder("bitacora.openai.conexiones.esperando", permisos, Semaphore::getQueueLength)
+                .description("Llamadas a OpenAI esperando una conexión libre")
+                .register(meterRegistry);
+        Gauge.builder("bitacora.openai.conexiones.maximo", () -> maximo)
+                .description("Llamadas simultáneas permitidas a OpenAI")
+                .register(meterRegistry);
+        this.rechazadas = Counter.builder("bitacora.openai.conexiones.rechazadas")
+                .description("Llamadas a OpenAI que no consiguieron conexión a tiempo")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        try {
+            if (!permisos.tryAcquire(espera.toMillis(), TimeUnit.MILLISECONDS)) {
+                rechazadas.increment();
+                throw new IOException("No hay conexiones libres hacia " + request.getURI().getHost()
+                        + " después de " + espera.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido esperando una conexión libre");
+        }
+
+        try {
+            return execution.execute(request, body);
+        } finally {
+            permisos.release();
+        }
+    }
+}
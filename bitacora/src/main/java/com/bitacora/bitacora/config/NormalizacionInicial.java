@@ -0,0 +1,85 @@
+package com.bitacora.bitacora.config;
+
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.service.BusquedaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Al arrancar, completa nombre_normalizado y titulo_normalizado en los registros
+ * que existían antes de agregar esas columnas (cargándolos por bloques y normalizando en Java,
+ * con la misma regla que usan las búsquedas), y convierte los estados de tarea de
+ * texto libre a los valores de EstadoTarea. Es idempotente: solo toca filas pendientes.
+ * Los estados que no se reconocen no se inventan: quedan como están y se avisan en el log
+ * (con la cantidad de tareas de cada uno) para corregirlos a mano.
+ * También agrega al índice de búsqueda las tareas que todavía no están en él.
+ */
+@Component
+public class NormalizacionInicial {
+
+    private static final Logger log = LoggerFactory.getLogger(NormalizacionInicial.class);
+    private static final int TAMANO_BLOQUE = 500;
+
+    private final ProyectoRepository proyectoRepository;
+    private final TareaRepository tareaRepository;
+    private final BusquedaService busquedaService;
+    private final TransactionTemplate transactionTemplate;
+
+    public NormalizacionInicial(ProyectoRepository proyectoRepository, TareaRepository tareaRepository,
+                                BusquedaService busquedaService, TransactionTemplate transactionTemplate) {
+        this.proyectoRepository = proyectoRepository;
+        this.tareaRepository = tareaRepository;
+        this.busquedaService = busquedaService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    //Sin @Transactional: las columnas normalizadas se completan por bloques, cada uno en su propia transacción
+    @EventListener(ApplicationReadyEvent.class)
+    public void rellenarColumnasNormalizadas() {
+        rellenarPorBloques(proyectoRepository::buscarSinNombreNormalizado, Proyecto::normalizarNombre, Proyecto::getId);
+        rellenarPorBloques(tareaRepository::buscarSinTituloNormalizado, Tarea::normalizarTitulo, Tarea::getId);
+
+        transactionTemplate.executeWithoutResult(estado -> {
+            tareaRepository.normalizarEstados();
+            List<Object[]> desconocidos = tareaRepository.contarEstadosDesconocidos();
+            for (Object[] fila : desconocidos) {
+                log.warn("Estado de tarea no reconocido: '{}' en {} tareas; se deja sin migrar", fila[0], fila[1]);
+            }
+        });
+    }
+
+    //Las entidades quedan modificadas dentro de la transacción del bloque y se guardan al confirmarla
+    private <T> void rellenarPorBloques(BiFunction<Long, Limit, List<T>> buscar, Consumer<T> normalizar,
+                                        Function<T, Long> id) {
+        long despuesDeId = 0L;
+        while (true) {
+            long desde = despuesDeId;
+            List<T> bloque = transactionTemplate.execute(estado -> {
+                List<T> filas = buscar.apply(desde, Limit.of(TAMANO_BLOQUE));
+                filas.forEach(normalizar);
+                return filas;
+            });
+            if (bloque == null || bloque.isEmpty()) break;
+            despuesDeId = id.apply(bloque.get(bloque.size() - 1));
+        }
+    }
+
+    //Sin @Transactional: indexa por bloques, cada uno en su propia transacción
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarTareasPendientes() {
+        busquedaService.indexarPendientes();
+    }
+}
@@ -0,0 +1,63 @@
+package com.bitacora.bitacora.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Cliente HTTP saliente hacia OpenAI, uno solo para toda la aplicación (lo usa ChatService).
+ * 1️⃣ HttpClient del JDK: mantiene las conexiones abiertas y las reutiliza entre llamadas
+ *    (keep-alive, o HTTP/2 si el servidor lo admite), así no se paga un handshake TLS por llamada.
+ * 2️⃣ Timeouts: timeout-conexion para abrir la conexión y timeout-total desde que se envía la
+ *    petición hasta terminar de leer la respuesta. El cliente del JDK no tiene timeout por lectura
+ *    de socket; el total también acota una respuesta que llega lenta.
+ * 3️⃣ max-conexiones: llamadas simultáneas como máximo; las demás esperan hasta espera-conexion
+ *    y luego fallan, en vez de acumular hilos de Tomcat bloqueados (ver LimiteConexionesInterceptor).
+ * 4️⃣ Respuestas comprimidas con gzip (ver GzipRespuestaInterceptor).
+ *
+ * Métricas: http.client.requests (tiempos por llamada) y bitacora.openai.conexiones.*.
+ */
+@Configuration
+public class OpenAiClienteConfig {
+
+    @Value("${bitacora.openai.timeout-conexion-ms:5000}")
+    private long timeoutConexionMs;
+
+    @Value("${bitacora.openai.timeout-total-ms:60000}")
+    private long timeoutTotalMs;
+
+    @Value("${bitacora.openai.max-conexiones:20}")
+    private int maxConexiones;
+
+    @Value("${bitacora.openai.espera-conexion-ms:2000}")
+    private long esperaConexionMs;
+
+    @Bean
+    public HttpClient httpClientOpenAi() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(timeoutConexionMs))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplateOpenAi(RestTemplateBuilder builder, HttpClient httpClientOpenAi,
+                                           MeterRegistry meterRegistry) {
+        JdkClientHttpRequestFactory fabrica = new JdkClientHttpRequestFactory(httpClientOpenAi);
+        fabrica.setReadTimeout(Duration.ofMillis(timeoutTotalMs));
+
+        return builder
+                .requestFactory(() -> fabrica)
+                .additionalInterceptors(
+                        new LimiteConexionesInterceptor(maxConexiones, Duration.ofMillis(esperaConexionMs), meterRegistry),
+                        new GzipRespuestaInterceptor())
+                .build();
+    }
+}
@@ -1,7 +1,20 @@
 package com.bitacora.bitacora.controller;
 
+import com.bitacora.bitacora.model.TrabajoChat;
 import com.bitacora.bitacora.service.ChatService;
+import com.bitacora.bitacora.service.TrabajosChatService;
+import com.bitacora.bitacora.service.TransmisionesChatService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -9,13 +22,64 @@ import org.springframework.web.bind.annotation.*;
 public class ChatController {
 
     private final ChatService chatService;
+    private final TrabajosChatService trabajosChatService;
+    private final TransmisionesChatService transmisionesChatService;
+
+    @Value("${bitacora.chat.trabajos.reintentar-en-segundos:30}")
+    private long reintentarEnSegundos;
 
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService, TrabajosChatService trabajosChatService,
+                          TransmisionesChatService transmisionesChatService) {
         this.chatService = chatService;
+        this.trabajosChatService = trabajosChatService;
+        this.transmisionesChatService = transmisionesChatService;
     }
 
     @PostMapping
     public String procesarMensaje(@RequestBody String mensaje) {
         return chatService.procesarMensaje(mensaje);
     }
+
+    // 🔹 Misma operación como Server-Sent Events: "inicio" enseguida, luego cada fragmento,
+    //    proyecto y tarea a medida que ocurren, y al final "resumen" con la respuesta completa.
+    // 🔹 El hilo de la petición se libera al devolver el emisor; el trabajo sigue en los hilos propios
+    //    de TransmisionesChatService. Si el cliente se desconecta, el análisis termina igual.
+    //    Con todos los hilos ocupados y la cola llena responde 503 con Retry-After, como /jobs.
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> procesarMensajeEnVivo(@RequestBody String mensaje) {
+        try {
+            return ResponseEntity.ok(transmisionesChatService.transmitir(mensaje));
+        } catch (TaskRejectedException e) {
+            return sinLugar();
+        }
+    }
+
+    // ====== Trabajos en segundo plano ======
+
+    // 🔹 Para transcripciones largas: responde 202 con el id enseguida y se procesa en segundo plano.
+    //    Con la cola llena responde 503 con Retry-After en vez de dejar la petición esperando.
+    @PostMapping("/jobs")
+    public ResponseEntity<TrabajoChat> encolarMensaje(@RequestBody String mensaje) {
+        try {
+            TrabajoChat trabajo = trabajosChatService.encolar(mensaje);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/chat/jobs/" + trabajo.getId()))
+                    .body(trabajo);
+        } catch (TaskRejectedException e) {
+            return sinLugar();
+        }
+    }
+
+    // 🔹 Estado del trabajo (EN_COLA, EN_CURSO, TERMINADO, FALLIDO) y su resultado cuando termina
+    @GetMapping("/jobs/{id}")
+    public TrabajoChat obtenerTrabajo(@PathVariable Long id) {
+        return trabajosChatService.obtener(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Trabajo no encontrado: " + id));
+    }
+
+    private <T> ResponseEntity<T> sinLugar() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(reintentarEnSegundos))
+                .build();
+    }
 }
@@ -1,11 +1,27 @@
 package com.bitacora.bitacora.controller;
 
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.dto.ProyectoResumen;
+import com.bitacora.bitacora.dto.VersionFila;
 import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.service.ExportacionService;
 import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.bitacora.bitacora.util.Etags;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.time.Duration;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/proyectos")
@@ -13,21 +29,111 @@ import java.util.Optional;
 public class ProyectoController {
 
     private final ProyectoService proyectoService;
+    private final ExportacionService exportacionService;
 
-    public ProyectoController(ProyectoService proyectoService) {
+    public ProyectoController(ProyectoService proyectoService, ExportacionService exportacionService) {
         this.proyectoService = proyectoService;
+        this.exportacionService = exportacionService;
     }
 
-    // ====== GET: obtener todos los proyectos ======
+    // ====== GET: obtener proyectos paginados (?cursor=&tamano=) ======
+    // 🔹 La lista completa sin paginar solo se devuelve pidiéndola explícitamente con ?todos=true
+    // 🔹 ?vista=resumen devuelve contadores y horas sin tareas; ?fields=id,nombre limita los campos
+    // 🔹 Un campo que no existe en la vista pedida responde 400
+    // 🔹 ETag según las versiones de los proyectos y la variante (vista y campos pedidos):
+    //    con If-None-Match se comparan las versiones antes y, si coinciden, se responde 304 sin cargarlos
     @GetMapping
-    public List<Proyecto> obtenerTodos() {
-        return proyectoService.obtenerTodos();
+    public ResponseEntity<?> obtenerTodos(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer tamano,
+                                          @RequestParam(defaultValue = "false") boolean todos,
+                                          @RequestParam(required = false) String vista,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        try {
+            boolean resumen = CamposRespuesta.esResumen(vista);
+            Set<String> campos = CamposRespuesta.campos(fields, resumen ? ProyectoResumen.class : Proyecto.class);
+
+            // 🔹 El resumen no trae versiones: su ETag siempre sale de la consulta de versiones
+            String etag = null;
+            if (siNoCoincide != null || resumen) {
+                etag = Etags.conVariante(etagVersiones(todos, cursor, tamano), resumen, campos);
+                if (Etags.coincide(siNoCoincide, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+
+            Object cuerpo;
+            if (resumen) {
+                cuerpo = todos ? proyectoService.obtenerResumenes() : proyectoService.obtenerPaginaResumen(cursor, tamano);
+            } else if (todos) {
+                List<Proyecto> proyectos = proyectoService.obtenerTodos();
+                etag = Etags.conVariante(Etags.deLista("proyectos", proyectos, Proyecto::getId, Proyecto::getVersion),
+                        false, campos);
+                cuerpo = proyectos;
+            } else {
+                Pagina<Proyecto> pagina = proyectoService.obtenerPagina(cursor, tamano);
+                etag = Etags.conVariante(Etags.dePagina("proyectos", pagina, Proyecto::getId, Proyecto::getVersion),
+                        false, campos);
+                cuerpo = pagina;
+            }
+            return ResponseEntity.ok().eTag(etag)
+                    .body(CamposRespuesta.filtrar(cuerpo, CamposRespuesta.FILTRO_PROYECTO, campos));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // ====== GET: exportar todos los proyectos (?formato=ndjson|csv) ======
+    // 🔹 Se escriben fila a fila en la respuesta, sin construir la lista completa en memoria
+    @GetMapping("/export")
+    public void exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletResponse response) throws IOException {
+        ExportacionService.Formato formatoExportacion;
+        try {
+            formatoExportacion = ExportacionService.Formato.desdeTexto(formato);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        response.setContentType(formatoExportacion.getTipoContenido());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("proyectos." + formatoExportacion.getExtension()).build().toString());
+        exportacionService.exportarProyectos(formatoExportacion, response.getWriter());
     }
 
-    // ====== GET: obtener un proyecto por ID ======
+    // ====== GET: obtener un proyecto por ID (admite ?vista= y ?fields=) ======
+    // 🔹 ETag = versión del proyecto y variante; si el cliente ya la tiene se responde 304 sin cargarlo
     @GetMapping("/{id}")
-    public Optional<Proyecto> obtenerPorId(@PathVariable Long id) {
-        return proyectoService.obtenerPorId(id);
+    public ResponseEntity<?> obtenerPorId(@PathVariable Long id,
+                                          @RequestParam(required = false) String vista,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        boolean resumen;
+        Set<String> campos;
+        try {
+            resumen = CamposRespuesta.esResumen(vista);
+            campos = CamposRespuesta.campos(fields, resumen ? ProyectoResumen.class : Proyecto.class);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        if (siNoCoincide != null) {
+            Optional<Long> version = proyectoService.obtenerVersion(id);
+            if (version.isPresent()) {
+                String etag = Etags.conVariante(Etags.deVersion("proyecto", id, version.get()), resumen, campos);
+                if (Etags.coincide(siNoCoincide, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+        }
+
+        Optional<Proyecto> proyecto = proyectoService.obtenerPorId(id);
+        Object cuerpo = resumen ? proyecto.map(ProyectoResumen::de) : proyecto;
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        proyecto.ifPresent(p -> respuesta.eTag(
+                Etags.conVariante(Etags.deVersion("proyecto", p.getId(), p.getVersion()), resumen, campos)));
+        return respuesta.body(CamposRespuesta.filtrar(cuerpo, CamposRespuesta.FILTRO_PROYECTO, campos));
     }
 
     // ====== POST: crear un nuevo proyecto ======
@@ -39,35 +145,33 @@ public class ProyectoController {
     // ====== PUT: actualizar un proyecto existente ======
     @PutMapping("/{id}")
     public Proyecto actualizarProyecto(@PathVariable Long id, @RequestBody Proyecto proyecto) {
-        Optional<Proyecto> proyectoExistenteOpt = proyectoService.obtenerPorId(id);
-
-        if (proyectoExistenteOpt.isPresent()) {
-            Proyecto p = proyectoExistenteOpt.get();
-
-            // 🔹 Solo actualizamos los campos básicos, sin tocar la lista de tareas
-            if (proyecto.getNombre() != null) p.setNombre(proyecto.getNombre());
-            if (proyecto.getDescripcion() != null) p.setDescripcion(proyecto.getDescripcion());
-            if (proyecto.getFechaInicio() != null) p.setFechaInicio(proyecto.getFechaInicio());
-            if (proyecto.getFechaFin() != null) p.setFechaFin(proyecto.getFechaFin());
-
-            // 🔹 Si el frontend quiere modificar las tareas, eso debe ir por otro endpoint (por ejemplo: /proyectos/{id}/tareas)
-            // 🔹 Aquí evitamos llamar p.setTareas(...)
-
-            // 🔹 Recalcular duración si tiene fechas válidas
-            if (p.getFechaInicio() != null && p.getFechaFin() != null) {
-                long minutos = Duration.between(p.getFechaInicio(), p.getFechaFin()).toMinutes();
-                p.setDuracionHoras(minutos / 60.0);
-            }
-
-            return proyectoService.guardar(p);
-        } else {
-            throw new RuntimeException("Proyecto no encontrado con ID: " + id);
+        // 🔹 Solo se actualizan los campos básicos, sin tocar la lista de tareas
+        // 🔹 Si el frontend quiere modificar las tareas, eso debe ir por otro endpoint (por ejemplo: /proyectos/{id}/tareas)
+        // 🔹 Si una tarea cambia el proyecto mientras tanto, el servicio reintenta; si no lo logra, 409
+        try {
+            return proyectoService.actualizar(id, proyecto);
+        } catch (ConcurrencyFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El proyecto cambió mientras se actualizaba, intenta de nuevo");
         }
     }
 
+    // ====== POST: reconstruir los totales de horas y tareas de todos los proyectos ======
+    @PostMapping("/reconstruir-totales")
+    public Map<String, Integer> reconstruirTotales() {
+        return Map.of("proyectosActualizados", proyectoService.reconstruirTotales());
+    }
+
     // ====== DELETE: eliminar un proyecto por ID ======
     @DeleteMapping("/{id}")
     public void eliminarProyecto(@PathVariable Long id) {
         proyectoService.eliminar(id);
     }
+
+    //ETag a partir de las versiones, sin cargar los proyectos
+    private String etagVersiones(boolean todos, String cursor, Integer tamano) {
+        return todos
+                ? Etags.deColeccion("proyectos", proyectoService.obtenerVersionColeccion())
+                : Etags.dePagina("proyectos", proyectoService.obtenerVersionesPagina(cursor, tamano),
+                        VersionFila::getId, VersionFila::getVersion);
+    }
 }
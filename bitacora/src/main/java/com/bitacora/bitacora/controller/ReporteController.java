@@ -1,10 +1,13 @@
 package com.bitacora.bitacora.controller;
 
-import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.dto.ReporteProyecto;
 import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.util.Etags;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/reportes")
@@ -17,31 +20,15 @@ public class ReporteController {
         this.proyectoService = proyectoService;
     }
 
+    // 👇 Una sola consulta agrupada: no carga las tareas de cada proyecto
+    // 👇 ETag según las versiones de los proyectos: si nada cambió responde 304 sin calcular el reporte
     @GetMapping("/proyectos")
-    public List<Map<String, Object>> obtenerReporteProyectos() {
-        List<Proyecto> proyectos = proyectoService.obtenerTodos();
-
-        return proyectos.stream()
-                .map(p -> {
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("id", p.getId());
-                    data.put("nombre", p.getNombre());
-                    data.put("totalHoras", p.getDuracionHoras());
-                    data.put("tareasTotales", p.getTareas() != null ? p.getTareas().size() : 0);
-                    data.put("tareasCompletadas", p.getTareas() != null
-                            ? p.getTareas().stream().filter(t -> "Completada".equalsIgnoreCase(t.getEstado())).count()
-                            : 0);
-
-                    // 👇 adicional: porcentaje de progreso
-                    int total = (p.getTareas() != null ? p.getTareas().size() : 0);
-                    long completadas = (p.getTareas() != null
-                            ? p.getTareas().stream().filter(t -> "Completada".equalsIgnoreCase(t.getEstado())).count()
-                            : 0);
-                    double progreso = total > 0 ? (completadas * 100.0 / total) : 0.0;
-                    data.put("progreso", progreso);
-
-                    return data;
-                })
-                .collect(Collectors.toList());
+    public ResponseEntity<List<ReporteProyecto>> obtenerReporteProyectos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        String etag = Etags.deColeccion("reporte-proyectos", proyectoService.obtenerVersionColeccion());
+        if (Etags.coincide(siNoCoincide, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(proyectoService.obtenerReporte());
     }
 }
@@ -1,12 +1,33 @@
 package com.bitacora.bitacora.controller;
 
-import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.dto.ResultadoImportacion;
+import com.bitacora.bitacora.dto.ResultadoLote;
+import com.bitacora.bitacora.dto.TareaResumen;
+import com.bitacora.bitacora.dto.VersionFila;
+import com.bitacora.bitacora.model.EstadoTarea;
 import com.bitacora.bitacora.model.Tarea;
-import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.service.BusquedaService;
+import com.bitacora.bitacora.service.ExportacionService;
+import com.bitacora.bitacora.service.ImportacionService;
 import com.bitacora.bitacora.service.TareaService;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.bitacora.bitacora.util.Etags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/tareas")
@@ -14,71 +35,205 @@ import java.util.Optional;
 public class TareaController {
 
     private final TareaService tareaService;
-    private final ProyectoService proyectoService;
+    private final ExportacionService exportacionService;
+    private final ImportacionService importacionService;
+    private final BusquedaService busquedaService;
 
-    public TareaController(TareaService tareaService, ProyectoService proyectoService) {
+    public TareaController(TareaService tareaService, ExportacionService exportacionService,
+                           ImportacionService importacionService, BusquedaService busquedaService) {
         this.tareaService = tareaService;
-        this.proyectoService = proyectoService;
+        this.exportacionService = exportacionService;
+        this.importacionService = importacionService;
+        this.busquedaService = busquedaService;
     }
 
-    // ====== GET: obtener todas las tareas ======
+    // ====== GET: obtener tareas paginadas (?cursor=&tamano=&proyectoId=&estado=) ======
+    // 🔹 La lista completa sin paginar solo se devuelve pidiéndola explícitamente con ?todos=true
+    // 🔹 ?vista=resumen omite descripción y observaciones; ?fields=id,titulo limita los campos
+    // 🔹 Un campo que no existe en la vista pedida responde 400
+    // 🔹 ETag según las versiones de las tareas y la variante (vista y campos pedidos):
+    //    con If-None-Match se comparan las versiones antes y, si coinciden, se responde 304 sin cargarlas
     @GetMapping
-    public List<Tarea> obtenerTodas() {
-        return tareaService.obtenerTodas();
+    public ResponseEntity<?> obtenerTodas(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer tamano,
+                                          @RequestParam(required = false) Long proyectoId,
+                                          @RequestParam(required = false) String estado,
+                                          @RequestParam(defaultValue = "false") boolean todos,
+                                          @RequestParam(required = false) String vista,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        try {
+            boolean resumen = CamposRespuesta.esResumen(vista);
+            Set<String> campos = CamposRespuesta.campos(fields, resumen ? TareaResumen.class : Tarea.class);
+            EstadoTarea estadoTarea = EstadoTarea.desdeTexto(estado);
+
+            // 🔹 El resumen no trae versiones: su ETag siempre sale de la consulta de versiones
+            String etag = null;
+            if (siNoCoincide != null || resumen) {
+                etag = Etags.conVariante(etagVersiones(todos, cursor, tamano, proyectoId, estadoTarea), resumen, campos);
+                if (Etags.coincide(siNoCoincide, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+
+            Object cuerpo;
+            if (resumen) {
+                cuerpo = todos ? tareaService.obtenerResumenes()
+                        : tareaService.obtenerPaginaResumen(cursor, tamano, proyectoId, estadoTarea);
+            } else if (todos) {
+                List<Tarea> tareas = tareaService.obtenerTodas();
+                etag = Etags.conVariante(Etags.deLista("tareas", tareas, Tarea::getId, Tarea::getVersion), false, campos);
+                cuerpo = tareas;
+            } else {
+                Pagina<Tarea> pagina = tareaService.obtenerPagina(cursor, tamano, proyectoId, estadoTarea);
+                etag = Etags.conVariante(Etags.dePagina("tareas", pagina, Tarea::getId, Tarea::getVersion), false, campos);
+                cuerpo = pagina;
+            }
+            return ResponseEntity.ok().eTag(etag)
+                    .body(CamposRespuesta.filtrar(cuerpo, CamposRespuesta.FILTRO_TAREA, campos));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
-    // ====== GET: obtener tarea por ID ======
+    // ====== GET: buscar tareas por texto (?q=palabras) en título, descripción y observaciones ======
+    // 🔹 Ordenadas por relevancia y paginadas por cursor; admite ?vista= y ?fields= como el listado
+    @GetMapping("/search")
+    public ResponseEntity<?> buscar(@RequestParam String q,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false) Integer tamano,
+                                    @RequestParam(required = false) String vista,
+                                    @RequestParam(required = false) String fields) {
+        try {
+            boolean resumen = CamposRespuesta.esResumen(vista);
+            Set<String> campos = CamposRespuesta.campos(fields, resumen ? TareaResumen.class : Tarea.class);
+            Pagina<Tarea> pagina = busquedaService.buscarTareas(q, cursor, tamano);
+            Object cuerpo = resumen ? pagina.map(TareaResumen::de) : pagina;
+            return ResponseEntity.ok(CamposRespuesta.filtrar(cuerpo, CamposRespuesta.FILTRO_TAREA, campos));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // ====== GET: exportar todas las tareas (?formato=ndjson|csv) ======
+    // 🔹 Se escriben fila a fila en la respuesta, sin construir la lista completa en memoria
+    @GetMapping("/export")
+    public void exportar(@RequestParam(defaultValue = "ndjson") String formato,
+                         HttpServletResponse response) throws IOException {
+        ExportacionService.Formato formatoExportacion = formatoArchivo(formato);
+
+        response.setContentType(formatoExportacion.getTipoContenido());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("tareas." + formatoExportacion.getExtension()).build().toString());
+        exportacionService.exportarTareas(formatoExportacion, response.getWriter());
+    }
+
+    // ====== GET: obtener tarea por ID (admite ?vista= y ?fields=) ======
+    // 🔹 ETag = versión de la tarea y variante; si el cliente ya la tiene se responde 304 sin cargarla
     @GetMapping("/{id}")
-    public Optional<Tarea> obtenerPorId(@PathVariable Long id) {
-        return tareaService.obtenerPorId(id);
+    public ResponseEntity<?> obtenerPorId(@PathVariable Long id,
+                                          @RequestParam(required = false) String vista,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        boolean resumen;
+        Set<String> campos;
+        try {
+            resumen = CamposRespuesta.esResumen(vista);
+            campos = CamposRespuesta.campos(fields, resumen ? TareaResumen.class : Tarea.class);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        if (siNoCoincide != null) {
+            Optional<Long> version = tareaService.obtenerVersion(id);
+            if (version.isPresent()) {
+                String etag = Etags.conVariante(Etags.deVersion("tarea", id, version.get()), resumen, campos);
+                if (Etags.coincide(siNoCoincide, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+        }
+
+        Optional<Tarea> tarea = tareaService.obtenerPorId(id);
+        Object cuerpo = resumen ? tarea.map(TareaResumen::de) : tarea;
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        tarea.ifPresent(t -> respuesta.eTag(
+                Etags.conVariante(Etags.deVersion("tarea", t.getId(), t.getVersion()), resumen, campos)));
+        return respuesta.body(CamposRespuesta.filtrar(cuerpo, CamposRespuesta.FILTRO_TAREA, campos));
     }
 
     // ====== POST: crear nueva tarea ======
     @PostMapping
     public Tarea crearTarea(@RequestBody Tarea tarea) {
-        // 🔹 Asegurar que la relación con el proyecto exista antes de guardar
-        if (tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
-            Optional<Proyecto> proyectoOpt = proyectoService.obtenerPorId(tarea.getProyecto().getId());
-            proyectoOpt.ifPresent(tarea::setProyecto);
-        }
+        // 🔹 El proyecto indicado por id se busca dentro de la transacción que guarda (en la base principal)
         return tareaService.guardar(tarea);
     }
 
     // ====== PUT: actualizar tarea existente ======
     @PutMapping("/{id}")
     public Tarea actualizarTarea(@PathVariable Long id, @RequestBody Tarea tareaActualizada) {
-        Optional<Tarea> tareaExistente = tareaService.obtenerPorId(id);
-
-        if (tareaExistente.isPresent()) {
-            Tarea t = tareaExistente.get();
-
-            if (tareaActualizada.getTitulo() != null) t.setTitulo(tareaActualizada.getTitulo());
-            if (tareaActualizada.getDescripcion() != null) t.setDescripcion(tareaActualizada.getDescripcion());
-            if (tareaActualizada.getEstado() != null) t.setEstado(tareaActualizada.getEstado());
-            if (tareaActualizada.getFechaInicio() != null) t.setFechaInicio(tareaActualizada.getFechaInicio());
-            if (tareaActualizada.getFechaFin() != null) t.setFechaFin(tareaActualizada.getFechaFin());
-            if (tareaActualizada.getDuracionHoras() != null) t.setDuracionHoras(tareaActualizada.getDuracionHoras());
-            if (tareaActualizada.getObservaciones() != null) t.setObservaciones(tareaActualizada.getObservaciones());
-
-            // 🔹 Solo reasigna el proyecto si viene un nuevo ID diferente
-            if (tareaActualizada.getProyecto() != null && tareaActualizada.getProyecto().getId() != null) {
-                Long nuevoProyectoId = tareaActualizada.getProyecto().getId();
-                if (t.getProyecto() == null || !t.getProyecto().getId().equals(nuevoProyectoId)) {
-                    Optional<Proyecto> proyectoOpt = proyectoService.obtenerPorId(nuevoProyectoId);
-                    proyectoOpt.ifPresent(t::setProyecto);
-                }
-            }
-
-            // 🔹 Guardar la tarea sin afectar las demás tareas del proyecto
-            return tareaService.guardar(t);
-        } else {
-            throw new RuntimeException("Tarea no encontrada con ID: " + id);
+        // 🔹 Lee, aplica los cambios y guarda en una transacción; ante escrituras concurrentes reintenta
+        // 🔹 Solo reasigna el proyecto si viene un nuevo ID diferente
+        try {
+            return tareaService.actualizar(id, tareaActualizada);
+        } catch (ConcurrencyFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "La tarea cambió mientras se actualizaba, intenta de nuevo");
         }
     }
 
+    // ====== Lotes: muchas tareas en una sola petición y transacción ======
+    // 🔹 Cada respuesta trae un resultado por elemento (índice, id, ok, error)
+    @PostMapping("/batch")
+    public List<ResultadoLote> crearLote(@RequestBody List<Tarea> tareas) {
+        return ejecutarLote(() -> tareaService.crearLote(tareas));
+    }
+
+    @PatchMapping("/batch")
+    public List<ResultadoLote> actualizarLote(@RequestBody List<Tarea> cambios) {
+        return ejecutarLote(() -> tareaService.actualizarLote(cambios));
+    }
+
+    @DeleteMapping("/batch")
+    public List<ResultadoLote> eliminarLote(@RequestBody List<Long> ids) {
+        return ejecutarLote(() -> tareaService.eliminarLote(ids));
+    }
+
+    // ====== POST: importar tareas desde un archivo NDJSON o CSV (?formato=ndjson|csv) ======
+    // 🔹 El cuerpo se lee por partes y se guarda en bloques; el proyecto puede indicarse por nombre o id
+    @PostMapping("/import")
+    public ResultadoImportacion importar(@RequestParam(defaultValue = "ndjson") String formato,
+                                         HttpServletRequest request) throws IOException {
+        return importacionService.importarTareas(formatoArchivo(formato), request.getInputStream());
+    }
+
     // ====== DELETE: eliminar tarea ======
     @DeleteMapping("/{id}")
     public void eliminarTarea(@PathVariable Long id) {
         tareaService.eliminar(id);
     }
+
+    private ExportacionService.Formato formatoArchivo(String formato) {
+        try {
+            return ExportacionService.Formato.desdeTexto(formato);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    //ETag a partir de las versiones, sin cargar las tareas
+    private String etagVersiones(boolean todos, String cursor, Integer tamano, Long proyectoId, EstadoTarea estado) {
+        return todos
+                ? Etags.deColeccion("tareas", tareaService.obtenerVersionColeccion())
+                : Etags.dePagina("tareas", tareaService.obtenerVersionesPagina(cursor, tamano, proyectoId, estado),
+                        VersionFila::getId, VersionFila::getVersion);
+    }
+
+    private List<ResultadoLote> ejecutarLote(Supplier<List<ResultadoLote>> operacion) {
+        try {
+            return operacion.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,8 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Tarea encontrada por la búsqueda y su puntaje: la suma de los pesos de los
+ * términos de la consulta que contiene (el título pesa más que el resto).
+ */
+public record CoincidenciaBusqueda(Long tareaId, Long puntaje) {
+}
@@ -0,0 +1,16 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Aviso de progreso de /api/chat/stream (un evento SSE con nombre = tipo).
+ * "inicio" al empezar el análisis, "fragmento" por cada parte de una reunión analizada,
+ * "proyecto" / "tarea" por cada uno creado, "resumen" con la respuesta final y "error" si falla.
+ */
+public record EventoChat(String tipo, String mensaje) {
+
+    public static final String INICIO = "inicio";
+    public static final String FRAGMENTO = "fragmento";
+    public static final String PROYECTO = "proyecto";
+    public static final String TAREA = "tarea";
+    public static final String RESUMEN = "resumen";
+    public static final String ERROR = "error";
+}
@@ -0,0 +1,17 @@
+package com.bitacora.bitacora.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * Una fila del archivo de importación de tareas (NDJSON o CSV, mismas columnas que la exportación).
+ * El proyecto se indica con "proyectoId" (existente) o con "proyecto" (nombre; se crea si no existe).
+ * Las columnas desconocidas, como "id", se ignoran.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record FilaImportacion(String titulo, String descripcion, String estado,
+                              LocalDateTime fechaInicio, LocalDateTime fechaFin, Double duracionHoras,
+                              String observaciones, LocalDateTime fechaCreacion,
+                              Long proyectoId, String proyecto) {
+}
@@ -0,0 +1,57 @@
+package com.bitacora.bitacora.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados con paginación por cursor (keyset sobre el id).
+ * "siguienteCursor" es un token opaco que se envía tal cual para pedir la página
+ * siguiente; es null cuando ya no quedan más resultados.
+ */
+public record Pagina<T>(List<T> items, int tamano, String siguienteCursor) {
+
+    public static final int TAMANO_POR_DEFECTO = 50;
+    public static final int TAMANO_MAXIMO = 200;
+
+    /**
+     * Construye la página a partir de una consulta que pidió tamano + 1 filas:
+     * la fila extra solo indica que hay más resultados y no se devuelve.
+     */
+    public static <T> Pagina<T> de(List<T> filas, int tamano, Function<T, Long> obtenerId) {
+        if (filas.size() <= tamano) {
+            return new Pagina<>(filas, tamano, null);
+        }
+        List<T> items = filas.subList(0, tamano);
+        Long ultimoId = obtenerId.apply(items.get(items.size() - 1));
+        return new Pagina<>(List.copyOf(items), tamano, codificarCursor(ultimoId));
+    }
+
+    //Misma página con cada elemento transformado (por ejemplo, a su vista resumida)
+    public <R> Pagina<R> map(Function<T, R> transformar) {
+        return new Pagina<>(items.stream().map(transformar).toList(), tamano, siguienteCursor);
+    }
+
+    // Limita el tamaño pedido por el cliente al rango [1, TAMANO_MAXIMO]
+    public static int limitarTamano(Integer tamano) {
+        if (tamano == null) return TAMANO_POR_DEFECTO;
+        return Math.max(1, Math.min(tamano, TAMANO_MAXIMO));
+    }
+
+    public static String codificarCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Devuelve el id a partir del cual continuar (0 si no hay cursor)
+    public static long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return Long.parseLong(valor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
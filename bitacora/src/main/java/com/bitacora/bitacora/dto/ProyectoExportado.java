@@ -0,0 +1,11 @@
+package com.bitacora.bitacora.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la exportación de proyectos (sin la lista de tareas; se exportan aparte).
+ */
+public record ProyectoExportado(Long id, String nombre, String descripcion,
+                                LocalDateTime fechaInicio, LocalDateTime fechaFin, Double duracionHoras,
+                                LocalDateTime fechaCreacion, long tareasTotales, long tareasCompletadas) {
+}
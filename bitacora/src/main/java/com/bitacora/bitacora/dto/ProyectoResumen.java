@@ -0,0 +1,22 @@
+package com.bitacora.bitacora.dto;
+
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista resumida de un proyecto: fechas, horas y contadores de tareas,
+ * sin descripción ni la lista de tareas.
+ */
+@JsonFilter(CamposRespuesta.FILTRO_PROYECTO)
+public record ProyectoResumen(Long id, String nombre, LocalDateTime fechaInicio, LocalDateTime fechaFin,
+                              Double duracionHoras, long tareasTotales, long tareasCompletadas) {
+
+    public static ProyectoResumen de(Proyecto proyecto) {
+        return new ProyectoResumen(proyecto.getId(), proyecto.getNombre(), proyecto.getFechaInicio(),
+                proyecto.getFechaFin(), proyecto.getDuracionHoras(),
+                proyecto.getTareasTotales(), proyecto.getTareasCompletadas());
+    }
+}
@@ -0,0 +1,23 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Fila del reporte de proyectos, calculada en la base de datos con una sola
+ * consulta agrupada (ver ProyectoRepository.obtenerReporte).
+ */
+public record ReporteProyecto(Long id,
+                              String nombre,
+                              Double totalHoras,
+                              long tareasTotales,
+                              long tareasCompletadas,
+                              double progreso) {
+
+    // Constructor usado por la consulta JPQL; el progreso se deriva de los contadores
+    public ReporteProyecto(Long id, String nombre, Double totalHoras, Long tareasTotales, Long tareasCompletadas) {
+        this(id, nombre, totalHoras,
+                tareasTotales != null ? tareasTotales : 0,
+                tareasCompletadas != null ? tareasCompletadas : 0,
+                tareasTotales != null && tareasTotales > 0
+                        ? (tareasCompletadas != null ? tareasCompletadas : 0) * 100.0 / tareasTotales
+                        : 0.0);
+    }
+}
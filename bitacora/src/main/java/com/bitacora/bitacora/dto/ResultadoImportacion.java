@@ -0,0 +1,11 @@
+package com.bitacora.bitacora.dto;
+
+import java.util.List;
+
+/**
+ * Resumen de una importación. "errores" lista las filas rechazadas (indice = número de fila,
+ * empezando en 1) hasta un máximo; filasConError tiene el total.
+ */
+public record ResultadoImportacion(int filasLeidas, int tareasCreadas, int proyectosCreados,
+                                   int filasConError, List<ResultadoLote> errores) {
+}
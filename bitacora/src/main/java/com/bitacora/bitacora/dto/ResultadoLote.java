@@ -0,0 +1,16 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Resultado de un elemento dentro de una operación por lotes.
+ * "indice" es la posición del elemento en la petición; "error" es null si se aplicó.
+ */
+public record ResultadoLote(int indice, Long id, boolean ok, String error) {
+
+    public static ResultadoLote exito(int indice, Long id) {
+        return new ResultadoLote(indice, id, true, null);
+    }
+
+    public static ResultadoLote fallo(int indice, Long id, String error) {
+        return new ResultadoLote(indice, id, false, error);
+    }
+}
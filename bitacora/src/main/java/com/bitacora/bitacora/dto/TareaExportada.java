@@ -0,0 +1,14 @@
+package com.bitacora.bitacora.dto;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de la exportación de tareas. Se lee directamente con una consulta de proyección,
+ * sin crear entidades Tarea ni llenar el contexto de persistencia.
+ */
+public record TareaExportada(Long id, String titulo, String descripcion, EstadoTarea estado,
+                             LocalDateTime fechaInicio, LocalDateTime fechaFin, Double duracionHoras,
+                             String observaciones, LocalDateTime fechaCreacion, Long proyectoId) {
+}
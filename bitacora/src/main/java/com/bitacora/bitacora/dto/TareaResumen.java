@@ -0,0 +1,21 @@
+package com.bitacora.bitacora.dto;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista resumida de una tarea: sin descripción ni observaciones, con el id de su proyecto.
+ */
+@JsonFilter(CamposRespuesta.FILTRO_TAREA)
+public record TareaResumen(Long id, String titulo, EstadoTarea estado, LocalDateTime fechaFin,
+                           Double duracionHoras, Long proyectoId) {
+
+    public static TareaResumen de(Tarea tarea) {
+        return new TareaResumen(tarea.getId(), tarea.getTitulo(), tarea.getEstado(), tarea.getFechaFin(),
+                tarea.getDuracionHoras(), tarea.getProyecto() != null ? tarea.getProyecto().getId() : null);
+    }
+}
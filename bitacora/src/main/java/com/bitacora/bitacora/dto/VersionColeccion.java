@@ -0,0 +1,9 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Resumen de versiones de toda una tabla para el ETag de las listas completas:
+ * una modificación sube la suma de versiones, un alta sube el id máximo y una baja
+ * cambia el número de filas.
+ */
+public record VersionColeccion(Long filas, Long sumaVersiones, Long maxId) {
+}
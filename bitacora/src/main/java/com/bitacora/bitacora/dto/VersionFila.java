@@ -0,0 +1,12 @@
+package com.bitacora.bitacora.dto;
+
+/**
+ * Proyección con solo el id y la versión de una fila (proyecto o tarea).
+ * Alcanza para calcular el ETag de una página sin cargar ni serializar las entidades.
+ */
+public interface VersionFila {
+
+    Long getId();
+
+    long getVersion();
+}
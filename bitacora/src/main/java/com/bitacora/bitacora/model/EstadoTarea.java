@@ -0,0 +1,53 @@
+package com.bitacora.bitacora.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Estado de una tarea. En la base de datos se guarda el nombre de la constante
+ * (PENDIENTE, EN_PROGRESO, COMPLETADA); en el JSON se usa la etiqueta de siempre
+ * ("pendiente", "En progreso", "Completada") para no romper al frontend ni a los prompts.
+ */
+public enum EstadoTarea {
+    PENDIENTE("pendiente"),
+    EN_PROGRESO("En progreso"),
+    COMPLETADA("Completada");
+
+    private final String etiqueta;
+
+    EstadoTarea(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+
+    @JsonValue
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+
+    /**
+     * Interpreta el texto libre que llega del frontend o de la IA
+     * (sin distinguir mayúsculas, tildes, guiones ni guiones bajos).
+     * Lanza IllegalArgumentException si no corresponde a ningún estado.
+     */
+    @JsonCreator
+    public static EstadoTarea desdeTexto(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String valor = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('_', ' ')
+                .replace('-', ' ')
+                .trim()
+                .toLowerCase(Locale.ROOT);
+
+        return switch (valor) {
+            case "pendiente", "pending", "por hacer", "todo", "to do" -> PENDIENTE;
+            case "en progreso", "en curso", "en proceso", "progreso", "in progress", "iniciada" -> EN_PROGRESO;
+            case "completada", "completado", "completed", "terminada", "finalizada", "hecha", "done" -> COMPLETADA;
+            default -> throw new IllegalArgumentException("Estado de tarea no válido: " + texto);
+        };
+    }
+}
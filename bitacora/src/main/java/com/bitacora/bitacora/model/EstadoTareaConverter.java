@@ -0,0 +1,44 @@
+package com.bitacora.bitacora.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guarda EstadoTarea por nombre de constante. Al leer es tolerante con los valores
+ * de texto libre anteriores ("Completada", "en progreso"...) mientras la migración
+ * de NormalizacionInicial no los haya reescrito. Lo irreconocible se lee como null
+ * (sin estado) y se avisa en el log, en vez de hacerlo pasar por PENDIENTE.
+ */
+@Converter(autoApply = true)
+public class EstadoTareaConverter implements AttributeConverter<EstadoTarea, String> {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadoTareaConverter.class);
+
+    // Valores ya avisados: un aviso por valor distinto, no uno por fila leída
+    private static final Set<String> AVISADOS = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public String convertToDatabaseColumn(EstadoTarea estado) {
+        return estado != null ? estado.name() : null;
+    }
+
+    @Override
+    public EstadoTarea convertToEntityAttribute(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return EstadoTarea.desdeTexto(valor);
+        } catch (IllegalArgumentException e) {
+            if (AVISADOS.add(valor)) {
+                log.warn("Estado de tarea no reconocido en la base de datos: '{}'; se lee como sin estado", valor);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.bitacora.bitacora.model;
+
+/**
+ * Estado de un trabajo de chat en segundo plano (ver TrabajoChat):
+ * EN_COLA → EN_CURSO → TERMINADO o FALLIDO.
+ */
+public enum EstadoTrabajo {
+    EN_COLA,
+    EN_CURSO,
+    TERMINADO,
+    FALLIDO
+}
@@ -1,26 +1,66 @@
 package com.bitacora.bitacora.model;
 
+import com.bitacora.bitacora.config.CacheConfig;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "proyectos")
+@JsonFilter(CamposRespuesta.FILTRO_PROYECTO) // Permite ?fields= en las respuestas (ver CamposRespuesta)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_PROYECTOS)
+@DynamicUpdate // Solo escribe las columnas modificadas: no pisa los totales que mantiene TareaService
+@Table(name = "proyectos", indexes = {
+        @Index(name = "idx_proyectos_nombre_normalizado", columnList = "nombre_normalizado")
+})
 public class Proyecto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "proyectos_id")
+    @TableGenerator(name = "proyectos_id", table = "id_generadores", pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "proyectos", allocationSize = 50)
     private Long id;
 
     private String nombre;
+
+    @JsonIgnore
+    @Column(name = "nombre_normalizado")
+    private String nombreNormalizado; // nombre en minúsculas, usado para búsquedas indexadas
+
     private String descripcion;
     private LocalDateTime fechaInicio;
     private LocalDateTime fechaFin;
     private Double duracionHoras; // Calculada automáticamente
     private LocalDateTime fechaCreacion = LocalDateTime.now();
 
+    // Totales desnormalizados de las tareas. Se calculan al crear el proyecto y después
+    // solo los modifica TareaService con updates atómicos (por eso updatable = false).
+    @JsonIgnore
+    @Column(name = "horas_tareas", updatable = false)
+    private Double horasTareas;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "tareas_totales", nullable = false, updatable = false)
+    private long tareasTotales;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "tareas_completadas", nullable = false, updatable = false)
+    private long tareasCompletadas;
+
+    // Cambia con cada modificación del proyecto o de sus tareas (ver aplicarDeltaTotales); base del ETag
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     // Relación uno a muchos: un proyecto tiene muchas tareas
     @OneToMany(mappedBy = "proyecto", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference  // 👈 evita el bucle con las tareas
@@ -33,6 +73,8 @@ public class Proyecto {
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
 
+    public String getNombreNormalizado() { return nombreNormalizado; }
+
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
 
@@ -51,26 +93,62 @@ public class Proyecto {
     public List<Tarea> getTareas() { return tareas; }
     public void setTareas(List<Tarea> tareas) { this.tareas = tareas; }
 
+    public Double getHorasTareas() { return horasTareas; }
+
+    public long getTareasTotales() { return tareasTotales; }
+
+    public long getTareasCompletadas() { return tareasCompletadas; }
+
+    public long getVersion() { return version; }
+
     // ===================== Métodos auxiliares =====================
     /**
-     * Calcula automáticamente la duración del proyecto:
-     * 1️⃣ Si tiene fechaInicio y fechaFin → usa esas fechas.
-     * 2️⃣ Si tiene tareas → suma las horas de las tareas.
+     * Al crear el proyecto, los totales salen de las tareas que trae consigo
+     * (solo las recibidas en la petición, no se consulta la base de datos).
      */
     @PrePersist
+    public void antesDeInsertar() {
+        this.nombreNormalizado = NormalizadorTexto.normalizar(nombre);
+
+        double horas = 0.0;
+        long completadas = 0;
+        if (tareas != null) {
+            for (Tarea tarea : tareas) {
+                if (tarea.getDuracionHoras() != null) horas += tarea.getDuracionHoras();
+                if (tarea.estaCompletada()) completadas++;
+            }
+        }
+        this.horasTareas = horas;
+        this.tareasTotales = tareas != null ? tareas.size() : 0;
+        this.tareasCompletadas = completadas;
+
+        calcularDuracion();
+    }
+
     @PreUpdate
+    public void antesDeActualizar() {
+        this.nombreNormalizado = NormalizadorTexto.normalizar(nombre);
+        calcularDuracion();
+    }
+
+    // Completa la columna en proyectos creados antes de que existiera (ver NormalizacionInicial)
+    public void normalizarNombre() {
+        this.nombreNormalizado = NormalizadorTexto.normalizar(nombre);
+    }
+
+    /**
+     * Calcula automáticamente la duración del proyecto:
+     * 1️⃣ Si tiene fechaInicio y fechaFin → usa esas fechas.
+     * 2️⃣ Si tiene tareas → usa la suma de horas ya acumulada en horasTareas
+     *    (no recorre la colección de tareas).
+     */
     public void calcularDuracion() {
         if (fechaInicio != null && fechaFin != null) {
             // Si el proyecto tiene fechas, calcula diferencia directa
             long minutos = Duration.between(fechaInicio, fechaFin).toMinutes();
             this.duracionHoras = minutos / 60.0;
-        } else if (tareas != null && !tareas.isEmpty()) {
-            // Si tiene tareas asociadas, suma sus horas
-            double total = tareas.stream()
-                    .filter(t -> t.getDuracionHoras() != null)
-                    .mapToDouble(Tarea::getDuracionHoras)
-                    .sum();
-            this.duracionHoras = total;
+        } else if (tareasTotales > 0) {
+            this.duracionHoras = horasTareas;
         } else {
             this.duracionHoras = null;
         }
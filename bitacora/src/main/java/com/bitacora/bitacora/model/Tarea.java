@@ -1,43 +1,91 @@
 package com.bitacora.bitacora.model;
 
+import com.bitacora.bitacora.config.CacheConfig;
+import com.bitacora.bitacora.util.CamposRespuesta;
+import com.bitacora.bitacora.util.NormalizadorTexto;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import java.util.Objects;
 import java.time.LocalDateTime;
 import java.time.Duration;
 
 @Entity
-@Table(name = "tareas")
+@JsonFilter(CamposRespuesta.FILTRO_TAREA) // Permite ?fields= en las respuestas (ver CamposRespuesta)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_TAREAS)
+@DynamicUpdate // El UPDATE lleva solo lo que cambió: un estado antiguo que se lee como null no se pisa
+@Table(name = "tareas", indexes = {
+        @Index(name = "idx_tareas_titulo_normalizado_proyecto", columnList = "titulo_normalizado, proyecto_id"),
+        @Index(name = "idx_tareas_proyecto_estado", columnList = "proyecto_id, estado")
+})
 public class Tarea {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tareas_id")
+    @TableGenerator(name = "tareas_id", table = "id_generadores", pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "tareas", allocationSize = 50)
     private Long id;
     private String titulo;
+
+    @JsonIgnore
+    @Column(name = "titulo_normalizado")
+    private String tituloNormalizado; // título en minúsculas, usado para búsquedas indexadas
     private String descripcion;
-    private String estado; // Pendiente, En progreso, Completada
+    @Column(length = 12)
+    private EstadoTarea estado; // PENDIENTE, EN_PROGRESO, COMPLETADA (ver EstadoTareaConverter)
     private LocalDateTime fechaInicio;
     private LocalDateTime fechaFin;
     private Double duracionHoras; // Calculada automáticamente
     private String observaciones;
     private LocalDateTime fechaCreacion = LocalDateTime.now();
 
+    // Cambia con cada modificación de la tarea; base del ETag
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "proyecto_id")
     @JsonBackReference // 👈 Evita el bucle infinito al serializar (Proyecto → Tarea → Proyecto)
     private Proyecto proyecto;
 
+    // Estado de la tarea ya reflejado en los totales del proyecto (horas, completada, proyecto).
+    // Permite a TareaService aplicar solo la diferencia al guardar, sin recorrer las demás tareas.
+    @Transient
+    private boolean totalesAplicados;
+    @Transient
+    private Long proyectoIdAplicado;
+    @Transient
+    private double horasAplicadas;
+    @Transient
+    private boolean completadaAplicada;
+
+    // Texto (título, descripción, observaciones) que refleja el índice de búsqueda; null si aún no se indexó.
+    // Permite a BusquedaService reindexar solo las tareas cuyo texto cambió.
+    @Transient
+    private String textoIndexado;
+
     // ====== Getters y Setters ======
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public long getVersion() { return version; }
+
     public String getTitulo() { return titulo; }
     public void setTitulo(String titulo) { this.titulo = titulo; }
 
+    public String getTituloNormalizado() { return tituloNormalizado; }
+
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
 
-    public String getEstado() { return estado; }
-    public void setEstado(String estado) { this.estado = estado; }
+    public EstadoTarea getEstado() { return estado; }
+    public void setEstado(EstadoTarea estado) { this.estado = estado; }
 
     public LocalDateTime getFechaInicio() { return fechaInicio; }
     public void setFechaInicio(LocalDateTime fechaInicio) { this.fechaInicio = fechaInicio; }
@@ -57,9 +105,71 @@ public class Tarea {
     public Proyecto getProyecto() { return proyecto; }
     public void setProyecto(Proyecto proyecto) { this.proyecto = proyecto; }
 
-    // ====== Método auxiliar ======
+    // ====== Métodos auxiliares ======
+    public boolean estaCompletada() {
+        return estado == EstadoTarea.COMPLETADA;
+    }
+
+    @JsonIgnore
+    public boolean isTotalesAplicados() { return totalesAplicados; }
+    @JsonIgnore
+    public Long getProyectoIdAplicado() { return proyectoIdAplicado; }
+    @JsonIgnore
+    public double getHorasAplicadas() { return horasAplicadas; }
+    @JsonIgnore
+    public boolean isCompletadaAplicada() { return completadaAplicada; }
+
+    //Lo que viene de la base de datos ya está reflejado en los totales y en el índice de búsqueda
+    @PostLoad
+    public void alCargar() {
+        marcarTotalesAplicados();
+        marcarTextoIndexado();
+    }
+
+    //Guarda como "aplicado" el estado actual: se llama al cargar, al insertar y tras actualizar totales
+    @PostPersist
+    public void marcarTotalesAplicados() {
+        this.totalesAplicados = true;
+        this.proyectoIdAplicado = proyecto != null ? proyecto.getId() : null;
+        this.horasAplicadas = duracionHoras != null ? duracionHoras : 0.0;
+        this.completadaAplicada = estaCompletada();
+    }
+
+    public void marcarTextoIndexado() {
+        this.textoIndexado = textoBuscable();
+    }
+
+    public boolean textoIndexadoCambio() {
+        return !textoBuscable().equals(textoIndexado);
+    }
+
+    private String textoBuscable() {
+        return titulo + "\0" + descripcion + "\0" + observaciones;
+    }
+
+    public boolean mismoProyectoAplicado() {
+        return Objects.equals(proyectoIdAplicado, proyecto != null ? proyecto.getId() : null);
+    }
+
+    // Solo las tareas nuevas toman PENDIENTE por defecto: en una existente, null puede ser un estado
+    // antiguo no reconocido (ver EstadoTareaConverter) que debe quedar como está en la base
     @PrePersist
+    public void antesDeInsertar() {
+        if (estado == null) estado = EstadoTarea.PENDIENTE;
+        antesDeActualizar();
+    }
+
     @PreUpdate
+    public void antesDeActualizar() {
+        this.tituloNormalizado = NormalizadorTexto.normalizar(titulo);
+        calcularDuracion();
+    }
+
+    // Completa la columna en tareas creadas antes de que existiera (ver NormalizacionInicial)
+    public void normalizarTitulo() {
+        this.tituloNormalizado = NormalizadorTexto.normalizar(titulo);
+    }
+
     public void calcularDuracion() {
         if (fechaInicio != null && fechaFin != null) {
             long minutos = Duration.between(fechaInicio, fechaFin).toMinutes();
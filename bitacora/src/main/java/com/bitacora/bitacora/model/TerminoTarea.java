@@ -0,0 +1,93 @@
+package com.bitacora.bitacora.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Entrada del índice de búsqueda de tareas: un término normalizado que aparece en el título,
+ * la descripción o las observaciones de una tarea, con el peso que aporta al puntaje.
+ * La mantiene BusquedaService al guardar y eliminar tareas. No tiene FK hacia tareas para
+ * que borrar un proyecto con sus tareas en cascada no dependa del orden de los DELETE.
+ */
+@Entity
+@IdClass(TerminoTarea.Clave.class)
+@Table(name = "tarea_terminos", indexes = {
+        @Index(name = "idx_tarea_terminos_termino", columnList = "termino, peso, tarea_id")
+})
+public class TerminoTarea implements Persistable<TerminoTarea.Clave> {
+
+    @Id
+    @Column(name = "tarea_id")
+    private Long tareaId;
+
+    @Id
+    @Column(length = 64)
+    private String termino;
+
+    private int peso;
+
+    // Sin esto Spring Data haría un SELECT (merge) antes de cada INSERT, por tener id asignado
+    @Transient
+    private boolean nuevo = true;
+
+    protected TerminoTarea() {
+    }
+
+    public TerminoTarea(Long tareaId, String termino, int peso) {
+        this.tareaId = tareaId;
+        this.termino = termino;
+        this.peso = peso;
+    }
+
+    public Long getTareaId() { return tareaId; }
+
+    public String getTermino() { return termino; }
+
+    public int getPeso() { return peso; }
+    public void setPeso(int peso) { this.peso = peso; }
+
+    @Override
+    public Clave getId() {
+        return new Clave(tareaId, termino);
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarGuardado() {
+        this.nuevo = false;
+    }
+
+    // ====== Clave compuesta (tarea_id, termino) ======
+    public static class Clave implements Serializable {
+
+        private Long tareaId;
+        private String termino;
+
+        public Clave() {
+        }
+
+        public Clave(Long tareaId, String termino) {
+            this.tareaId = tareaId;
+            this.termino = termino;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave otra)) return false;
+            return Objects.equals(tareaId, otra.tareaId) && Objects.equals(termino, otra.termino);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tareaId, termino);
+        }
+    }
+}
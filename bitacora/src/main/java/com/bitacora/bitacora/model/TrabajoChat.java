@@ -0,0 +1,69 @@
+package com.bitacora.bitacora.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Mensaje de chat (normalmente una transcripción de reunión) procesado en segundo plano
+ * por TrabajosChatService. Se guarda en la base para consultar su estado desde cualquier
+ * instancia y para retomar los que quedaron en cola si la aplicación se reinicia.
+ */
+@Entity
+@Table(name = "trabajos_chat", indexes = {
+        @Index(name = "idx_trabajos_chat_estado", columnList = "estado, id")
+})
+public class TrabajoChat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 12, nullable = false)
+    private EstadoTrabajo estado = EstadoTrabajo.EN_COLA;
+
+    @JsonIgnore // Puede ser muy largo; el cliente ya lo tiene
+    @Lob
+    @Column(nullable = false)
+    private String mensaje;
+
+    @Lob
+    private String resultado; // Respuesta de ChatService cuando termina
+
+    @Column(length = 1000)
+    private String error;
+
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+
+    protected TrabajoChat() {
+    }
+
+    public TrabajoChat(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    // ===================== Getters y Setters =====================
+    public Long getId() { return id; }
+
+    public EstadoTrabajo getEstado() { return estado; }
+    public void setEstado(EstadoTrabajo estado) { this.estado = estado; }
+
+    public String getMensaje() { return mensaje; }
+
+    public String getResultado() { return resultado; }
+    public void setResultado(String resultado) { this.resultado = resultado; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+
+    public LocalDateTime getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(LocalDateTime fechaInicio) { this.fechaInicio = fechaInicio; }
+
+    public LocalDateTime getFechaFin() { return fechaFin; }
+    public void setFechaFin(LocalDateTime fechaFin) { this.fechaFin = fechaFin; }
+}
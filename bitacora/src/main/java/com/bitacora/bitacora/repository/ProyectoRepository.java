@@ -1,9 +1,130 @@
 package com.bitacora.bitacora.repository;
 
+import com.bitacora.bitacora.dto.ProyectoExportado;
+import com.bitacora.bitacora.dto.ReporteProyecto;
+import com.bitacora.bitacora.dto.VersionColeccion;
 import com.bitacora.bitacora.model.Proyecto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProyectoRepository extends JpaRepository<Proyecto, Long> {
+
+    // Paginación por cursor: siguiente bloque de proyectos con id mayor al último visto
+    // (tipo = Proyecto.class para las entidades o VersionFila.class solo para id y versión)
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit, Class<T> tipo);
+
+    // Tareas de los proyectos indicados en una sola consulta (fetch join), para no hacer una por proyecto
+    // al serializarlos. Va aparte de la consulta paginada: con LIMIT, Hibernate paginaría en memoria.
+    @Query("SELECT DISTINCT p FROM Proyecto p LEFT JOIN FETCH p.tareas WHERE p.id IN :ids")
+    List<Proyecto> cargarTareas(@Param("ids") Collection<Long> ids);
+
+    // Lista completa con sus tareas (?todos=true), también en una sola consulta
+    @Query("SELECT DISTINCT p FROM Proyecto p LEFT JOIN FETCH p.tareas ORDER BY p.id")
+    List<Proyecto> buscarTodosConTareas();
+
+    // Versiones para los ETag, sin cargar entidades
+    @Query("SELECT p.version FROM Proyecto p WHERE p.id = :id")
+    Optional<Long> buscarVersion(@Param("id") Long id);
+
+    @Query("SELECT new com.bitacora.bitacora.dto.VersionColeccion(COUNT(p), COALESCE(SUM(p.version), 0L), " +
+           "COALESCE(MAX(p.id), 0L)) FROM Proyecto p")
+    VersionColeccion obtenerVersionColeccion();
+
+    // Búsqueda de ids por nombre normalizado (usa idx_proyectos_nombre_normalizado)
+    @Query("SELECT p.id FROM Proyecto p WHERE p.nombreNormalizado = :nombreNormalizado ORDER BY p.id")
+    List<Long> buscarIdsPorNombreNormalizado(@Param("nombreNormalizado") String nombreNormalizado, Limit limit);
+
+    List<Proyecto> findByNombreNormalizadoIn(Collection<String> nombresNormalizados);
+
+    @Query("SELECT p.id FROM Proyecto p WHERE p.id IN :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Exportación: filas leídas por bloques del cursor JDBC (requiere transacción abierta y cerrar el Stream)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bitacora.bitacora.dto.ProyectoExportado(p.id, p.nombre, p.descripcion, " +
+           "p.fechaInicio, p.fechaFin, p.duracionHoras, p.fechaCreacion, p.tareasTotales, p.tareasCompletadas) " +
+           "FROM Proyecto p " +
+           "ORDER BY p.id")
+    Stream<ProyectoExportado> exportarTodos();
+
+    // Reporte agregado: una sola consulta agrupada en vez de recorrer las tareas de cada proyecto
+    @Query("SELECT new com.bitacora.bitacora.dto.ReporteProyecto(p.id, p.nombre, p.duracionHoras, " +
+           "COUNT(t), SUM(CASE WHEN t.estado = com.bitacora.bitacora.model.EstadoTarea.COMPLETADA THEN 1 ELSE 0 END)) " +
+           "FROM Proyecto p LEFT JOIN p.tareas t " +
+           "GROUP BY p.id, p.nombre, p.duracionHoras " +
+           "ORDER BY p.id")
+    List<ReporteProyecto> obtenerReporte();
+
+    /**
+     * Aplica en una sola sentencia la diferencia de horas y contadores producida por una tarea.
+     * duracionHoras solo se toca si el proyecto no tiene fechas (si las tiene, manda la diferencia de fechas).
+     * La asignación de duracion_horas va primero porque MySQL evalúa el SET de izquierda a derecha.
+     * Es SQL nativo con un espacio de consulta propio para que Hibernate no vacíe toda la región
+     * "proyectos" de la caché de segundo nivel (lo haría con un UPDATE en JPQL); DeltaTotales
+     * desaloja solo los proyectos modificados.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "totales_proyectos"))
+    @Query(value = "UPDATE proyectos SET " +
+           "duracion_horas = CASE WHEN fecha_inicio IS NOT NULL AND fecha_fin IS NOT NULL " +
+           "THEN duracion_horas ELSE COALESCE(horas_tareas, 0.0) + :deltaHoras END, " +
+           "horas_tareas = COALESCE(horas_tareas, 0.0) + :deltaHoras, " +
+           "tareas_totales = tareas_totales + :deltaTareas, " +
+           "tareas_completadas = tareas_completadas + :deltaCompletadas, " +
+           "version = version + 1 " +
+           "WHERE id = :id",
+           nativeQuery = true)
+    int aplicarDeltaTotales(@Param("id") Long id,
+                            @Param("deltaHoras") double deltaHoras,
+                            @Param("deltaTareas") long deltaTareas,
+                            @Param("deltaCompletadas") long deltaCompletadas);
+
+    // Reconstrucción completa de los totales a partir de la tabla de tareas (tarea de mantenimiento)
+    @Modifying
+    @Query("UPDATE Proyecto p SET " +
+           "p.horasTareas = (SELECT COALESCE(SUM(t.duracionHoras), 0.0) FROM Tarea t WHERE t.proyecto = p), " +
+           "p.tareasTotales = (SELECT COUNT(t) FROM Tarea t WHERE t.proyecto = p), " +
+           "p.tareasCompletadas = (SELECT COUNT(t) FROM Tarea t WHERE t.proyecto = p " +
+           "AND t.estado = com.bitacora.bitacora.model.EstadoTarea.COMPLETADA), " +
+           "p.version = p.version + 1")
+    int reconstruirTotales();
+
+    // Igual que reconstruirTotales, solo para los proyectos indicados (por ejemplo, tras una importación)
+    @Modifying
+    @Query("UPDATE Proyecto p SET " +
+           "p.horasTareas = (SELECT COALESCE(SUM(t.duracionHoras), 0.0) FROM Tarea t WHERE t.proyecto = p), " +
+           "p.tareasTotales = (SELECT COUNT(t) FROM Tarea t WHERE t.proyecto = p), " +
+           "p.tareasCompletadas = (SELECT COUNT(t) FROM Tarea t WHERE t.proyecto = p " +
+           "AND t.estado = com.bitacora.bitacora.model.EstadoTarea.COMPLETADA), " +
+           "p.version = p.version + 1 " +
+           "WHERE p.id IN :ids")
+    int reconstruirTotalesDe(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Proyecto p SET p.duracionHoras = CASE WHEN p.tareasTotales > 0 THEN p.horasTareas ELSE NULL END " +
+           "WHERE p.fechaInicio IS NULL OR p.fechaFin IS NULL")
+    int reconstruirDuraciones();
+
+    @Modifying
+    @Query("UPDATE Proyecto p SET p.duracionHoras = CASE WHEN p.tareasTotales > 0 THEN p.horasTareas ELSE NULL END " +
+           "WHERE p.id IN :ids AND (p.fechaInicio IS NULL OR p.fechaFin IS NULL)")
+    int reconstruirDuracionesDe(@Param("ids") Collection<Long> ids);
+
+    // Proyectos creados antes de que existiera la columna normalizada, por bloques de id.
+    // La columna se completa en Java (NormalizadorTexto), con la misma regla que usan las búsquedas
+    @Query("SELECT p FROM Proyecto p WHERE p.id > :despuesDeId " +
+           "AND p.nombreNormalizado IS NULL AND p.nombre IS NOT NULL ORDER BY p.id")
+    List<Proyecto> buscarSinNombreNormalizado(@Param("despuesDeId") long despuesDeId, Limit limit);
 }
@@ -1,8 +1,91 @@
 package com.bitacora.bitacora.repository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.bitacora.bitacora.dto.TareaExportada;
+import com.bitacora.bitacora.dto.VersionColeccion;
+import com.bitacora.bitacora.model.EstadoTarea;
 import com.bitacora.bitacora.model.Tarea;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TareaRepository extends JpaRepository<Tarea, Long> {
+
+    // Paginación por cursor: siguiente bloque de tareas con id mayor al último visto
+    // (tipo = Tarea.class para las entidades o VersionFila.class solo para id y versión)
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit, Class<T> tipo);
+
+    // Variantes filtradas (usan idx_tareas_proyecto_estado)
+    <T> List<T> findByEstadoAndIdGreaterThanOrderByIdAsc(EstadoTarea estado, Long id, Limit limit, Class<T> tipo);
+
+    <T> List<T> findByProyectoIdAndIdGreaterThanOrderByIdAsc(Long proyectoId, Long id, Limit limit, Class<T> tipo);
+
+    <T> List<T> findByProyectoIdAndEstadoAndIdGreaterThanOrderByIdAsc(Long proyectoId, EstadoTarea estado, Long id,
+                                                                      Limit limit, Class<T> tipo);
+
+    // Versiones para los ETag, sin cargar entidades
+    @Query("SELECT t.version FROM Tarea t WHERE t.id = :id")
+    Optional<Long> buscarVersion(@Param("id") Long id);
+
+    @Query("SELECT new com.bitacora.bitacora.dto.VersionColeccion(COUNT(t), COALESCE(SUM(t.version), 0L), " +
+           "COALESCE(MAX(t.id), 0L)) FROM Tarea t")
+    VersionColeccion obtenerVersionColeccion();
+
+    // Exportación: filas leídas por bloques del cursor JDBC (requiere transacción abierta y cerrar el Stream)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bitacora.bitacora.dto.TareaExportada(t.id, t.titulo, t.descripcion, t.estado, " +
+           "t.fechaInicio, t.fechaFin, t.duracionHoras, t.observaciones, t.fechaCreacion, p.id) " +
+           "FROM Tarea t LEFT JOIN t.proyecto p " +
+           "ORDER BY t.id")
+    Stream<TareaExportada> exportarTodas();
+
+    // Búsquedas por título normalizado (usan idx_tareas_titulo_normalizado_proyecto)
+    @Query("SELECT t.id FROM Tarea t WHERE t.tituloNormalizado = :tituloNormalizado ORDER BY t.id")
+    List<Long> buscarIdsPorTituloNormalizado(@Param("tituloNormalizado") String tituloNormalizado, Limit limit);
+
+    boolean existsByTituloNormalizadoAndProyectoId(String tituloNormalizado, Long proyectoId);
+
+    boolean existsByTituloNormalizadoAndProyectoIsNull(String tituloNormalizado);
+
+    boolean existsByTituloNormalizadoAndProyectoIdAndIdNot(String tituloNormalizado, Long proyectoId, Long id);
+
+    boolean existsByTituloNormalizadoAndProyectoIsNullAndIdNot(String tituloNormalizado, Long id);
+
+    // Tareas sin ninguna entrada en el índice de búsqueda (creadas antes de que existiera), por bloques de id
+    @Query("SELECT t FROM Tarea t WHERE t.id > :despuesDeId " +
+           "AND NOT EXISTS (SELECT 1 FROM TerminoTarea x WHERE x.tareaId = t.id) ORDER BY t.id")
+    List<Tarea> buscarSinIndexar(@Param("despuesDeId") long despuesDeId, Limit limit);
+
+    // Tareas creadas antes de que existiera la columna normalizada, por bloques de id.
+    // La columna se completa en Java (NormalizadorTexto), con la misma regla que usan las búsquedas
+    @Query("SELECT t FROM Tarea t WHERE t.id > :despuesDeId " +
+           "AND t.tituloNormalizado IS NULL AND t.titulo IS NOT NULL ORDER BY t.id")
+    List<Tarea> buscarSinTituloNormalizado(@Param("despuesDeId") long despuesDeId, Limit limit);
+
+    // Migra los estados de texto libre anteriores ("Completada", "en progreso"...) a los valores del enum.
+    // Los que no se reconocen se dejan como están (ver contarEstadosDesconocidos); NULL pasa a PENDIENTE.
+    @Modifying
+    @Query(value = "UPDATE tareas SET estado = CASE " +
+            "WHEN estado IS NULL THEN 'PENDIENTE' " +
+            "WHEN LOWER(TRIM(estado)) IN ('pendiente', 'pending', 'por hacer', 'por_hacer', 'todo', 'to do') THEN 'PENDIENTE' " +
+            "WHEN LOWER(TRIM(estado)) IN ('completada', 'completado', 'completed', 'terminada', 'finalizada', 'hecha', 'done') THEN 'COMPLETADA' " +
+            "WHEN LOWER(TRIM(estado)) IN ('en progreso', 'en_progreso', 'en-progreso', 'en curso', 'en proceso', 'progreso', 'in progress', 'iniciada') THEN 'EN_PROGRESO' " +
+            "ELSE estado END " +
+            "WHERE estado IS NULL OR estado NOT IN ('PENDIENTE', 'EN_PROGRESO', 'COMPLETADA')",
+            nativeQuery = true)
+    int normalizarEstados();
+
+    // Estados que quedaron sin migrar: [valor, cantidad de tareas]
+    @Query(value = "SELECT estado, COUNT(*) FROM tareas " +
+            "WHERE estado NOT IN ('PENDIENTE', 'EN_PROGRESO', 'COMPLETADA') GROUP BY estado ORDER BY estado",
+            nativeQuery = true)
+    List<Object[]> contarEstadosDesconocidos();
 }
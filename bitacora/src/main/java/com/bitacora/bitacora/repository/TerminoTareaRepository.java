@@ -0,0 +1,38 @@
+package com.bitacora.bitacora.repository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.bitacora.bitacora.dto.CoincidenciaBusqueda;
+import com.bitacora.bitacora.model.TerminoTarea;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TerminoTareaRepository extends JpaRepository<TerminoTarea, TerminoTarea.Clave> {
+
+    // Términos ya indexados de varias tareas (usa la clave primaria tarea_id, termino)
+    List<TerminoTarea> findByTareaIdIn(Collection<Long> tareaIds);
+
+    // Búsqueda: solo lee las entradas de los términos pedidos (idx_tarea_terminos_termino), no la tabla de tareas.
+    // Orden por puntaje y luego id descendentes; la página siguiente empieza después de (puntaje, tareaId)
+    @Query("SELECT new com.bitacora.bitacora.dto.CoincidenciaBusqueda(t.tareaId, SUM(t.peso)) " +
+           "FROM TerminoTarea t WHERE t.termino IN :terminos " +
+           "GROUP BY t.tareaId " +
+           "HAVING SUM(t.peso) < :puntaje OR (SUM(t.peso) = :puntaje AND t.tareaId < :tareaId) " +
+           "ORDER BY SUM(t.peso) DESC, t.tareaId DESC")
+    List<CoincidenciaBusqueda> buscar(@Param("terminos") Collection<String> terminos,
+                                      @Param("puntaje") long puntaje,
+                                      @Param("tareaId") long tareaId,
+                                      Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM TerminoTarea t WHERE t.tareaId IN :tareaIds")
+    int eliminarDeTareas(@Param("tareaIds") Collection<Long> tareaIds);
+
+    @Modifying
+    @Query("DELETE FROM TerminoTarea t WHERE t.tareaId IN (SELECT x.id FROM Tarea x WHERE x.proyecto.id = :proyectoId)")
+    int eliminarDeProyecto(@Param("proyectoId") Long proyectoId);
+}
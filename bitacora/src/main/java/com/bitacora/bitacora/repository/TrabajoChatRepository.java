@@ -0,0 +1,34 @@
+package com.bitacora.bitacora.repository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.bitacora.bitacora.model.EstadoTrabajo;
+import com.bitacora.bitacora.model.TrabajoChat;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TrabajoChatRepository extends JpaRepository<TrabajoChat, Long> {
+
+    @Query("SELECT t.id FROM TrabajoChat t WHERE t.estado = :estado ORDER BY t.id")
+    List<Long> buscarIdsPorEstado(@Param("estado") EstadoTrabajo estado);
+
+    // Pasa de EN_COLA a EN_CURSO solo si nadie lo tomó antes (0 filas = ya lo tomó otro hilo o instancia)
+    @Transactional
+    @Modifying
+    @Query("UPDATE TrabajoChat t SET t.estado = com.bitacora.bitacora.model.EstadoTrabajo.EN_CURSO, " +
+           "t.fechaInicio = :ahora WHERE t.id = :id AND t.estado = com.bitacora.bitacora.model.EstadoTrabajo.EN_COLA")
+    int tomar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    // Trabajos EN_CURSO desde antes de "limite": la instancia que los procesaba se detuvo
+    @Transactional
+    @Modifying
+    @Query("UPDATE TrabajoChat t SET t.estado = com.bitacora.bitacora.model.EstadoTrabajo.FALLIDO, " +
+           "t.error = :error, t.fechaFin = :ahora " +
+           "WHERE t.estado = com.bitacora.bitacora.model.EstadoTrabajo.EN_CURSO AND t.fechaInicio < :limite")
+    int marcarAbandonados(@Param("limite") LocalDateTime limite, @Param("ahora") LocalDateTime ahora,
+                          @Param("error") String error);
+}
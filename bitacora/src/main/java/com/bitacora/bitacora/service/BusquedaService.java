@@ -0,0 +1,179 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.CoincidenciaBusqueda;
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.model.TerminoTarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.repository.TerminoTareaRepository;
+import com.bitacora.bitacora.util.AnalizadorTerminos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto sobre título, descripción y observaciones de las tareas, con un índice
+ * invertido en la tabla tarea_terminos (término → tareas que lo contienen, con su peso).
+ * El índice se actualiza en la misma transacción que las escrituras de tareas, así que sirve
+ * igual con MySQL que con H2 y con varias instancias de la aplicación.
+ */
+@Service
+public class BusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaService.class);
+
+    private static final int TAMANO_BLOQUE_INDEXACION = 500;
+
+    private final TerminoTareaRepository terminoTareaRepository;
+    private final TareaRepository tareaRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BusquedaService(TerminoTareaRepository terminoTareaRepository, TareaRepository tareaRepository,
+                           TransactionTemplate transactionTemplate) {
+        this.terminoTareaRepository = terminoTareaRepository;
+        this.tareaRepository = tareaRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Tareas que contienen alguno de los términos de la consulta, de mayor a menor puntaje
+     * (más términos encontrados y en el título primero) y, a igual puntaje, las más nuevas primero.
+     * El costo depende de cuántas tareas contienen esos términos, no del total de tareas.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<Tarea> buscarTareas(String consulta, String cursor, Integer tamano) {
+        List<String> terminos = AnalizadorTerminos.consulta(consulta);
+        int tamanoPagina = Pagina.limitarTamano(tamano);
+        long[] posicion = decodificarPosicion(cursor);
+
+        List<CoincidenciaBusqueda> coincidencias = terminoTareaRepository.buscar(
+                terminos, posicion[0], posicion[1], Limit.of(tamanoPagina + 1));
+        boolean hayMas = coincidencias.size() > tamanoPagina;
+        if (hayMas) {
+            coincidencias = coincidencias.subList(0, tamanoPagina);
+        }
+
+        Map<Long, Tarea> tareas = tareaRepository.findAllById(
+                        coincidencias.stream().map(CoincidenciaBusqueda::tareaId).toList())
+                .stream().collect(Collectors.toMap(Tarea::getId, Function.identity()));
+        List<Tarea> items = coincidencias.stream()
+                .map(c -> tareas.get(c.tareaId()))
+                .filter(Objects::nonNull)
+                .toList();
+
+        String siguienteCursor = hayMas ? codificarPosicion(coincidencias.get(coincidencias.size() - 1)) : null;
+        return new Pagina<>(items, tamanoPagina, siguienteCursor);
+    }
+
+    /**
+     * Actualiza el índice de las tareas cuyo texto cambió desde que se cargaron o se indexaron.
+     * Lee los términos actuales de todas ellas en una consulta y solo inserta, actualiza o borra
+     * los que cambian. Debe llamarse después de guardarlas (necesitan id).
+     */
+    @Transactional
+    public void indexar(Collection<Tarea> tareas) {
+        indexar(tareas, false);
+    }
+
+    @Transactional
+    public void quitarDelIndice(Collection<Long> tareaIds) {
+        if (!tareaIds.isEmpty()) {
+            terminoTareaRepository.eliminarDeTareas(tareaIds);
+        }
+    }
+
+    //Antes de eliminar un proyecto: sus tareas se borran en cascada sin pasar por TareaService
+    @Transactional
+    public void quitarProyectoDelIndice(Long proyectoId) {
+        terminoTareaRepository.eliminarDeProyecto(proyectoId);
+    }
+
+    /**
+     * Indexa las tareas que no tienen ningún término en el índice (las creadas antes de que existiera),
+     * en bloques de 500 con una transacción cada uno. Es idempotente; las tareas sin palabras
+     * indexables se vuelven a revisar en cada arranque, lo que solo cuesta la consulta.
+     */
+    public int indexarPendientes() {
+        int indexadas = 0;
+        long despuesDeId = 0L;
+        while (true) {
+            long desde = despuesDeId;
+            List<Tarea> bloque = transactionTemplate.execute(estado -> {
+                List<Tarea> tareas = tareaRepository.buscarSinIndexar(desde, Limit.of(TAMANO_BLOQUE_INDEXACION));
+                indexar(tareas, true);
+                return tareas;
+            });
+            if (bloque == null || bloque.isEmpty()) break;
+            indexadas += bloque.size();
+            despuesDeId = bloque.get(bloque.size() - 1).getId();
+        }
+        if (indexadas > 0) {
+            log.info("Índice de búsqueda: {} tareas indexadas al arrancar", indexadas);
+        }
+        return indexadas;
+    }
+
+    private void indexar(Collection<Tarea> tareas, boolean todas) {
+        Map<Long, Tarea> pendientes = new LinkedHashMap<>();
+        for (Tarea tarea : tareas) {
+            if (tarea != null && tarea.getId() != null && (todas || tarea.textoIndexadoCambio())) {
+                pendientes.put(tarea.getId(), tarea);
+            }
+        }
+        if (pendientes.isEmpty()) return;
+
+        Map<Long, Map<String, TerminoTarea>> actuales = new HashMap<>();
+        for (TerminoTarea termino : terminoTareaRepository.findByTareaIdIn(pendientes.keySet())) {
+            actuales.computeIfAbsent(termino.getTareaId(), id -> new HashMap<>()).put(termino.getTermino(), termino);
+        }
+
+        List<TerminoTarea> nuevos = new ArrayList<>();
+        List<TerminoTarea> sobrantes = new ArrayList<>();
+        for (Tarea tarea : pendientes.values()) {
+            Map<String, Integer> pesos = AnalizadorTerminos.pesos(tarea.getTitulo(), tarea.getDescripcion(), tarea.getObservaciones());
+            Map<String, TerminoTarea> guardados = actuales.getOrDefault(tarea.getId(), Map.of());
+
+            guardados.forEach((termino, entrada) -> {
+                if (!pesos.containsKey(termino)) sobrantes.add(entrada);
+            });
+            pesos.forEach((termino, peso) -> {
+                TerminoTarea entrada = guardados.get(termino);
+                if (entrada == null) {
+                    nuevos.add(new TerminoTarea(tarea.getId(), termino, peso));
+                } else if (entrada.getPeso() != peso) {
+                    entrada.setPeso(peso); // se escribe al hacer flush
+                }
+            });
+            tarea.marcarTextoIndexado();
+        }
+
+        terminoTareaRepository.deleteAll(sobrantes);
+        terminoTareaRepository.saveAll(nuevos);
+    }
+
+    // ====== Cursor: puntaje e id de la última tarea devuelta ======
+
+    private static String codificarPosicion(CoincidenciaBusqueda ultima) {
+        String valor = ultima.puntaje() + ":" + ultima.tareaId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //{puntaje, tareaId} a partir de los cuales continuar (la primera página no tiene límite)
+    private static long[] decodificarPosicion(String cursor) {
+        if (cursor == null || cursor.isBlank()) return new long[]{Long.MAX_VALUE, Long.MAX_VALUE};
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            return new long[]{Long.parseLong(partes[0]), Long.parseLong(partes[1])};
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.bitacora.bitacora.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caché de las respuestas de OpenAI ya interpretadas (el JSON de acciones listo para ejecutar),
+ * para no repetir la llamada cuando llega el mismo mensaje o se reenvía la misma transcripción.
+ * 1️⃣ Acotada en tamaño (bitacora.openai.cache.tamano-maximo) y con vencimiento
+ *    (bitacora.openai.cache.ttl-minutos) contado desde que se obtuvo la respuesta.
+ * 2️⃣ La clave es un hash del tipo de pedido, modelo, temperatura, día y mensaje normalizado:
+ *    no incluye la hora que se inserta en el prompt (no habría aciertos), pero sí el día,
+ *    porque las fechas de la respuesta ("mañana", "hoy") se calculan a partir de él.
+ *    La fecha y hora actual del prompt, que los prompts piden usar en fechaInicio y fechaCreacion,
+ *    se guarda como una marca y al reutilizar la respuesta se reemplaza por la hora del nuevo pedido.
+ *    Las respuestas con otra fecha y hora de ese mismo día ("en dos horas") no se guardan:
+ *    reutilizadas más tarde ese día, esas horas ya no serían correctas.
+ * 3️⃣ Opcionalmente se guarda en disco al apagar y se recarga al arrancar
+ *    (bitacora.openai.cache.archivo); las entradas vencidas se descartan al cargar.
+ *
+ * Aciertos y fallos: cache.gets{cache=respuestasIA, result=hit|miss}.
+ */
+@Component
+class CacheRespuestasIA {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheRespuestasIA.class);
+
+    static final String NOMBRE = "respuestasIA";
+
+    // Ocupa el lugar de la fecha y hora actual del prompt en las respuestas guardadas
+    static final String MARCA_FECHA_ACTUAL = "{{fechaActual}}";
+    private static final String MARCA_JSON = "\"" + MARCA_FECHA_ACTUAL + "\"";
+
+    private record Entrada(String contenido, long obtenidaMs) {
+    }
+
+    // Línea del archivo en disco (NDJSON)
+    private record EntradaGuardada(String clave, String contenido, long obtenidaMs) {
+    }
+
+    private final Cache<String, Entrada> cache;
+    private final Duration ttl;
+    private final Path archivo;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    CacheRespuestasIA(MeterRegistry meterRegistry,
+                      @Value("${bitacora.openai.cache.tamano-maximo:1000}") long tamanoMaximo,
+                      @Value("${bitacora.openai.cache.ttl-minutos:360}") long ttlMinutos,
+                      @Value("${bitacora.openai.cache.archivo:}") String archivo) {
+        this.ttl = Duration.ofMinutes(ttlMinutos);
+        this.archivo = archivo == null || archivo.isBlank() ? null : Path.of(archivo);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new VencimientoDesdeObtencion())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NOMBRE);
+        cargarDeDisco();
+    }
+
+    //Clave del pedido; se arma con el mensaje del usuario, antes de insertar la fecha y hora en el prompt
+    static String clave(String tipo, String modelo, double temperatura, String mensaje) {
+        String normalizado = mensaje == null ? "" : mensaje.strip().replaceAll("\\s+", " ");
+        String texto = String.join("\n", tipo, modelo, Double.toString(temperatura),
+                LocalDate.now().toString(), normalizado);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    //"ahora" es la fecha y hora actual del nuevo pedido: reemplaza a la marca de la respuesta guardada
+    Optional<String> obtener(String clave, LocalDateTime ahora) {
+        Entrada entrada = cache.getIfPresent(clave);
+        if (entrada == null) return Optional.empty();
+        return Optional.of(entrada.contenido().replace(MARCA_JSON, "\"" + ahora + "\""));
+    }
+
+    /**
+     * Guarda la respuesta obtenida con "ahora" como fecha y hora actual en el prompt. Los valores
+     * iguales a ella (al minuto) se guardan como MARCA_FECHA_ACTUAL; si después queda alguna otra
+     * hora de ese día, la respuesta no se guarda (ver dependeDeLaHora).
+     */
+    void guardar(String clave, String contenido, LocalDateTime ahora) {
+        JsonNode arbol;
+        try {
+            arbol = objectMapper.readTree(contenido);
+        } catch (JsonProcessingException e) {
+            return;
+        }
+        boolean marcada = marcarFechaActual(arbol, ahora);
+        if (tieneHoraDelDia(arbol, ahora.toLocalDate())) {
+            log.debug("Respuesta no guardada en caché: tiene fechas con hora del día {}", ahora.toLocalDate());
+            return;
+        }
+        cache.put(clave, new Entrada(marcada ? arbol.toString() : contenido, System.currentTimeMillis()));
+    }
+
+    //Reemplaza en el árbol las fechas con hora iguales a "ahora"; la respuesta puede traerla sin segundos
+    private static boolean marcarFechaActual(JsonNode nodo, LocalDateTime ahora) {
+        boolean marcada = false;
+        if (nodo instanceof ObjectNode objeto) {
+            for (Map.Entry<String, JsonNode> campo : objeto.properties()) {
+                if (esFechaActual(campo.getValue(), ahora)) {
+                    campo.setValue(TextNode.valueOf(MARCA_FECHA_ACTUAL));
+                    marcada = true;
+                } else {
+                    marcada |= marcarFechaActual(campo.getValue(), ahora);
+                }
+            }
+        } else if (nodo instanceof ArrayNode lista) {
+            for (int i = 0; i < lista.size(); i++) {
+                if (esFechaActual(lista.get(i), ahora)) {
+                    lista.set(i, TextNode.valueOf(MARCA_FECHA_ACTUAL));
+                    marcada = true;
+                } else {
+                    marcada |= marcarFechaActual(lista.get(i), ahora);
+                }
+            }
+        }
+        return marcada;
+    }
+
+    private static boolean esFechaActual(JsonNode nodo, LocalDateTime ahora) {
+        if (!nodo.isTextual()) return false;
+        try {
+            return LocalDateTime.parse(nodo.asText()).truncatedTo(ChronoUnit.MINUTES)
+                    .equals(ahora.truncatedTo(ChronoUnit.MINUTES));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * true si algún valor del JSON es una fecha y hora de ese día distinta de la medianoche:
+     * se calculó a partir de la hora actual que va en el prompt. Las de otros días ("mañana a
+     * las 10") solo dependen del día, que ya forma parte de la clave; la marca no es una fecha.
+     */
+    boolean dependeDeLaHora(String contenido, LocalDate dia) {
+        try {
+            return tieneHoraDelDia(objectMapper.readTree(contenido), dia);
+        } catch (JsonProcessingException e) {
+            return true;
+        }
+    }
+
+    private static boolean tieneHoraDelDia(JsonNode nodo, LocalDate dia) {
+        if (nodo.isTextual()) {
+            try {
+                LocalDateTime fecha = LocalDateTime.parse(nodo.asText());
+                return fecha.toLocalDate().equals(dia) && !fecha.toLocalTime().equals(LocalTime.MIDNIGHT);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        for (JsonNode hijo : nodo) {
+            if (tieneHoraDelDia(hijo, dia)) return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    void guardarEnDisco() {
+        if (archivo == null) return;
+        try {
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            if (archivo.getParent() != null) Files.createDirectories(archivo.getParent());
+            try (BufferedWriter salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                for (var par : cache.asMap().entrySet()) {
+                    Entrada entrada = par.getValue();
+                    salida.write(objectMapper.writeValueAsString(
+                            new EntradaGuardada(par.getKey(), entrada.contenido(), entrada.obtenidaMs())));
+                    salida.newLine();
+                }
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la caché de respuestas en {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    private void cargarDeDisco() {
+        if (archivo == null || !Files.exists(archivo)) return;
+        long vigentesDesde = System.currentTimeMillis() - ttl.toMillis();
+        int cargadas = 0;
+        try (BufferedReader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                if (linea.isBlank()) continue;
+                EntradaGuardada guardada = objectMapper.readValue(linea, EntradaGuardada.class);
+                if (guardada.obtenidaMs() > vigentesDesde) {
+                    cache.put(guardada.clave(), new Entrada(guardada.contenido(), guardada.obtenidaMs()));
+                    cargadas++;
+                }
+            }
+            log.info("Caché de respuestas: {} entradas cargadas de {}", cargadas, archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo leer la caché de respuestas de {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    // Vence ttl después de obtenida la respuesta (también las cargadas de disco); leer no la renueva
+    private class VencimientoDesdeObtencion implements Expiry<String, Entrada> {
+
+        @Override
+        public long expireAfterCreate(String clave, Entrada entrada, long tiempoActual) {
+            long restanteMs = ttl.toMillis() - (System.currentTimeMillis() - entrada.obtenidaMs());
+            return Duration.ofMillis(Math.max(0, restanteMs)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String clave, Entrada entrada, long tiempoActual, long duracionActual) {
+            return expireAfterCreate(clave, entrada, tiempoActual);
+        }
+
+        @Override
+        public long expireAfterRead(String clave, Entrada entrada, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package com.bitacora.bitacora.service;
 
+import com.bitacora.bitacora.dto.EventoChat;
+import com.bitacora.bitacora.model.EstadoTarea;
 import com.bitacora.bitacora.model.Proyecto;
 import com.bitacora.bitacora.model.Tarea;
-import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.util.ClasificadorTranscripcion;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import com.bitacora.bitacora.util.SegmentadorTranscripcion;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class ChatService {
@@ -20,130 +34,101 @@ public class ChatService {
     @Value("${openai.api.key}")
     private String apiKey;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ProyectoRepository proyectoRepository;
+    @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
+    private String apiUrl;
+
+    // Transcripciones más largas se analizan por fragmentos (ver SegmentadorTranscripcion)
+    @Value("${bitacora.openai.reunion.caracteres-fragmento:6000}")
+    private int caracteresFragmento;
+
+    @Value("${bitacora.openai.reunion.intervenciones-solapadas:2}")
+    private int intervencionesSolapadas;
+
+    private static final String MODELO = "gpt-4o-mini";
+    private static final double TEMPERATURA_COMANDOS = 0.0;
+    private static final double TEMPERATURA_REUNIONES = 0.1; // Un poco más alto para análisis de reuniones
+
+    // Cliente compartido con pool de conexiones y timeouts (ver OpenAiClienteConfig)
+    private final RestTemplate restTemplate;
+    private final CacheRespuestasIA cacheRespuestas;
+    private final InterpreteComandos interpreteComandos;
+    private final LimitadorOpenAi limitadorOpenAi;
+    private final SolicitudesEnCurso solicitudesEnCurso;
+    private final MetricasOpenAi metricasOpenAi;
+    private final ProyectoService proyectoService;
     private final TareaService tareaService;
 
+    // Hilos para analizar fragmentos de reuniones a la vez; su cantidad acota las llamadas en paralelo
+    private final ExecutorService ejecutorFragmentos;
+
     private final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new JavaTimeModule());
 
-    public ChatService(ProyectoRepository proyectoRepository, TareaService tareaService) {
-        this.proyectoRepository = proyectoRepository;
+    public ChatService(RestTemplate restTemplateOpenAi, CacheRespuestasIA cacheRespuestas,
+                       InterpreteComandos interpreteComandos, LimitadorOpenAi limitadorOpenAi,
+                       SolicitudesEnCurso solicitudesEnCurso, MetricasOpenAi metricasOpenAi,
+                       ProyectoService proyectoService,
+                       TareaService tareaService, @Value("${bitacora.openai.reunion.paralelismo:4}") int paralelismo) {
+        this.restTemplate = restTemplateOpenAi;
+        this.cacheRespuestas = cacheRespuestas;
+        this.interpreteComandos = interpreteComandos;
+        this.limitadorOpenAi = limitadorOpenAi;
+        this.solicitudesEnCurso = solicitudesEnCurso;
+        this.metricasOpenAi = metricasOpenAi;
+        this.proyectoService = proyectoService;
         this.tareaService = tareaService;
+        CustomizableThreadFactory hilos = new CustomizableThreadFactory("openai-reunion-");
+        hilos.setDaemon(true);
+        this.ejecutorFragmentos = Executors.newFixedThreadPool(paralelismo, hilos);
+    }
+
+    @PreDestroy
+    void detenerEjecutor() {
+        ejecutorFragmentos.shutdownNow();
     }
 
     public String procesarMensaje(String mensajeUsuario) {
-        // Detectar si es una transcripción de reunión (texto largo con características de reunión)
-        if (esTranscripcionReunion(mensajeUsuario)) {
-            return procesarTranscripcionReunion(mensajeUsuario);
-        } else {
-            return procesarComandoSimple(mensajeUsuario);
-        }
+        return procesarMensaje(mensajeUsuario, evento -> { });
     }
 
-    private boolean esTranscripcionReunion(String texto) {
-        // Heurísticas para detectar transcripciones de reuniones
-        int longitud = texto.length();
-        boolean tieneTimestamps = texto.matches("(?s).*\\d{1,2}:\\d{2}\\s*(?:AM|PM|am|pm)?.*");
-        boolean tieneParticipantes = texto.matches("(?s).*(?:\\[.*\\]|\\w+\\s*:).*");
-        boolean tieneMultiplesLineas = texto.split("\n").length > 10;
-        boolean contienePalabrasReunion = texto.toLowerCase().contains("reunión") || 
-                                         texto.toLowerCase().contains("meeting") ||
-                                         texto.toLowerCase().contains("participante") ||
-                                         texto.toLowerCase().contains("agenda");
-        
-        // Es una transcripción si es texto largo y tiene características de reunión
-        return longitud > 300 && (tieneTimestamps || tieneParticipantes || tieneMultiplesLineas || contienePalabrasReunion);
+    /**
+     * Igual que procesarMensaje, avisando el progreso a medida que ocurre (ver EventoChat).
+     * "progreso" puede llamarse desde varios hilos mientras se analizan los fragmentos de una reunión.
+     * Si el mismo mensaje ya se está procesando, no se repite: se espera ese resultado (ver SolicitudesEnCurso).
+     */
+    public String procesarMensaje(String mensajeUsuario, Consumer<EventoChat> progreso) {
+        return solicitudesEnCurso.ejecutar(mensajeUsuario,
+                () -> procesarSinUnificar(mensajeUsuario, progreso),
+                () -> progreso.accept(new EventoChat(EventoChat.INICIO,
+                        "El mismo mensaje ya se está procesando, esperando su resultado...")));
     }
 
-    private String procesarTranscripcionReunion(String transcripcion) {
-        String fechaActual = LocalDateTime.now().withNano(0).toString();
-        
-        String promptReunion = """
-        Eres un asistente especializado en análisis de reuniones de proyectos. Tu tarea es analizar la transcripción de una reunión 
-        y extraer todas las acciones, tareas, proyectos, responsables y fechas mencionadas.
-        
-        ### INSTRUCCIONES ESPECÍFICAS:
-        1. Analiza toda la conversación y extrae compromisos y acciones concretas
-        2. Identifica quién es responsable de cada tarea mencionada
-        3. Extrae fechas límite explícitas o deducibles del contexto
-        4. Agrupa tareas relacionadas bajo proyectos comunes
-        5. Si no se menciona un proyecto específico, crea uno con nombre general basado en el tema principal
-        
-        ### FORMATO DE RESPUESTA:
-        Devuelve un array de objetos JSON, cada uno representando una acción identificada.
-        Cada objeto debe seguir este formato:
-        {
-          "accion": "crear",
-          "tipo": "proyecto|tarea",
-          "nombre": "Nombre identificado para el proyecto/tarea",
-          "proyecto": { ... }  // Solo si tipo es "proyecto"
-          "tarea": { ... }     // Solo si tipo es "tarea"
-        }
-        
-        ### ESTRUCTURAS:
-        Para PROYECTO:
-        {
-          "nombre": "Nombre del proyecto (basado en el tema principal de la reunión)",
-          "descripcion": "Resumen de los objetivos discutidos en la reunión",
-          "fechaInicio": "%s",
-          "fechaFin": "Fecha estimada si se menciona, o null",
-          "duracionHoras": dejar siempre en 0,
-          "fechaCreacion": "%s",
-          "tareas": [] // Array de tareas asociadas
-        }
-        
-        Para TAREA:
-        {
-          "titulo": "Descripción concisa de la acción",
-          "descripcion": "Contexto extraído de la reunión",
-          "estado": "pendiente",
-          "fechaInicio": "%s",
-          "fechaFin": "Fecha límite si se menciona, o null",
-          "duracionHoras": número (horas estimadas),
-          "observaciones": "Responsable: [nombre] - Extraído de: [contexto de la conversación]",
-          "fechaCreacion": "%s",
-          "proyecto": { "nombre": "Nombre del proyecto asociado" } // IMPORTANTE: Incluir referencia al proyecto
+    private String procesarSinUnificar(String mensajeUsuario, Consumer<EventoChat> progreso) {
+        // Detectar si es una transcripción de reunión (texto largo con características de reunión)
+        if (ClasificadorTranscripcion.esTranscripcionReunion(mensajeUsuario)) {
+            return procesarTranscripcionReunion(mensajeUsuario, progreso);
+        } else {
+            progreso.accept(new EventoChat(EventoChat.INICIO, "Interpretando el mensaje..."));
+            return procesarComandoSimple(mensajeUsuario);
         }
+    }
 
-        ### IMPORTANTE:
-        - "duracionHoras" debe ser SIEMPRE un número entero (2, 4, 8, etc.)
-        - NO uses decimales (13.98, 181.98, etc.)
-        - Para cada tarea identificada, estima una duración REALISTA en horas basada en:
-             - Tareas pequeñas: 2-4 horas
-             - Tareas medias: 8-16 horas  
-             - Tareas grandes: 24-40 horas
-             - Usa tu criterio profesional para estimar
-             - El proyecto duracionHoras debe ser siempre 0
-        
-        ### REGLAS CRÍTICAS:
-        
-        1. SIEMPRE incluye en cada tarea el campo "proyecto" con el nombre del proyecto al que pertenece
-        2. Para tareas que pertenecen a un proyecto, crea SOLO el proyecto (con sus tareas dentro del array)
-        3. NO crees tareas individuales separadas si ya están dentro del proyecto
-        4. Solo crea tareas separadas si son tareas independientes sin proyecto
-        5. El proyecto debe contener TODAS sus tareas en el array "tareas"
-        6. En el campo "proyecto" de cada tarea dentro del array, puede ser null o solo contener {"nombre": "..."}
-        
-        TRANSCRIPCIÓN DE LA REUNIÓN:
-        %s
-        
-        Devuelve SOLO el array JSON, sin texto adicional.
-        """.formatted(fechaActual, fechaActual, fechaActual, fechaActual, transcripcion);
+    private String procesarTranscripcionReunion(String transcripcion, Consumer<EventoChat> progreso) {
+        List<String> fragmentos = SegmentadorTranscripcion.segmentar(
+                transcripcion, caracteresFragmento, intervencionesSolapadas);
+        progreso.accept(new EventoChat(EventoChat.INICIO, fragmentos.size() <= 1
+                ? "Analizando la reunión..."
+                : "Analizando la reunión en " + fragmentos.size() + " fragmentos..."));
 
         try {
-            String respuestaIA = llamarOpenAI(promptReunion);
-            
-            // Limpiar la respuesta si viene con markdown
-            if (respuestaIA.startsWith("```")) {
-                respuestaIA = respuestaIA.replaceAll("```json|```", "").trim();
-            }
-            
-            // Parsear el array de acciones
-            List<Map<String, Object>> acciones = objectMapper.readValue(respuestaIA, List.class);
-            
             StringBuilder resultado = new StringBuilder();
-            resultado.append("📋 **Análisis de reunión completado:**\n\n");
+            List<Map<String, Object>> acciones;
+            if (fragmentos.size() <= 1) {
+                acciones = analizarFragmentoReunion(transcripcion, false);
+                resultado.append("📋 **Análisis de reunión completado:**\n\n");
+            } else {
+                acciones = analizarFragmentosEnParalelo(fragmentos, resultado, progreso);
+            }
             
             int proyectosCreados = 0;
             int tareasCreadas = 0;
@@ -163,9 +148,7 @@ public class ChatService {
                     }
                     
                     // Validar nombre duplicado
-                    boolean proyectoExiste = proyectoRepository.findAll().stream()
-                            .anyMatch(p -> p.getNombre() != null && 
-                                    p.getNombre().equalsIgnoreCase(nombreProyecto));
+                    boolean proyectoExiste = existeProyecto(nombreProyecto);
                     
                     if (!proyectoExiste) {
                         Proyecto proyecto = objectMapper.convertValue(proyectoMap, Proyecto.class);
@@ -182,13 +165,15 @@ public class ChatService {
                             proyecto.setTareas(tareas);
                         }
                         
-                        proyectoRepository.save(proyecto);
-                        proyectosGuardados.put(nombreProyecto.toLowerCase(), proyecto);
+                        proyectoService.guardar(proyecto);
+                        proyectosGuardados.put(NormalizadorTexto.normalizar(nombreProyecto), proyecto);
                         proyectosCreados++;
+                        int lineaInicio = resultado.length();
                         resultado.append("✅ **Proyecto creado:** ").append(proyecto.getNombre());
                         if (proyecto.getTareas() != null) {
                             resultado.append(" con ").append(proyecto.getTareas().size()).append(" tareas");
                         }
+                        progreso.accept(new EventoChat(EventoChat.PROYECTO, resultado.substring(lineaInicio)));
                         resultado.append("\n");
                         if (proyecto.getDescripcion() != null) {
                             resultado.append("   📝 ").append(proyecto.getDescripcion()).append("\n");
@@ -218,13 +203,10 @@ public class ChatService {
                         String nombreProyectoRef = (String) proyectoRefMap.get("nombre");
                         if (nombreProyectoRef != null) {
                             // Buscar en proyectos ya creados
-                            Proyecto proyectoAsociado = proyectosGuardados.get(nombreProyectoRef.toLowerCase());
+                            Proyecto proyectoAsociado = proyectosGuardados.get(NormalizadorTexto.normalizar(nombreProyectoRef));
                             if (proyectoAsociado == null) {
                                 // Buscar en la base de datos existente
-                                Optional<Proyecto> proyectoExistente = proyectoRepository.findAll().stream()
-                                        .filter(p -> p.getNombre() != null && 
-                                                p.getNombre().equalsIgnoreCase(nombreProyectoRef))
-                                        .findFirst();
+                                Optional<Proyecto> proyectoExistente = buscarProyecto(nombreProyectoRef);
                                 if (proyectoExistente.isPresent()) {
                                     proyectoAsociado = proyectoExistente.get();
                                 }
@@ -236,20 +218,17 @@ public class ChatService {
                     }
                     
                     // Verificar si ya existe
-                    boolean tareaExiste = tareaService.obtenerTodas().stream()
-                            .anyMatch(t -> t.getTitulo() != null && 
-                                    t.getTitulo().equalsIgnoreCase(tituloTarea) &&
-                                    (t.getProyecto() == null ? tarea.getProyecto() == null : 
-                                     tarea.getProyecto() != null && 
-                                     t.getProyecto().getId().equals(tarea.getProyecto().getId())));
+                    boolean tareaExiste = tareaService.existeTitulo(tituloTarea, tarea.getProyecto(), null);
                     
                     if (!tareaExiste) {
                         tareaService.guardar(tarea);
                         tareasCreadas++;
+                        int lineaInicio = resultado.length();
                         resultado.append("✅ **Tarea identificada:** ").append(tarea.getTitulo());
                         if (tarea.getProyecto() != null) {
                             resultado.append(" (Proyecto: ").append(tarea.getProyecto().getNombre()).append(")");
                         }
+                        progreso.accept(new EventoChat(EventoChat.TAREA, resultado.substring(lineaInicio)));
                         resultado.append("\n");
                         if (tarea.getObservaciones() != null) {
                             resultado.append("   👤 ").append(tarea.getObservaciones()).append("\n");
@@ -273,8 +252,168 @@ public class ChatService {
         }
     }
 
+    /**
+     * Analiza los fragmentos a la vez (tantos como hilos tenga ejecutorFragmentos) y une sus acciones
+     * sin repetidos antes de guardar nada. Si un fragmento falla se sigue con los demás y se avisa;
+     * si fallan todos se lanza el error del primero.
+     */
+    private List<Map<String, Object>> analizarFragmentosEnParalelo(List<String> fragmentos, StringBuilder resultado,
+                                                                   Consumer<EventoChat> progreso) {
+        AtomicInteger terminados = new AtomicInteger();
+        List<CompletableFuture<List<Map<String, Object>>>> pendientes = fragmentos.stream()
+                .map(fragmento -> CompletableFuture.supplyAsync(
+                                () -> analizarFragmentoReunion(fragmento, true), ejecutorFragmentos)
+                        .whenComplete((acciones, error) -> {
+                            synchronized (terminados) { // para que los avisos salgan en orden: 1, 2, 3...
+                                progreso.accept(new EventoChat(EventoChat.FRAGMENTO,
+                                        terminados.incrementAndGet() + " de " + fragmentos.size()
+                                                + " fragmentos analizados" + (error == null ? "" : " (uno con error)")));
+                            }
+                        }))
+                .toList();
+
+        List<List<Map<String, Object>>> porFragmento = new ArrayList<>();
+        RuntimeException primerError = null;
+        for (CompletableFuture<List<Map<String, Object>>> pendiente : pendientes) {
+            try {
+                porFragmento.add(pendiente.join());
+            } catch (CompletionException e) {
+                if (primerError == null) {
+                    primerError = e.getCause() instanceof RuntimeException causa ? causa : e;
+                }
+            }
+        }
+        if (porFragmento.isEmpty()) {
+            throw primerError;
+        }
+
+        resultado.append("📋 **Análisis de reunión completado** (").append(fragmentos.size())
+                 .append(" fragmentos):\n\n");
+        int fallidos = fragmentos.size() - porFragmento.size();
+        if (fallidos > 0) {
+            resultado.append("⚠️ ").append(fallidos).append(" fragmento(s) no se pudieron analizar: ")
+                     .append(primerError.getMessage()).append("\n\n");
+        }
+        return FusionAccionesReunion.fusionar(porFragmento);
+    }
+
+    //Acciones de una transcripción (o de un fragmento); si ya se analizó el mismo texto se reutiliza el JSON
+    private List<Map<String, Object>> analizarFragmentoReunion(String texto, boolean esFragmento) {
+        // La clave de caché se arma antes de insertar la fecha y hora en el prompt
+        String tipo = esFragmento ? MetricasOpenAi.REUNION_FRAGMENTO : MetricasOpenAi.REUNION;
+        String claveCache = CacheRespuestasIA.clave(tipo, MODELO, TEMPERATURA_REUNIONES, texto);
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        Optional<String> enCache = cacheRespuestas.obtener(claveCache, ahora);
+        String respuestaIA = enCache.orElseGet(() ->
+                llamarOpenAI(tipo, promptReunion(ahora.toString(), texto, esFragmento)));
+
+        // Parsear el array de acciones (solo se guarda en caché si es JSON válido)
+        try {
+            List<Map<String, Object>> acciones = objectMapper.readValue(respuestaIA, List.class);
+            if (enCache.isEmpty()) {
+                cacheRespuestas.guardar(claveCache, respuestaIA, ahora);
+            }
+            return acciones;
+        } catch (JsonProcessingException e) {
+            metricasOpenAi.respuestaInvalida(tipo);
+            throw new IllegalStateException(e.getOriginalMessage(), e);
+        }
+    }
+
+    private String promptReunion(String fechaActual, String texto, boolean esFragmento) {
+        String notaFragmento = esFragmento
+                ? "Este texto es un fragmento de una reunión más larga y puede empezar repitiendo las últimas líneas del fragmento anterior. Extrae solo las acciones que aparecen en él."
+                : "";
+        return """
+        Eres un asistente especializado en análisis de reuniones de proyectos. Tu tarea es analizar la transcripción de una reunión 
+        y extraer todas las acciones, tareas, proyectos, responsables y fechas mencionadas.
+        
+        ### INSTRUCCIONES ESPECÍFICAS:
+        1. Analiza toda la conversación y extrae compromisos y acciones concretas
+        2. Identifica quién es responsable de cada tarea mencionada
+        3. Extrae fechas límite explícitas o deducibles del contexto
+        4. Agrupa tareas relacionadas bajo proyectos comunes
+        5. Si no se menciona un proyecto específico, crea uno con nombre general basado en el tema principal
+        
+        ### FORMATO DE RESPUESTA:
+        Devuelve un array de objetos JSON, cada uno representando una acción identificada.
+        Cada objeto debe seguir este formato:
+        {
+          "accion": "crear",
+          "tipo": "proyecto|tarea",
+          "nombre": "Nombre identificado para el proyecto/tarea",
+          "proyecto": { ... }  // Solo si tipo es "proyecto"
+          "tarea": { ... }     // Solo si tipo es "tarea"
+        }
+        
+        ### ESTRUCTURAS:
+        Para PROYECTO:
+        {
+          "nombre": "Nombre del proyecto (basado en el tema principal de la reunión)",
+          "descripcion": "Resumen de los objetivos discutidos en la reunión",
+          "fechaInicio": "%s",
+          "fechaFin": "Fecha estimada si se menciona, o null",
+          "duracionHoras": dejar siempre en 0,
+          "fechaCreacion": "%s",
+          "tareas": [] // Array de tareas asociadas
+        }
+        
+        Para TAREA:
+        {
+          "titulo": "Descripción concisa de la acción",
+          "descripcion": "Contexto extraído de la reunión",
+          "estado": "pendiente",
+          "fechaInicio": "%s",
+          "fechaFin": "Fecha límite si se menciona, o null",
+          "duracionHoras": número (horas estimadas),
+          "observaciones": "Responsable: [nombre] - Extraído de: [contexto de la conversación]",
+          "fechaCreacion": "%s",
+          "proyecto": { "nombre": "Nombre del proyecto asociado" } // IMPORTANTE: Incluir referencia al proyecto
+        }
+
+        ### IMPORTANTE:
+        - "duracionHoras" debe ser SIEMPRE un número entero (2, 4, 8, etc.)
+        - NO uses decimales (13.98, 181.98, etc.)
+        - Para cada tarea identificada, estima una duración REALISTA en horas basada en:
+             - Tareas pequeñas: 2-4 horas
+             - Tareas medias: 8-16 horas  
+             - Tareas grandes: 24-40 horas
+             - Usa tu criterio profesional para estimar
+             - El proyecto duracionHoras debe ser siempre 0
+        
+        ### REGLAS CRÍTICAS:
+        
+        1. SIEMPRE incluye en cada tarea el campo "proyecto" con el nombre del proyecto al que pertenece
+        2. Para tareas que pertenecen a un proyecto, crea SOLO el proyecto (con sus tareas dentro del array)
+        3. NO crees tareas individuales separadas si ya están dentro del proyecto
+        4. Solo crea tareas separadas si son tareas independientes sin proyecto
+        5. El proyecto debe contener TODAS sus tareas en el array "tareas"
+        6. En el campo "proyecto" de cada tarea dentro del array, puede ser null o solo contener {"nombre": "..."}
+        
+        %s
+        TRANSCRIPCIÓN DE LA REUNIÓN:
+        %s
+        
+        Devuelve SOLO el array JSON, sin texto adicional.
+        """.formatted(fechaActual, fechaActual, fechaActual, fechaActual, notaFragmento, texto);
+    }
+
     private String procesarComandoSimple(String mensajeUsuario) {
-        String fechaActual = LocalDateTime.now().withNano(0).toString();
+        // Comandos simples y sin ambigüedad ("elimina la tarea X") se resuelven localmente
+        Optional<String> interpretado = interpreteComandos.interpretar(mensajeUsuario);
+        if (interpretado.isPresent()) {
+            return ejecutarAccion(interpretado.get());
+        }
+
+        // Mismo mensaje (el mismo día) → misma interpretación: se ejecuta directo sin llamar a OpenAI
+        String claveCache = CacheRespuestasIA.clave(MetricasOpenAi.COMANDO, MODELO, TEMPERATURA_COMANDOS, mensajeUsuario);
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        Optional<String> enCache = cacheRespuestas.obtener(claveCache, ahora);
+        if (enCache.isPresent()) {
+            return ejecutarAccion(enCache.get());
+        }
+
+        String fechaActual = ahora.toString();
 
         String promptBase = """
         Eres un asistente inteligente que ayuda a gestionar proyectos y tareas de una bitácora.
@@ -337,8 +476,8 @@ public class ChatService {
         """.formatted(fechaActual);
 
         Map<String, Object> body = new HashMap<>();
-        body.put("model", "gpt-4o-mini");
-        body.put("temperature", 0.0);
+        body.put("model", MODELO);
+        body.put("temperature", TEMPERATURA_COMANDOS);
         body.put("max_tokens", 1000);
 
         body.put("messages", List.of(
@@ -349,12 +488,14 @@ public class ChatService {
         ));
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(
-                    "https://api.openai.com/v1/chat/completions",
-                    HttpMethod.POST,
-                    crearRequestHttp(body),
-                    Map.class
-            );
+            metricasOpenAi.registrarPrompt(MetricasOpenAi.COMANDO, body);
+            ResponseEntity<Map> response = limitadorOpenAi.ejecutar(body, () ->
+                    metricasOpenAi.medir(MetricasOpenAi.COMANDO, () -> restTemplate.exchange(
+                            apiUrl,
+                            HttpMethod.POST,
+                            crearRequestHttp(body),
+                            Map.class
+                    )));
 
             Map<String, Object> choices = (Map<String, Object>) ((List<?>) response.getBody().get("choices")).get(0);
             Map<String, Object> message = (Map<String, Object>) choices.get("message");
@@ -363,23 +504,34 @@ public class ChatService {
             if (contenido.startsWith("```")) {
                 contenido = contenido.replaceAll("```json|```", "").trim();
             }
+            metricasOpenAi.registrarUso(MetricasOpenAi.COMANDO, response.getBody(), contenido);
 
             contenido = normalizarFechas(contenido);
+            if (esJsonValido(contenido)) {
+                cacheRespuestas.guardar(claveCache, contenido, ahora);
+            } else {
+                metricasOpenAi.respuestaInvalida(MetricasOpenAi.COMANDO);
+            }
             return ejecutarAccion(contenido);
 
         } catch (HttpClientErrorException.TooManyRequests e) {
+            if (!e.getResponseBodyAsString().contains("insufficient_quota")) {
+                return "⚠️ OpenAI está recibiendo demasiadas solicitudes. Intenta de nuevo en un momento.";
+            }
             return "⚠️ Límite de uso excedido en OpenAI. Por favor espera unas horas o agrega un método de pago a tu cuenta.";
         } catch (HttpClientErrorException e) {
             return "⚠️ Error en la API de OpenAI: " + e.getStatusCode() + " - " + e.getStatusText();
+        } catch (ResourceAccessException e) {
+            return "⚠️ OpenAI no respondió a tiempo o no hay conexión disponible. Intenta de nuevo en un momento.";
         } catch (Exception e) {
             return "⚠️ Error de conexión con OpenAI: " + e.getMessage();
         }
     }
 
-    private String llamarOpenAI(String prompt) {
+    private String llamarOpenAI(String tipo, String prompt) {
         Map<String, Object> body = new HashMap<>();
-        body.put("model", "gpt-4o-mini");
-        body.put("temperature", 0.1); // Un poco más alto para análisis de reuniones
+        body.put("model", MODELO);
+        body.put("temperature", TEMPERATURA_REUNIONES);
         body.put("max_tokens", 2000); // Más tokens para transcripciones largas
 
         body.put("messages", List.of(
@@ -389,16 +541,34 @@ public class ChatService {
 
         HttpEntity<Map<String, Object>> request = crearRequestHttp(body);
         
-        ResponseEntity<Map> response = restTemplate.exchange(
-                "https://api.openai.com/v1/chat/completions",
-                HttpMethod.POST,
-                request,
-                Map.class
-        );
+        metricasOpenAi.registrarPrompt(tipo, body);
+        ResponseEntity<Map> response = limitadorOpenAi.ejecutar(body, () ->
+                metricasOpenAi.medir(tipo, () -> restTemplate.exchange(
+                        apiUrl,
+                        HttpMethod.POST,
+                        request,
+                        Map.class
+                )));
 
         Map<String, Object> choices = (Map<String, Object>) ((List<?>) response.getBody().get("choices")).get(0);
         Map<String, Object> message = (Map<String, Object>) choices.get("message");
-        return ((String) message.get("content")).trim();
+        String contenido = ((String) message.get("content")).trim();
+
+        // Limpiar la respuesta si viene con markdown
+        if (contenido.startsWith("```")) {
+            contenido = contenido.replaceAll("```json|```", "").trim();
+        }
+        metricasOpenAi.registrarUso(tipo, response.getBody(), contenido);
+        return contenido;
+    }
+
+    private boolean esJsonValido(String contenido) {
+        try {
+            objectMapper.readTree(contenido);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
     }
 
     private HttpEntity<Map<String, Object>> crearRequestHttp(Map<String, Object> body) {
@@ -426,9 +596,7 @@ public class ChatService {
                     return "⚠️ El nombre del proyecto es requerido";
                 }
                 
-                boolean proyectoExiste = proyectoRepository.findAll().stream()
-                        .anyMatch(p -> p.getNombre() != null && 
-                                p.getNombre().equalsIgnoreCase(proyecto.getNombre()));
+                boolean proyectoExiste = existeProyecto(proyecto.getNombre());
                 if (proyectoExiste) {
                     return "⚠️ Ya existe un proyecto con el nombre: " + proyecto.getNombre();
                 }
@@ -437,7 +605,7 @@ public class ChatService {
                     proyecto.getTareas().forEach(t -> t.setProyecto(proyecto));
                 }
                 
-                proyectoRepository.save(proyecto);
+                proyectoService.guardar(proyecto);
                 return "✅ Proyecto creado: " + proyecto.getNombre();
                 
             } else if ("tarea".equalsIgnoreCase(tipo)) {
@@ -458,22 +626,14 @@ public class ChatService {
                         if (proyectoMap.containsKey("nombre")) {
                             String nombreProyecto = (String) proyectoMap.get("nombre");
                             if (nombreProyecto != null && !nombreProyecto.trim().isEmpty()) {
-                                Optional<Proyecto> proyectoOpt = proyectoRepository.findAll().stream()
-                                        .filter(p -> p.getNombre() != null && 
-                                                p.getNombre().equalsIgnoreCase(nombreProyecto))
-                                        .findFirst();
+                                Optional<Proyecto> proyectoOpt = buscarProyecto(nombreProyecto);
                                 proyectoOpt.ifPresent(tarea::setProyecto);
                             }
                         }
                     }
                 }
                 
-                boolean tareaExiste = tareaService.obtenerTodas().stream()
-                        .anyMatch(t -> t.getTitulo() != null && 
-                                t.getTitulo().equalsIgnoreCase(tarea.getTitulo()) &&
-                                (t.getProyecto() == null ? tarea.getProyecto() == null : 
-                                 tarea.getProyecto() != null && 
-                                 t.getProyecto().getId().equals(tarea.getProyecto().getId())));
+                boolean tareaExiste = tareaService.existeTitulo(tarea.getTitulo(), tarea.getProyecto(), null);
                 
                 if (tareaExiste) {
                     String mensajeError = "⚠️ Ya existe una tarea con el título: " + tarea.getTitulo();
@@ -496,10 +656,7 @@ public class ChatService {
                     return "⚠️ Nombre del proyecto es requerido para actualizar";
                 }
                 
-                Optional<Proyecto> optProyecto = proyectoRepository.findAll().stream()
-                        .filter(p -> p.getNombre() != null)
-                        .filter(p -> p.getNombre().equalsIgnoreCase(nombre))
-                        .findFirst();
+                Optional<Proyecto> optProyecto = buscarProyecto(nombre);
                 
                 if (optProyecto.isEmpty()) {
                     return "⚠️ Proyecto no encontrado: " + nombre;
@@ -509,7 +666,8 @@ public class ChatService {
                 Map<String, Object> proyectoMap = (Map<String, Object>) jsonMap.get("proyecto");
                 
                 if (proyectoMap != null) {
-                    boolean cambiosRealizados = false;
+                    // Los cambios se aplican al guardar, sobre el proyecto leído en esa transacción
+                    List<Consumer<Proyecto>> cambios = new ArrayList<>();
                     
                     // Actualizar solo los campos que vienen en el JSON
                     if (proyectoMap.containsKey("nombre")) {
@@ -517,23 +675,21 @@ public class ChatService {
                         if (nuevoNombre != null && !nuevoNombre.trim().isEmpty() && 
                             !nuevoNombre.equalsIgnoreCase(proyecto.getNombre())) {
                             
-                            boolean nombreExiste = proyectoRepository.findAll().stream()
-                                    .anyMatch(p -> p.getNombre() != null && 
-                                            p.getNombre().equalsIgnoreCase(nuevoNombre) &&
-                                            !p.getId().equals(proyecto.getId()));
+                            boolean nombreExiste = proyectoService.buscarIdPorNombre(nuevoNombre)
+                                    .filter(id -> !id.equals(proyecto.getId()))
+                                    .isPresent();
                             
                             if (nombreExiste) {
                                 return "⚠️ Ya existe otro proyecto con el nombre: " + nuevoNombre;
                             }
                             
-                            proyecto.setNombre(nuevoNombre);
-                            cambiosRealizados = true;
+                            cambios.add(p -> p.setNombre(nuevoNombre));
                         }
                     }
                     
                     if (proyectoMap.containsKey("descripcion")) {
-                        proyecto.setDescripcion((String) proyectoMap.get("descripcion"));
-                        cambiosRealizados = true;
+                        String descripcion = (String) proyectoMap.get("descripcion");
+                        cambios.add(p -> p.setDescripcion(descripcion));
                     }
                     
                     if (proyectoMap.containsKey("fechaInicio")) {
@@ -541,8 +697,8 @@ public class ChatService {
                         if (fechaInicioObj instanceof String) {
                             String fechaInicioStr = (String) fechaInicioObj;
                             if (fechaInicioStr != null && !fechaInicioStr.equalsIgnoreCase("null")) {
-                                proyecto.setFechaInicio(LocalDateTime.parse(fechaInicioStr));
-                                cambiosRealizados = true;
+                                LocalDateTime fechaInicio = LocalDateTime.parse(fechaInicioStr);
+                                cambios.add(p -> p.setFechaInicio(fechaInicio));
                             }
                         }
                     }
@@ -550,22 +706,18 @@ public class ChatService {
                     if (proyectoMap.containsKey("fechaFin")) {
                         Object fechaFinObj = proyectoMap.get("fechaFin");
                         if (fechaFinObj == null) {
-                            proyecto.setFechaFin(null);
-                            cambiosRealizados = true;
+                            cambios.add(p -> p.setFechaFin(null));
                         } else if (fechaFinObj instanceof String) {
                             String fechaFinStr = (String) fechaFinObj;
-                            if ("null".equalsIgnoreCase(fechaFinStr) || fechaFinStr.isEmpty()) {
-                                proyecto.setFechaFin(null);
-                            } else {
-                                proyecto.setFechaFin(LocalDateTime.parse(fechaFinStr));
-                            }
-                            cambiosRealizados = true;
+                            LocalDateTime fechaFin = "null".equalsIgnoreCase(fechaFinStr) || fechaFinStr.isEmpty()
+                                    ? null : LocalDateTime.parse(fechaFinStr);
+                            cambios.add(p -> p.setFechaFin(fechaFin));
                         }
                     }
                     
-                    if (cambiosRealizados) {
-                        proyectoRepository.save(proyecto);
-                        return "✅ Proyecto actualizado: " + proyecto.getNombre();
+                    if (!cambios.isEmpty()) {
+                        Proyecto actualizado = proyectoService.modificar(proyecto.getId(), p -> cambios.forEach(c -> c.accept(p)));
+                        return "✅ Proyecto actualizado: " + actualizado.getNombre();
                     } else {
                         return "ℹ️ No se realizaron cambios en el proyecto: " + proyecto.getNombre();
                     }
@@ -580,10 +732,7 @@ public class ChatService {
                     return "⚠️ Nombre/título de tarea es requerido para actualizar";
                 }
                 
-                Optional<Tarea> optTarea = tareaService.obtenerTodas().stream()
-                        .filter(t -> t.getTitulo() != null)
-                        .filter(t -> t.getTitulo().equalsIgnoreCase(tituloTarea))
-                        .findFirst();
+                Optional<Tarea> optTarea = buscarTarea(tituloTarea);
                 
                 if (optTarea.isEmpty()) {
                     return "⚠️ Tarea no encontrada: " + tituloTarea;
@@ -593,7 +742,8 @@ public class ChatService {
                 Map<String, Object> tareaMap = (Map<String, Object>) jsonMap.get("tarea");
                 
                 if (tareaMap != null) {
-                    boolean cambiosRealizados = false;
+                    // Los cambios se aplican al guardar, sobre la tarea leída en esa transacción
+                    List<Consumer<Tarea>> cambios = new ArrayList<>();
                     
                     // Actualizar título si se proporciona
                     if (tareaMap.containsKey("titulo")) {
@@ -601,13 +751,7 @@ public class ChatService {
                         if (nuevoTitulo != null && !nuevoTitulo.trim().isEmpty() && 
                             !nuevoTitulo.equalsIgnoreCase(tarea.getTitulo())) {
                             
-                            boolean tituloExiste = tareaService.obtenerTodas().stream()
-                                    .anyMatch(t -> t.getTitulo() != null && 
-                                            t.getTitulo().equalsIgnoreCase(nuevoTitulo) &&
-                                            !t.getId().equals(tarea.getId()) &&
-                                            (t.getProyecto() == null ? tarea.getProyecto() == null : 
-                                             tarea.getProyecto() != null && 
-                                             t.getProyecto().getId().equals(tarea.getProyecto().getId())));
+                            boolean tituloExiste = tareaService.existeTitulo(nuevoTitulo, tarea.getProyecto(), tarea.getId());
                             
                             if (tituloExiste) {
                                 String mensajeError = "⚠️ Ya existe otra tarea con el título: " + nuevoTitulo;
@@ -617,8 +761,7 @@ public class ChatService {
                                 return mensajeError;
                             }
                             
-                            tarea.setTitulo(nuevoTitulo);
-                            cambiosRealizados = true;
+                            cambios.add(t -> t.setTitulo(nuevoTitulo));
                         }
                     }
                     
@@ -626,24 +769,19 @@ public class ChatService {
                     if (tareaMap.containsKey("proyecto")) {
                         Object proyectoObj = tareaMap.get("proyecto");
                         if (proyectoObj == null) {
-                            tarea.setProyecto(null);
-                            cambiosRealizados = true;
+                            cambios.add(t -> t.setProyecto(null));
                         } else if (proyectoObj instanceof Map) {
                             Map<String, Object> proyectoMap = (Map<String, Object>) proyectoObj;
                             if (proyectoMap.containsKey("nombre")) {
                                 String nombreProyecto = (String) proyectoMap.get("nombre");
                                 if (nombreProyecto != null && !nombreProyecto.trim().isEmpty()) {
-                                    Optional<Proyecto> proyectoOpt = proyectoRepository.findAll().stream()
-                                            .filter(p -> p.getNombre() != null && 
-                                                    p.getNombre().equalsIgnoreCase(nombreProyecto))
-                                            .findFirst();
+                                    Optional<Proyecto> proyectoOpt = buscarProyecto(nombreProyecto);
                                     
                                     if (proyectoOpt.isPresent()) {
                                         Proyecto nuevoProyecto = proyectoOpt.get();
                                         if (tarea.getProyecto() == null || 
                                             !tarea.getProyecto().getId().equals(nuevoProyecto.getId())) {
-                                            tarea.setProyecto(nuevoProyecto);
-                                            cambiosRealizados = true;
+                                            cambios.add(t -> t.setProyecto(nuevoProyecto));
                                         }
                                     }
                                 }
@@ -653,15 +791,14 @@ public class ChatService {
                     
                     // Actualizar otros campos solo si están presentes en el JSON
                     if (tareaMap.containsKey("descripcion")) {
-                        tarea.setDescripcion((String) tareaMap.get("descripcion"));
-                        cambiosRealizados = true;
+                        String descripcion = (String) tareaMap.get("descripcion");
+                        cambios.add(t -> t.setDescripcion(descripcion));
                     }
                     
                     if (tareaMap.containsKey("estado")) {
-                        String nuevoEstado = (String) tareaMap.get("estado");
-                        if (nuevoEstado != null && !nuevoEstado.equals(tarea.getEstado())) {
-                            tarea.setEstado(nuevoEstado);
-                            cambiosRealizados = true;
+                        EstadoTarea nuevoEstado = EstadoTarea.desdeTexto((String) tareaMap.get("estado"));
+                        if (nuevoEstado != null && nuevoEstado != tarea.getEstado()) {
+                            cambios.add(t -> t.setEstado(nuevoEstado));
                         }
                     }
                     
@@ -670,8 +807,8 @@ public class ChatService {
                         if (fechaInicioObj instanceof String) {
                             String fechaInicioStr = (String) fechaInicioObj;
                             if (fechaInicioStr != null && !fechaInicioStr.equalsIgnoreCase("null")) {
-                                tarea.setFechaInicio(LocalDateTime.parse(fechaInicioStr));
-                                cambiosRealizados = true;
+                                LocalDateTime fechaInicio = LocalDateTime.parse(fechaInicioStr);
+                                cambios.add(t -> t.setFechaInicio(fechaInicio));
                             }
                         }
                     }
@@ -679,16 +816,12 @@ public class ChatService {
                     if (tareaMap.containsKey("fechaFin")) {
                         Object fechaFinObj = tareaMap.get("fechaFin");
                         if (fechaFinObj == null) {
-                            tarea.setFechaFin(null);
-                            cambiosRealizados = true;
+                            cambios.add(t -> t.setFechaFin(null));
                         } else if (fechaFinObj instanceof String) {
                             String fechaFinStr = (String) fechaFinObj;
-                            if ("null".equalsIgnoreCase(fechaFinStr) || fechaFinStr.isEmpty()) {
-                                tarea.setFechaFin(null);
-                            } else {
-                                tarea.setFechaFin(LocalDateTime.parse(fechaFinStr));
-                            }
-                            cambiosRealizados = true;
+                            LocalDateTime fechaFin = "null".equalsIgnoreCase(fechaFinStr) || fechaFinStr.isEmpty()
+                                    ? null : LocalDateTime.parse(fechaFinStr);
+                            cambios.add(t -> t.setFechaFin(fechaFin));
                         }
                     }
                     
@@ -711,20 +844,20 @@ public class ChatService {
                             
                             Double duracionActual = tarea.getDuracionHoras() != null ? tarea.getDuracionHoras() : 0.0;
                             if (!nuevaDuracion.equals(duracionActual)) {
-                                tarea.setDuracionHoras(nuevaDuracion);
-                                cambiosRealizados = true;
+                                Double duracion = nuevaDuracion;
+                                cambios.add(t -> t.setDuracionHoras(duracion));
                             }
                         }
                     }
                     
                     if (tareaMap.containsKey("observaciones")) {
-                        tarea.setObservaciones((String) tareaMap.get("observaciones"));
-                        cambiosRealizados = true;
+                        String observaciones = (String) tareaMap.get("observaciones");
+                        cambios.add(t -> t.setObservaciones(observaciones));
                     }
                     
-                    if (cambiosRealizados) {
-                        tareaService.guardar(tarea);
-                        return "✅ Tarea actualizada: " + tarea.getTitulo();
+                    if (!cambios.isEmpty()) {
+                        Tarea actualizada = tareaService.modificar(tarea.getId(), t -> cambios.forEach(c -> c.accept(t)));
+                        return "✅ Tarea actualizada: " + actualizada.getTitulo();
                     } else {
                         return "ℹ️ No se realizaron cambios en la tarea: " + tarea.getTitulo();
                     }
@@ -741,13 +874,10 @@ public class ChatService {
                     return "⚠️ Nombre del proyecto es requerido para eliminar";
                 }
                 
-                Optional<Proyecto> optProyecto = proyectoRepository.findAll().stream()
-                        .filter(p -> p.getNombre() != null)
-                        .filter(p -> p.getNombre().equalsIgnoreCase(nombre))
-                        .findFirst();
+                Optional<Proyecto> optProyecto = buscarProyecto(nombre);
                 
                 if (optProyecto.isPresent()) {
-                    proyectoRepository.delete(optProyecto.get());
+                    proyectoService.eliminar(optProyecto.get().getId());
                     return "✅ Proyecto eliminado: " + nombre;
                 }
                 
@@ -760,10 +890,7 @@ public class ChatService {
                     return "⚠️ Nombre/título de tarea es requerido para eliminar";
                 }
                 
-                Optional<Tarea> optTarea = tareaService.obtenerTodas().stream()
-                        .filter(t -> t.getTitulo() != null)
-                        .filter(t -> t.getTitulo().equalsIgnoreCase(tituloTarea))
-                        .findFirst();
+                Optional<Tarea> optTarea = buscarTarea(tituloTarea);
                 
                 if (optTarea.isPresent()) {
                     tareaService.eliminar(optTarea.get().getId());
@@ -781,6 +908,20 @@ public class ChatService {
     }
 }
 
+    // Búsquedas por nombre sin distinguir mayúsculas: nombre → id en caché, entidad desde la caché de segundo nivel
+    // o la base principal (lo encontrado se modifica y se guarda: no se lee de la réplica)
+    private Optional<Proyecto> buscarProyecto(String nombre) {
+        return proyectoService.buscarIdPorNombre(nombre).flatMap(proyectoService::obtenerParaModificar);
+    }
+
+    private boolean existeProyecto(String nombre) {
+        return proyectoService.buscarIdPorNombre(nombre).isPresent();
+    }
+
+    private Optional<Tarea> buscarTarea(String titulo) {
+        return tareaService.buscarIdPorTitulo(titulo).flatMap(tareaService::obtenerParaModificar);
+    }
+
     private String normalizarFechas(String texto) {
         String ahora = LocalDateTime.now().withNano(0).toString();
         return texto.replaceAll("202[0-3]-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}", ahora);
@@ -0,0 +1,83 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import jakarta.persistence.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acumula, por proyecto, la diferencia de horas y contadores que producen una o
+ * varias escrituras de tareas. Al final se aplica con un solo UPDATE atómico por
+ * proyecto afectado, sin importar cuántas tareas hayan cambiado.
+ * El UPDATE se hace aunque la diferencia sea cero: también sube la versión del proyecto,
+ * que así cambia cuando cambia cualquiera de sus tareas (ETag de la vista completa).
+ * Los proyectos se actualizan en orden de id (dos lotes concurrentes bloquean las filas en el
+ * mismo orden) y solo ellos se desalojan de la caché de segundo nivel: al aplicar y de nuevo al
+ * terminar la transacción, por si otra lectura volvió a cachear la fila anterior en medio.
+ */
+class DeltaTotales {
+
+    private static class Delta {
+        double horas;
+        long tareas;
+        long completadas;
+    }
+
+    private final Map<Long, Delta> porProyecto = new TreeMap<>();
+
+    //Descuenta lo que los totales ya tenían registrado de la tarea (si lo tenían)
+    void quitarContabilizado(Tarea tarea) {
+        if (tarea.isTotalesAplicados()) {
+            sumar(tarea.getProyectoIdAplicado(), -tarea.getHorasAplicadas(), -1, tarea.isCompletadaAplicada() ? -1 : 0);
+        }
+    }
+
+    //Suma el estado actual de la tarea a los totales de su proyecto
+    void agregar(Tarea tarea) {
+        Long proyectoId = tarea.getProyecto() != null ? tarea.getProyecto().getId() : null;
+        double horas = tarea.getDuracionHoras() != null ? tarea.getDuracionHoras() : 0.0;
+        sumar(proyectoId, horas, 1, tarea.estaCompletada() ? 1 : 0);
+    }
+
+    void aplicar(ProyectoRepository proyectoRepository, Cache cacheEntidades) {
+        porProyecto.forEach((proyectoId, delta) -> {
+            int filas = proyectoRepository.aplicarDeltaTotales(proyectoId, delta.horas, delta.tareas, delta.completadas);
+            if (filas == 0) {
+                throw new RuntimeException("Proyecto no encontrado");
+            }
+        });
+
+        List<Long> modificados = List.copyOf(porProyecto.keySet());
+        desalojar(cacheEntidades, modificados);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    desalojar(cacheEntidades, modificados);
+                }
+            });
+        }
+        porProyecto.clear();
+    }
+
+    private static void desalojar(Cache cacheEntidades, List<Long> proyectoIds) {
+        for (Long proyectoId : proyectoIds) {
+            cacheEntidades.evict(Proyecto.class, proyectoId);
+        }
+    }
+
+    private void sumar(Long proyectoId, double horas, long tareas, long completadas) {
+        if (proyectoId == null) {
+            return;
+        }
+        Delta delta = porProyecto.computeIfAbsent(proyectoId, id -> new Delta());
+        delta.horas += horas;
+        delta.tareas += tareas;
+        delta.completadas += completadas;
+    }
+}
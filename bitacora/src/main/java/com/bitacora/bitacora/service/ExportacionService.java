@@ -0,0 +1,133 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.ProyectoExportado;
+import com.bitacora.bitacora.dto.TareaExportada;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exporta todas las tareas o proyectos escribiendo fila a fila en la respuesta,
+ * leyendo de la base de datos por bloques: la memoria usada no depende del número de filas.
+ */
+@Service
+public class ExportacionService {
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String tipoContenido;
+        private final String extension;
+
+        Formato(String tipoContenido, String extension) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Formato desdeTexto(String texto) {
+            try {
+                return valueOf(texto.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Formato no soportado: " + texto + " (usa ndjson o csv)");
+            }
+        }
+    }
+
+    private static final List<String> COLUMNAS_TAREAS = List.of("id", "titulo", "descripcion", "estado",
+            "fechaInicio", "fechaFin", "duracionHoras", "observaciones", "fechaCreacion", "proyectoId");
+
+    private static final List<String> COLUMNAS_PROYECTOS = List.of("id", "nombre", "descripcion",
+            "fechaInicio", "fechaFin", "duracionHoras", "fechaCreacion", "tareasTotales", "tareasCompletadas");
+
+    private final TareaRepository tareaRepository;
+    private final ProyectoRepository proyectoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionService(TareaRepository tareaRepository, ProyectoRepository proyectoRepository,
+                              ObjectMapper objectMapper) {
+        this.tareaRepository = tareaRepository;
+        this.proyectoRepository = proyectoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    //La transacción mantiene abierto el cursor mientras se escribe; el Stream se cierra al terminar
+    @Transactional(readOnly = true)
+    public void exportarTareas(Formato formato, Writer salida) {
+        try (Stream<TareaExportada> filas = tareaRepository.exportarTodas()) {
+            escribir(filas, formato, salida, COLUMNAS_TAREAS, t -> Arrays.asList(
+                    t.id(), t.titulo(), t.descripcion(), t.estado() != null ? t.estado().getEtiqueta() : null,
+                    t.fechaInicio(), t.fechaFin(), t.duracionHoras(), t.observaciones(), t.fechaCreacion(),
+                    t.proyectoId()));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportarProyectos(Formato formato, Writer salida) {
+        try (Stream<ProyectoExportado> filas = proyectoRepository.exportarTodos()) {
+            escribir(filas, formato, salida, COLUMNAS_PROYECTOS, p -> Arrays.asList(
+                    p.id(), p.nombre(), p.descripcion(), p.fechaInicio(), p.fechaFin(), p.duracionHoras(),
+                    p.fechaCreacion(), p.tareasTotales(), p.tareasCompletadas()));
+        }
+    }
+
+    private <T> void escribir(Stream<T> filas, Formato formato, Writer salida,
+                              List<String> columnas, Function<T, List<Object>> valores) {
+        try {
+            if (formato == Formato.CSV) {
+                salida.write(String.join(",", columnas));
+                salida.write("\n");
+            }
+            for (T fila : (Iterable<T>) filas::iterator) {
+                if (formato == Formato.CSV) {
+                    salida.write(lineaCsv(valores.apply(fila)));
+                } else {
+                    salida.write(objectMapper.writeValueAsString(fila));
+                }
+                salida.write("\n");
+            }
+            salida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Une los valores con comas; los textos con comas, comillas o saltos de línea
+     * van entre comillas dobles (las comillas internas se duplican). null queda vacío.
+     */
+    private static String lineaCsv(List<Object> valores) {
+        StringBuilder linea = new StringBuilder();
+        for (int i = 0; i < valores.size(); i++) {
+            if (i > 0) linea.append(',');
+            Object valor = valores.get(i);
+            if (valor == null) continue;
+            String texto = valor.toString();
+            if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+                linea.append('"').append(texto.replace("\"", "\"\"")).append('"');
+            } else {
+                linea.append(texto);
+            }
+        }
+        return linea.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.util.NormalizadorTexto;
+
+import java.util.*;
+
+/**
+ * Une las acciones que devolvió OpenAI para cada fragmento de una reunión en una sola lista,
+ * antes de guardar nada. Los fragmentos se solapan y un mismo proyecto puede aparecer en varios:
+ * 1️⃣ Proyectos con el mismo nombre (sin distinguir mayúsculas) se unen en uno; se agregan las
+ *    tareas que no tenía y se completan descripción y fecha fin si faltaban.
+ * 2️⃣ Una tarea suelta se descarta si ya está, con el mismo título, en el proyecto al que apunta
+ *    o (si no apunta a ninguno) en cualquier proyecto o entre las tareas ya vistas.
+ * 3️⃣ Cualquier otra acción se conserva una sola vez.
+ * Se mantiene el orden en que aparece cada acción por primera vez.
+ */
+final class FusionAccionesReunion {
+
+    private FusionAccionesReunion() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> fusionar(List<List<Map<String, Object>>> porFragmento) {
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        Map<String, Map<String, Object>> proyectos = new HashMap<>();        // nombre → datos del proyecto
+        Map<String, Set<String>> titulosPorProyecto = new HashMap<>();       // nombre ("" sin proyecto) → títulos
+        List<Map<String, Object>> sueltas = new ArrayList<>();
+        Set<Map<String, Object>> otras = new HashSet<>();
+
+        for (List<Map<String, Object>> acciones : porFragmento) {
+            for (Map<String, Object> accion : acciones) {
+                if (esCreacion(accion, "proyecto") && accion.get("proyecto") instanceof Map<?, ?> datos
+                        && clave(datos.get("nombre")) != null) {
+                    Map<String, Object> proyecto = (Map<String, Object>) datos;
+                    String nombre = clave(proyecto.get("nombre"));
+                    List<Map<String, Object>> tareas = proyecto.get("tareas") instanceof List<?> lista
+                            ? (List<Map<String, Object>>) lista : List.of();
+                    Map<String, Object> existente = proyectos.get(nombre);
+                    if (existente == null) {
+                        existente = proyecto;
+                        existente.put("tareas", new ArrayList<Map<String, Object>>());
+                        proyectos.put(nombre, existente);
+                        resultado.add(accion);
+                    } else {
+                        if (existente.get("descripcion") == null) existente.put("descripcion", proyecto.get("descripcion"));
+                        if (existente.get("fechaFin") == null) existente.put("fechaFin", proyecto.get("fechaFin"));
+                    }
+                    agregarTareas((List<Map<String, Object>>) existente.get("tareas"),
+                            titulos(titulosPorProyecto, nombre), tareas);
+                } else if (esCreacion(accion, "tarea") && accion.get("tarea") instanceof Map<?, ?> datos
+                        && clave(datos.get("titulo")) != null) {
+                    sueltas.add(accion);
+                } else if (otras.add(accion)) {
+                    resultado.add(accion);
+                }
+            }
+        }
+
+        // Las tareas sueltas van al final: así se comparan contra todos los proyectos ya unidos
+        for (Map<String, Object> accion : sueltas) {
+            Map<String, Object> tarea = (Map<String, Object>) accion.get("tarea");
+            String titulo = clave(tarea.get("titulo"));
+            String proyecto = tarea.get("proyecto") instanceof Map<?, ?> referencia ? clave(referencia.get("nombre")) : null;
+            boolean repetida = proyecto != null
+                    ? titulos(titulosPorProyecto, proyecto).contains(titulo)
+                    : titulosPorProyecto.values().stream().anyMatch(t -> t.contains(titulo));
+            if (!repetida) {
+                titulos(titulosPorProyecto, proyecto == null ? "" : proyecto).add(titulo);
+                resultado.add(accion);
+            }
+        }
+        return resultado;
+    }
+
+    private static void agregarTareas(List<Map<String, Object>> destino, Set<String> titulos,
+                                      List<Map<String, Object>> nuevas) {
+        for (Map<String, Object> tarea : nuevas) {
+            String titulo = tarea == null ? null : clave(tarea.get("titulo"));
+            if (titulo != null && titulos.add(titulo)) {
+                destino.add(tarea);
+            }
+        }
+    }
+
+    private static Set<String> titulos(Map<String, Set<String>> titulosPorProyecto, String proyecto) {
+        return titulosPorProyecto.computeIfAbsent(proyecto, p -> new HashSet<>());
+    }
+
+    private static boolean esCreacion(Map<String, Object> accion, String tipo) {
+        return "crear".equalsIgnoreCase(String.valueOf(accion.get("accion")))
+                && tipo.equalsIgnoreCase(String.valueOf(accion.get("tipo")));
+    }
+
+    private static String clave(Object texto) {
+        String normalizado = texto instanceof String s ? NormalizadorTexto.normalizar(s) : null;
+        return normalizado == null || normalizado.isEmpty() ? null : normalizado;
+    }
+}
@@ -0,0 +1,298 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.config.CacheConfig;
+import com.bitacora.bitacora.dto.FilaImportacion;
+import com.bitacora.bitacora.dto.ResultadoImportacion;
+import com.bitacora.bitacora.dto.ResultadoLote;
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.util.LectorCsv;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Importación masiva de tareas desde NDJSON o CSV (por ejemplo, bitácoras históricas).
+ * 1️⃣ El archivo se lee de forma incremental, en bloques de filas.
+ * 2️⃣ Cada bloque va en su propia transacción: los nombres de proyecto se resuelven con una
+ *    sola consulta por bloque y las tareas se insertan en lotes JDBC.
+ * 3️⃣ Los totales de los proyectos afectados se recalculan una vez al final.
+ */
+@Service
+public class ImportacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacionService.class);
+
+    static final int MAXIMO_ERRORES_REPORTADOS = 1000;
+
+    // Límite de ids por sentencia al recalcular totales
+    private static final int IDS_POR_SENTENCIA = 500;
+
+    private final TareaRepository tareaRepository;
+    private final ProyectoRepository proyectoRepository;
+    private final BusquedaService busquedaService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int tamanoBloque;
+
+    public ImportacionService(TareaRepository tareaRepository, ProyectoRepository proyectoRepository,
+                              BusquedaService busquedaService, EntityManager entityManager, TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${bitacora.importacion.tamano-bloque:500}") int tamanoBloque) {
+        this.tareaRepository = tareaRepository;
+        this.proyectoRepository = proyectoRepository;
+        this.busquedaService = busquedaService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    })
+    public ResultadoImportacion importarTareas(ExportacionService.Formato formato, InputStream entrada) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Importacion importacion = new Importacion();
+
+        if (formato == ExportacionService.Formato.CSV) {
+            leerCsv(lector, importacion);
+        } else {
+            leerNdjson(lector, importacion);
+        }
+        importacion.procesarBloque();
+        recalcularTotales(importacion.proyectosAfectados);
+        importacion.errores.sort(Comparator.comparingInt(ResultadoLote::indice));
+
+        log.info("Importación terminada: {} filas, {} tareas creadas, {} proyectos creados, {} filas con error",
+                importacion.filasLeidas, importacion.tareasCreadas, importacion.proyectosCreados, importacion.filasConError);
+        return new ResultadoImportacion(importacion.filasLeidas, importacion.tareasCreadas,
+                importacion.proyectosCreados, importacion.filasConError, importacion.errores);
+    }
+
+    private void leerNdjson(BufferedReader lector, Importacion importacion) throws IOException {
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            if (linea.isBlank()) continue;
+            int numero = ++importacion.filasLeidas;
+            try {
+                importacion.agregar(numero, objectMapper.readValue(linea, FilaImportacion.class));
+            } catch (IOException | IllegalArgumentException e) {
+                importacion.error(numero, "Fila no válida: " + e.getMessage());
+            }
+        }
+    }
+
+    private void leerCsv(BufferedReader lector, Importacion importacion) throws IOException {
+        LectorCsv csv = new LectorCsv(lector);
+        List<String> cabecera = csv.siguiente();
+        if (cabecera == null) return;
+
+        List<String> campos;
+        while ((campos = csv.siguiente()) != null) {
+            if (campos.size() == 1 && campos.get(0).isBlank()) continue;
+            int numero = ++importacion.filasLeidas;
+
+            //Columna → valor, omitiendo vacíos para que lleguen como null
+            Map<String, String> valores = new HashMap<>();
+            for (int i = 0; i < cabecera.size() && i < campos.size(); i++) {
+                if (!campos.get(i).isEmpty()) valores.put(cabecera.get(i).trim(), campos.get(i));
+            }
+            try {
+                importacion.agregar(numero, objectMapper.convertValue(valores, FilaImportacion.class));
+            } catch (IllegalArgumentException e) {
+                importacion.error(numero, "Fila no válida: " + e.getMessage());
+            }
+        }
+    }
+
+    //Recalcula horas, contadores y duración de los proyectos que recibieron tareas
+    private void recalcularTotales(Set<Long> proyectos) {
+        List<Long> ids = new ArrayList<>(proyectos);
+        for (int desde = 0; desde < ids.size(); desde += IDS_POR_SENTENCIA) {
+            List<Long> grupo = ids.subList(desde, Math.min(desde + IDS_POR_SENTENCIA, ids.size()));
+            transactionTemplate.executeWithoutResult(estado -> {
+                proyectoRepository.reconstruirTotalesDe(grupo);
+                proyectoRepository.reconstruirDuracionesDe(grupo);
+            });
+        }
+    }
+
+    // Estado de una importación en curso: bloque pendiente, proyectos ya resueltos y contadores
+    private class Importacion {
+
+        private final List<FilaPendiente> bloque = new ArrayList<>();
+        private final Map<String, Long> proyectosPorNombre = new HashMap<>();
+        private final Set<Long> proyectosExistentes = new HashSet<>();
+        private final Set<Long> proyectosAfectados = new HashSet<>();
+        private final List<ResultadoLote> errores = new ArrayList<>();
+
+        private int filasLeidas;
+        private int tareasCreadas;
+        private int proyectosCreados;
+        private int filasConError;
+
+        void agregar(int numero, FilaImportacion fila) {
+            if (fila.titulo() == null || fila.titulo().trim().isEmpty()) {
+                error(numero, "El título de la tarea es requerido");
+                return;
+            }
+            EstadoTarea estado;
+            try {
+                estado = EstadoTarea.desdeTexto(fila.estado());
+            } catch (IllegalArgumentException e) {
+                error(numero, e.getMessage());
+                return;
+            }
+            bloque.add(new FilaPendiente(numero, fila, estado));
+            if (bloque.size() >= tamanoBloque) {
+                procesarBloque();
+            }
+        }
+
+        void error(int numero, String mensaje) {
+            filasConError++;
+            if (errores.size() < MAXIMO_ERRORES_REPORTADOS) {
+                errores.add(ResultadoLote.fallo(numero, null, mensaje));
+            }
+        }
+
+        void procesarBloque() {
+            if (bloque.isEmpty()) return;
+            List<FilaPendiente> filas = List.copyOf(bloque);
+            bloque.clear();
+
+            ResultadoBloque resultado;
+            try {
+                resultado = transactionTemplate.execute(estado -> guardarBloque(filas));
+            } catch (RuntimeException e) {
+                //El bloque completo se revierte: ninguna de sus filas quedó guardada
+                filas.forEach(f -> error(f.numero(), "Bloque no importado: " + e.getMessage()));
+                return;
+            } finally {
+                entityManager.clear();
+            }
+
+            proyectosPorNombre.putAll(resultado.proyectosPorNombre());
+            proyectosExistentes.addAll(resultado.proyectosExistentes());
+            proyectosAfectados.addAll(resultado.proyectosAfectados());
+            proyectosCreados += resultado.proyectosCreados();
+            tareasCreadas += resultado.tareas();
+            resultado.errores().forEach((numero, mensaje) -> error(numero, mensaje));
+            log.info("Importación: {} filas leídas, {} tareas creadas", filasLeidas, tareasCreadas);
+        }
+
+        private ResultadoBloque guardarBloque(List<FilaPendiente> filas) {
+            Map<String, Long> nombresNuevos = resolverNombres(filas);
+            Set<Long> idsNuevos = resolverIds(filas);
+            int creados = (int) nombresNuevos.values().stream().filter(Objects::isNull).count();
+
+            //Proyectos mencionados por nombre que todavía no existen
+            for (FilaPendiente f : filas) {
+                String nombre = f.fila().proyecto();
+                if (nombre == null || nombre.isBlank()) continue;
+                String clave = NormalizadorTexto.normalizar(nombre);
+                if (nombresNuevos.containsKey(clave) && nombresNuevos.get(clave) == null) {
+                    Proyecto proyecto = new Proyecto();
+                    proyecto.setNombre(nombre.trim());
+                    nombresNuevos.put(clave, proyectoRepository.save(proyecto).getId());
+                }
+            }
+
+            Map<Integer, String> erroresBloque = new TreeMap<>();
+            Set<Long> afectados = new HashSet<>();
+            List<Tarea> tareas = new ArrayList<>();
+            for (FilaPendiente f : filas) {
+                Long proyectoId = null;
+                if (f.fila().proyectoId() != null) {
+                    proyectoId = f.fila().proyectoId();
+                    if (!proyectosExistentes.contains(proyectoId) && !idsNuevos.contains(proyectoId)) {
+                        erroresBloque.put(f.numero(), "Proyecto no encontrado: " + proyectoId);
+                        continue;
+                    }
+                } else if (f.fila().proyecto() != null && !f.fila().proyecto().isBlank()) {
+                    String clave = NormalizadorTexto.normalizar(f.fila().proyecto());
+                    proyectoId = proyectosPorNombre.containsKey(clave) ? proyectosPorNombre.get(clave) : nombresNuevos.get(clave);
+                }
+
+                Tarea tarea = new Tarea();
+                tarea.setTitulo(f.fila().titulo());
+                tarea.setDescripcion(f.fila().descripcion());
+                tarea.setEstado(f.estado());
+                tarea.setFechaInicio(f.fila().fechaInicio());
+                tarea.setFechaFin(f.fila().fechaFin());
+                tarea.setDuracionHoras(f.fila().duracionHoras());
+                tarea.setObservaciones(f.fila().observaciones());
+                if (f.fila().fechaCreacion() != null) tarea.setFechaCreacion(f.fila().fechaCreacion());
+                if (proyectoId != null) {
+                    tarea.setProyecto(proyectoRepository.getReferenceById(proyectoId));
+                    afectados.add(proyectoId);
+                }
+                tareas.add(tarea);
+            }
+
+            tareaRepository.saveAll(tareas);
+            busquedaService.indexar(tareas);
+            entityManager.flush();
+            return new ResultadoBloque(nombresNuevos, idsNuevos, afectados, creados, tareas.size(), erroresBloque);
+        }
+
+        //Nombres del bloque que aún no están resueltos → id existente (el menor) o null si hay que crearlo
+        private Map<String, Long> resolverNombres(List<FilaPendiente> filas) {
+            Set<String> pendientes = new HashSet<>();
+            for (FilaPendiente f : filas) {
+                String nombre = f.fila().proyectoId() == null ? f.fila().proyecto() : null;
+                if (nombre != null && !nombre.isBlank()) {
+                    String clave = NormalizadorTexto.normalizar(nombre);
+                    if (!proyectosPorNombre.containsKey(clave)) pendientes.add(clave);
+                }
+            }
+            Map<String, Long> resueltos = new HashMap<>();
+            if (pendientes.isEmpty()) return resueltos;
+
+            pendientes.forEach(clave -> resueltos.put(clave, null));
+            for (Proyecto p : proyectoRepository.findByNombreNormalizadoIn(pendientes)) {
+                Long actual = resueltos.get(p.getNombreNormalizado());
+                if (actual == null || p.getId() < actual) resueltos.put(p.getNombreNormalizado(), p.getId());
+            }
+            return resueltos;
+        }
+
+        //Ids de proyecto del bloque que todavía no se han comprobado y sí existen
+        private Set<Long> resolverIds(List<FilaPendiente> filas) {
+            Set<Long> pendientes = new HashSet<>();
+            for (FilaPendiente f : filas) {
+                Long id = f.fila().proyectoId();
+                if (id != null && !proyectosExistentes.contains(id)) pendientes.add(id);
+            }
+            return pendientes.isEmpty() ? Set.of() : new HashSet<>(proyectoRepository.buscarIdsExistentes(pendientes));
+        }
+    }
+
+    private record FilaPendiente(int numero, FilaImportacion fila, EstadoTarea estado) {
+    }
+
+    private record ResultadoBloque(Map<String, Long> proyectosPorNombre, Set<Long> proyectosExistentes,
+                                   Set<Long> proyectosAfectados, int proyectosCreados, int tareas,
+                                   Map<Integer, String> errores) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Interpreta sin llamar a OpenAI los comandos simples más comunes, en español e inglés:
+ * crear un proyecto o una tarea (opcionalmente en un proyecto), eliminar un proyecto o una tarea
+ * y cambiar el estado de una tarea. Devuelve el mismo JSON que pide el prompt de
+ * ChatService.procesarComandoSimple, así que se ejecuta igual con ejecutarAccion.
+ * 1️⃣ Solo acepta el mensaje si la frase completa coincide con una de las formas conocidas.
+ * 2️⃣ Ante cualquier duda (fechas, horas, descripción, varios nombres, frases largas) devuelve
+ *    vacío y el mensaje va a OpenAI: es preferible una llamada de más a ejecutar algo distinto.
+ *    Los nombres entre comillas se toman tal cual.
+ *
+ * Métricas: bitacora.chat.comandos{interprete=local|openai}.
+ */
+@Component
+class InterpreteComandos {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+    private static final int LARGO_MAXIMO_NOMBRE = 80;
+
+    private static final String CREAR = "(?:crea|crear|cree|créame|creame|agrega|agregar|agregue|añade|añadir|anade|registra|registrar|nuevo|nueva|create|add|new)";
+    private static final String ELIMINAR = "(?:elimina|eliminar|elimine|borra|borrar|borre|quita|quitar|remueve|delete|remove)";
+    private static final String ARTICULO = "(?:(?:un|una|el|la|a|an|the)\\s+)?(?:(?:nuevo|nueva|new)\\s+)?";
+    private static final String LLAMADO = "(?:\\s+(?:llamad[oa]|titulad[oa]|de\\s+nombre|con\\s+(?:el\\s+)?(?:nombre|título|titulo)|que\\s+se\\s+llame|called|named|titled))?\\s*:?";
+    private static final String EN_PROYECTO = "(?:\\s+(?:en|para|del|al|in|for|to|under)\\s+(?:el\\s+|the\\s+)?(?:proyecto|project)\\s*:?\\s+(.+?))?";
+
+    private static final Pattern CREAR_PROYECTO = Pattern.compile(
+            "^" + CREAR + "\\s+" + ARTICULO + "(?:proyecto|project)" + LLAMADO + "\\s+(.+?)$", FLAGS);
+    private static final Pattern CREAR_TAREA = Pattern.compile(
+            "^" + CREAR + "\\s+" + ARTICULO + "(?:tarea|task)" + LLAMADO + "\\s+(.+?)" + EN_PROYECTO + "$", FLAGS);
+    private static final Pattern ELIMINAR_ELEMENTO = Pattern.compile(
+            "^" + ELIMINAR + "\\s+(?:el\\s+|la\\s+|the\\s+)?(proyecto|tarea|project|task)\\s*:?\\s+(.+?)$", FLAGS);
+    private static final Pattern MARCAR_ESTADO = Pattern.compile(
+            "^(?:marca|marcar|márcala|marcala|pon|poner|cambia|cambiar|actualiza|actualizar|mueve|mover|mark|set|move)"
+                    + "\\s+(?:el\\s+estado\\s+de\\s+)?(?:la\\s+|the\\s+)?(?:tarea\\s+|task\\s+)?(.+?)"
+                    + "\\s+(?:(?:como|a|as|to)\\s+)?(completada|completado|terminada|finalizada|hecha|pendiente|"
+                    + "en\\s+progreso|en\\s+curso|en\\s+proceso|done|completed?|finished|pending|to\\s*do|in\\s+progress)$", FLAGS);
+    private static final Pattern COMPLETAR_TAREA = Pattern.compile(
+            "^(?:completa|completar|termina|terminar|finaliza|finalizar|cierra|cerrar|complete|finish|close)"
+                    + "\\s+(?:la\\s+|the\\s+)?(?:tarea|task)\\s*:?\\s+(.+?)$", FLAGS);
+    private static final Pattern INICIAR_TAREA = Pattern.compile(
+            "^(?:empieza|empezar|inicia|iniciar|comienza|comenzar|start|begin)"
+                    + "\\s+(?:con\\s+)?(?:la\\s+|the\\s+)?(?:tarea|task)\\s*:?\\s+(.+?)$", FLAGS);
+
+    private static final Pattern CORTESIA = Pattern.compile(
+            "^(?:por\\s+favor|please)\\s*,?\\s+|\\s*,?\\s+(?:por\\s+favor|please)$", FLAGS);
+    // En un nombre sin comillas, estas palabras suelen indicar más datos (fechas, horas, descripción...)
+    private static final Pattern DATOS_EXTRA = Pattern.compile(
+            "\\b(?:con|que|hasta|desde|antes|después|despues|mañana|manana|hoy|fecha|descripción|descripcion|horas?"
+                    + "|with|due|by|until|before|after|tomorrow|today|date|description|hours?)\\b|\\d+\\s*h\\b", FLAGS);
+    // Varios nombres en un mismo comando ("elimina las tareas A y B")
+    private static final Pattern VARIOS = Pattern.compile("\\s(?:y|e|and)\\s|[,;]", FLAGS);
+    private static final Pattern COMILLAS = Pattern.compile("^[\"'«“‘](.+)[\"'»”’]$");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Counter locales;
+    private final Counter openAi;
+
+    InterpreteComandos(MeterRegistry meterRegistry) {
+        this.locales = Counter.builder("bitacora.chat.comandos").tag("interprete", "local")
+                .description("Comandos interpretados sin llamar a OpenAI").register(meterRegistry);
+        this.openAi = Counter.builder("bitacora.chat.comandos").tag("interprete", "openai")
+                .description("Comandos que necesitaron OpenAI").register(meterRegistry);
+    }
+
+    //JSON de la acción si el comando se reconoce con seguridad; vacío si debe decidirlo OpenAI
+    Optional<String> interpretar(String mensaje) {
+        Optional<Map<String, Object>> accion = reconocer(mensaje);
+        (accion.isPresent() ? locales : openAi).increment();
+        return accion.map(this::aJson);
+    }
+
+    private Optional<Map<String, Object>> reconocer(String mensaje) {
+        if (mensaje == null || mensaje.isBlank() || mensaje.strip().contains("\n")) return Optional.empty();
+        String texto = limpiar(mensaje);
+
+        return primero(
+                () -> coincidir(CREAR_PROYECTO, texto).flatMap(m ->
+                        nombre(m.group(1), true).map(InterpreteComandos::crearProyecto)),
+                () -> coincidir(CREAR_TAREA, texto).flatMap(m -> nombre(m.group(1), true).flatMap(titulo ->
+                        m.group(2) == null
+                                ? Optional.of(crearTarea(titulo, null))
+                                : nombre(m.group(2), false).map(proyecto -> crearTarea(titulo, proyecto)))),
+                () -> coincidir(ELIMINAR_ELEMENTO, texto).flatMap(m -> nombre(m.group(2), false).map(nombre ->
+                        eliminar(esProyecto(m.group(1)) ? "proyecto" : "tarea", nombre))),
+                () -> coincidir(MARCAR_ESTADO, texto).flatMap(m -> estado(m.group(2)).flatMap(estado ->
+                        nombre(m.group(1), false).map(titulo -> cambiarEstado(titulo, estado)))),
+                () -> coincidir(COMPLETAR_TAREA, texto).flatMap(m ->
+                        nombre(m.group(1), false).map(titulo -> cambiarEstado(titulo, EstadoTarea.COMPLETADA))),
+                () -> coincidir(INICIAR_TAREA, texto).flatMap(m ->
+                        nombre(m.group(1), false).map(titulo -> cambiarEstado(titulo, EstadoTarea.EN_PROGRESO))));
+    }
+
+    // ====== Acciones (mismo formato que devuelve OpenAI) ======
+
+    private static Map<String, Object> crearProyecto(String nombre) {
+        String ahora = ahora();
+        Map<String, Object> proyecto = new LinkedHashMap<>();
+        proyecto.put("nombre", nombre);
+        proyecto.put("descripcion", null);
+        proyecto.put("fechaInicio", ahora);
+        proyecto.put("fechaFin", null);
+        proyecto.put("duracionHoras", 0);
+        proyecto.put("fechaCreacion", ahora);
+        proyecto.put("tareas", List.of());
+        return accion("crear", "proyecto", nombre, "proyecto", proyecto);
+    }
+
+    private static Map<String, Object> crearTarea(String titulo, String nombreProyecto) {
+        String ahora = ahora();
+        Map<String, Object> tarea = new LinkedHashMap<>();
+        tarea.put("titulo", titulo);
+        tarea.put("descripcion", null);
+        tarea.put("estado", EstadoTarea.PENDIENTE.getEtiqueta());
+        tarea.put("fechaInicio", ahora);
+        tarea.put("fechaFin", null);
+        tarea.put("observaciones", null);
+        tarea.put("fechaCreacion", ahora);
+        tarea.put("proyecto", nombreProyecto == null ? null : Map.of("nombre", nombreProyecto));
+        return accion("crear", "tarea", titulo, "tarea", tarea);
+    }
+
+    private static Map<String, Object> eliminar(String tipo, String nombre) {
+        return accion("eliminar", tipo, nombre, null, null);
+    }
+
+    private static Map<String, Object> cambiarEstado(String titulo, EstadoTarea estado) {
+        return accion("actualizar", "tarea", titulo, "tarea", Map.of("estado", estado.getEtiqueta()));
+    }
+
+    private static Map<String, Object> accion(String accion, String tipo, String nombre, String clave, Object datos) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("accion", accion);
+        json.put("tipo", tipo);
+        json.put("nombre", nombre);
+        if (clave != null) json.put(clave, datos);
+        return json;
+    }
+
+    // ====== Auxiliares ======
+
+    private static String limpiar(String mensaje) {
+        String texto = mensaje.strip().replaceAll("\\s+", " ").replaceAll("[.!¡¿?]+$", "").strip();
+        return CORTESIA.matcher(texto).replaceAll("").strip();
+    }
+
+    /**
+     * Nombre de proyecto o tarea: entre comillas se acepta tal cual; sin comillas se rechaza
+     * si parece traer varios nombres o (al crear) más datos que el nombre.
+     */
+    private static Optional<String> nombre(String crudo, boolean alCrear) {
+        String nombre = crudo.strip();
+        Matcher entreComillas = COMILLAS.matcher(nombre);
+        if (entreComillas.matches()) {
+            nombre = entreComillas.group(1).strip();
+        } else if (VARIOS.matcher(nombre).find() || (alCrear && DATOS_EXTRA.matcher(nombre).find())
+                || nombre.matches(".*[\"'«»“”].*")) {
+            return Optional.empty();
+        }
+        return nombre.isEmpty() || nombre.length() > LARGO_MAXIMO_NOMBRE ? Optional.empty() : Optional.of(nombre);
+    }
+
+    private static Optional<EstadoTarea> estado(String texto) {
+        String valor = texto.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (valor.equals("complete") || valor.equals("finished")) return Optional.of(EstadoTarea.COMPLETADA);
+        try {
+            return Optional.ofNullable(EstadoTarea.desdeTexto(valor));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean esProyecto(String tipo) {
+        return tipo.equalsIgnoreCase("proyecto") || tipo.equalsIgnoreCase("project");
+    }
+
+    private static Optional<Matcher> coincidir(Pattern patron, String texto) {
+        Matcher matcher = patron.matcher(texto);
+        return matcher.matches() ? Optional.of(matcher) : Optional.empty();
+    }
+
+    @SafeVarargs
+    private static <T> Optional<T> primero(Supplier<Optional<T>>... intentos) {
+        for (var intento : intentos) {
+            Optional<T> resultado = intento.get();
+            if (resultado.isPresent()) return resultado;
+        }
+        return Optional.empty();
+    }
+
+    private static String ahora() {
+        return LocalDateTime.now().withNano(0).toString();
+    }
+
+    private String aJson(Map<String, Object> accion) {
+        try {
+            return objectMapper.writeValueAsString(accion);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
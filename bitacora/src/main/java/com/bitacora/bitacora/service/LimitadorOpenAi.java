@@ -0,0 +1,373 @@
+package com.bitacora.bitacora.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Limita las llamadas a OpenAI del lado del cliente para no gastar cuota en peticiones que
+ * el proveedor va a rechazar con 429.
+ * 1️⃣ Dos cubos de fichas por minuto: peticiones (bitacora.openai.limite.peticiones-minuto) y
+ *    tokens (tokens-minuto), estimados con el largo de los mensajes más max_tokens y corregidos
+ *    con el "usage" real de la respuesta. Se ajustan a las cabeceras x-ratelimit-remaining-* de OpenAI.
+ * 2️⃣ Concurrencia adaptativa (AIMD): cada respuesta correcta sube el límite de llamadas simultáneas
+ *    de a poco (+1 por cada "límite" respuestas); un 429 lo baja a la mitad, o a una menos de las que
+ *    había en curso si eso es menor (una sola vez por tanda: los 429 de llamadas que empezaron
+ *    antes del último recorte no vuelven a recortar).
+ * 3️⃣ Ante un 429 se espera lo que indique retry-after-ms / Retry-After / x-ratelimit-reset-*
+ *    (o un backoff exponencial con jitter) y se reintenta hasta "reintentos" veces. La pausa vale
+ *    para todas las llamadas, no solo para la rechazada, incluidas las que ya esperaban un lugar
+ *    de concurrencia. Un 429 por cuota agotada no se reintenta.
+ * 4️⃣ Si para empezar hubiera que esperar más de espera-maxima-ms, se rechaza enseguida con 429.
+ *
+ * Métricas: bitacora.openai.limite.concurrencia, bitacora.openai.limite.rechazos (429 recibidos)
+ * y bitacora.openai.limite.reintentos.
+ */
+@Component
+class LimitadorOpenAi {
+
+    private static final Logger log = LoggerFactory.getLogger(LimitadorOpenAi.class);
+
+    private static final Pattern DURACION = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+    private static final int CARACTERES_POR_TOKEN = 4;
+
+    private final CuboFichas peticiones;
+    private final CuboFichas tokens;
+    private final ConcurrenciaAdaptativa concurrencia;
+    private final int reintentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final Counter rechazos;
+    private final Counter reintentosRealizados;
+
+    LimitadorOpenAi(MeterRegistry meterRegistry,
+                    @Value("${bitacora.openai.limite.peticiones-minuto:500}") long peticionesMinuto,
+                    @Value("${bitacora.openai.limite.tokens-minuto:200000}") long tokensMinuto,
+                    @Value("${bitacora.openai.limite.concurrencia-inicial:4}") int concurrenciaInicial,
+                    @Value("${bitacora.openai.limite.concurrencia-maxima:${bitacora.openai.max-conexiones:20}}") int concurrenciaMaxima,
+                    @Value("${bitacora.openai.limite.reintentos:4}") int reintentos,
+                    @Value("${bitacora.openai.limite.espera-base-ms:500}") long esperaBaseMs,
+                    @Value("${bitacora.openai.limite.espera-maxima-ms:30000}") long esperaMaximaMs) {
+        this.peticiones = new CuboFichas(peticionesMinuto);
+        this.tokens = new CuboFichas(tokensMinuto);
+        this.concurrencia = new ConcurrenciaAdaptativa(concurrenciaInicial, concurrenciaMaxima);
+        this.reintentos = reintentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+
+        Gauge.builder("bitacora.openai.limite.concurrencia", concurrencia, ConcurrenciaAdaptativa::limite)
+                .description("Llamadas simultáneas a OpenAI permitidas ahora (AIMD)")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("bitacora.openai.limite.rechazos")
+                .description("Respuestas 429 recibidas de OpenAI")
+                .register(meterRegistry);
+        this.reintentosRealizados = Counter.builder("bitacora.openai.limite.reintentos")
+                .description("Llamadas a OpenAI repetidas tras un 429")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta la llamada respetando los límites; "cuerpo" es el JSON que se envía (para estimar tokens).
+     * Lanza HttpClientErrorException.TooManyRequests si se agotan los reintentos o la espera máxima.
+     */
+    <T> ResponseEntity<T> ejecutar(Map<String, Object> cuerpo, LlamadaOpenAi<T> llamada) {
+        long estimados = estimarTokens(cuerpo);
+        for (int intento = 0; ; intento++) {
+            long tanda = esperarTurno(estimados);
+            try {
+                ResponseEntity<T> respuesta = llamada.ejecutar();
+                concurrencia.exito();
+                sincronizar(respuesta.getHeaders());
+                long usados = tokensUsados(respuesta.getBody());
+                if (usados > 0) tokens.devolver(estimados - usados);
+                return respuesta;
+            } catch (HttpClientErrorException.TooManyRequests e) {
+                rechazos.increment();
+                concurrencia.rechazo(tanda);
+                if (intento >= reintentos || e.getResponseBodyAsString().contains("insufficient_quota")) {
+                    throw e;
+                }
+                long espera = esperaIndicada(e.getResponseHeaders()).orElse(backoff(intento));
+                peticiones.pausar(espera);
+                tokens.pausar(espera);
+                concurrencia.pausar(espera);
+                reintentosRealizados.increment();
+                log.debug("OpenAI respondió 429; reintento {} en {} ms", intento + 1, espera);
+            } finally {
+                concurrencia.liberar();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface LlamadaOpenAi<T> {
+        ResponseEntity<T> ejecutar();
+    }
+
+    //Reserva una petición y los tokens estimados, espera lo necesario y toma un lugar de concurrencia.
+    //Devuelve la tanda en la que empezó la llamada (ver ConcurrenciaAdaptativa).
+    //Si no llega a empezar, devuelve lo reservado: la llamada no se hizo
+    private long esperarTurno(long estimados) {
+        long espera = Math.max(peticiones.reservar(1), tokens.reservar(estimados));
+        if (espera > esperaMaximaMs) {
+            throw cancelarReserva(estimados);
+        }
+        try {
+            if (espera > 0) Thread.sleep(espera);
+            long tanda = concurrencia.adquirir(esperaMaximaMs);
+            if (tanda < 0) throw cancelarReserva(estimados);
+            return tanda;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cancelarReserva(estimados);
+        }
+    }
+
+    private HttpClientErrorException cancelarReserva(long estimados) {
+        peticiones.devolver(1);
+        tokens.devolver(estimados);
+        return rechazoLocal();
+    }
+
+    private static HttpClientErrorException rechazoLocal() {
+        return HttpClientErrorException.create("Límite de llamadas a OpenAI alcanzado (local)",
+                HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, null, null);
+    }
+
+    private long backoff(int intento) {
+        long tope = esperaBaseMs << Math.min(intento, 10);
+        return tope / 2 + ThreadLocalRandom.current().nextLong(tope / 2 + 1);
+    }
+
+    // ====== Cabeceras de OpenAI ======
+
+    private void sincronizar(HttpHeaders cabeceras) {
+        numero(cabeceras.getFirst("x-ratelimit-remaining-requests")).ifPresent(peticiones::limitarDisponibles);
+        numero(cabeceras.getFirst("x-ratelimit-remaining-tokens")).ifPresent(tokens::limitarDisponibles);
+    }
+
+    //retry-after-ms, Retry-After (segundos) o el mayor de los x-ratelimit-reset-*
+    static OptionalLong esperaIndicada(HttpHeaders cabeceras) {
+        if (cabeceras == null) return OptionalLong.empty();
+        OptionalLong ms = numero(cabeceras.getFirst("retry-after-ms"));
+        if (ms.isPresent()) return ms;
+        String retryAfter = cabeceras.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null && retryAfter.strip().matches("\\d+(\\.\\d+)?")) {
+            return OptionalLong.of((long) (Double.parseDouble(retryAfter.strip()) * 1000));
+        }
+        long reinicio = Math.max(duracionMs(cabeceras.getFirst("x-ratelimit-reset-requests")),
+                duracionMs(cabeceras.getFirst("x-ratelimit-reset-tokens")));
+        return reinicio > 0 ? OptionalLong.of(reinicio) : OptionalLong.empty();
+    }
+
+    //"1s", "6m0s", "120ms", "1m30.5s" → milisegundos (0 si no hay)
+    static long duracionMs(String texto) {
+        if (texto == null) return 0;
+        long total = 0;
+        Matcher parte = DURACION.matcher(texto);
+        while (parte.find()) {
+            double valor = Double.parseDouble(parte.group(1));
+            total += (long) switch (parte.group(2)) {
+                case "ms" -> valor;
+                case "s" -> valor * 1000;
+                case "m" -> valor * 60_000;
+                default -> valor * 3_600_000;
+            };
+        }
+        return total;
+    }
+
+    private static OptionalLong numero(String texto) {
+        if (texto == null || !texto.strip().matches("\\d+")) return OptionalLong.empty();
+        return OptionalLong.of(Long.parseLong(texto.strip()));
+    }
+
+    // ====== Tokens ======
+
+    //Tokens de los mensajes que se envían (unos 4 caracteres por token) más los de la respuesta pedidos
+    static long estimarTokens(Map<String, Object> cuerpo) {
+        long salida = cuerpo.get("max_tokens") instanceof Number n ? n.longValue() : 0;
+        return caracteresPrompt(cuerpo) / CARACTERES_POR_TOKEN + salida;
+    }
+
+    static long estimarTokensPrompt(Map<String, Object> cuerpo) {
+        return caracteresPrompt(cuerpo) / CARACTERES_POR_TOKEN;
+    }
+
+    static long caracteresPrompt(Map<String, Object> cuerpo) {
+        long caracteres = 0;
+        if (cuerpo.get("messages") instanceof List<?> mensajes) {
+            for (Object mensaje : mensajes) {
+                if (mensaje instanceof Map<?, ?> m && m.get("content") instanceof String contenido) {
+                    caracteres += contenido.length();
+                }
+            }
+        }
+        return caracteres;
+    }
+
+    private static long tokensUsados(Object cuerpo) {
+        if (cuerpo instanceof Map<?, ?> respuesta && respuesta.get("usage") instanceof Map<?, ?> uso
+                && uso.get("total_tokens") instanceof Number total) {
+            return total.longValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Cubo de fichas que se rellena de forma continua hasta "porMinuto". reservar descuenta aunque
+     * no alcance (queda en negativo) y devuelve cuánto esperar: así las llamadas salen en orden y
+     * espaciadas, sin que cada una tenga que volver a intentar.
+     */
+    static final class CuboFichas {
+
+        private final long capacidad;
+        private final double porMs;
+        private double disponibles;
+        private long actualizadoMs;
+        private long pausadoHastaMs;
+
+        CuboFichas(long porMinuto) {
+            this.capacidad = Math.max(1, porMinuto);
+            this.porMs = capacidad / 60_000.0;
+            this.disponibles = capacidad;
+            this.actualizadoMs = System.currentTimeMillis();
+        }
+
+        synchronized long reservar(long cantidad) {
+            long ahora = rellenar();
+            disponibles -= Math.min(cantidad, capacidad);
+            long esperaFichas = disponibles >= 0 ? 0 : (long) Math.ceil(-disponibles / porMs);
+            return Math.max(esperaFichas, pausadoHastaMs - ahora);
+        }
+
+        synchronized void devolver(long cantidad) {
+            rellenar();
+            disponibles = Math.min(capacidad, disponibles + cantidad);
+        }
+
+        synchronized void pausar(long ms) {
+            pausadoHastaMs = Math.max(pausadoHastaMs, System.currentTimeMillis() + ms);
+        }
+
+        //El proveedor informa cuántas quedan: nunca suponer más que eso
+        synchronized void limitarDisponibles(long restantes) {
+            rellenar();
+            disponibles = Math.min(disponibles, restantes);
+        }
+
+        private long rellenar() {
+            long ahora = System.currentTimeMillis();
+            disponibles = Math.min(capacidad, disponibles + (ahora - actualizadoMs) * porMs);
+            actualizadoMs = ahora;
+            return ahora;
+        }
+    }
+
+    // Límite de llamadas simultáneas que sube de a poco con cada éxito y baja con un 429 (a la mitad, o a una
+    // menos de las que había en curso). Cada recorte abre una "tanda" nueva: solo los 429 de llamadas de la
+    // tanda actual vuelven a recortar. Durante una pausa por 429 no se entrega ningún lugar
+    static final class ConcurrenciaAdaptativa {
+
+        private final ReentrantLock cerrojo = new ReentrantLock();
+        private final Condition lugarLibre = cerrojo.newCondition();
+        private final int maximo;
+        private double limite;
+        private int enCurso;
+        private long tanda;
+        private long pausadoHastaNs = System.nanoTime();
+
+        ConcurrenciaAdaptativa(int inicial, int maximo) {
+            this.maximo = Math.max(1, maximo);
+            this.limite = Math.max(1, Math.min(inicial, this.maximo));
+        }
+
+        //Devuelve la tanda actual, o -1 si no hubo lugar a tiempo
+        long adquirir(long esperaMaximaMs) throws InterruptedException {
+            cerrojo.lock();
+            try {
+                long restanteNs = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+                while (true) {
+                    long pausaNs = pausadoHastaNs - System.nanoTime();
+                    if (pausaNs <= 0 && enCurso < (int) limite) break;
+                    if (restanteNs <= 0) return -1;
+                    long esperaNs = pausaNs > 0 ? Math.min(pausaNs, restanteNs) : restanteNs;
+                    restanteNs -= esperaNs - lugarLibre.awaitNanos(esperaNs);
+                }
+                enCurso++;
+                return tanda;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void liberar() {
+            cerrojo.lock();
+            try {
+                enCurso--;
+                lugarLibre.signalAll();
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void exito() {
+            cerrojo.lock();
+            try {
+                limite = Math.min(maximo, limite + 1.0 / limite);
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void rechazo(long tandaLlamada) {
+            cerrojo.lock();
+            try {
+                if (tandaLlamada == tanda) {
+                    // enCurso incluye la llamada rechazada: el proveedor no aceptó tantas a la vez
+                    limite = Math.max(1, Math.min(limite / 2, enCurso - 1));
+                    tanda++;
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        void pausar(long ms) {
+            cerrojo.lock();
+            try {
+                long hastaNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ms);
+                if (hastaNs - pausadoHastaNs > 0) pausadoHastaNs = hastaNs;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+
+        double limite() {
+            cerrojo.lock();
+            try {
+                return limite;
+            } finally {
+                cerrojo.unlock();
+            }
+        }
+    }
+}
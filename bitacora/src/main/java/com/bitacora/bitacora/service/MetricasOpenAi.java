@@ -0,0 +1,161 @@
+package com.bitacora.bitacora.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de cada llamada a OpenAI por tipo de prompt ("comando", "reunion", "reunion-fragmento"),
+ * para saber qué prompts conviene achicar.
+ * 1️⃣ Antes de enviar: tamaño del prompt en caracteres y tokens estimados (unos 4 caracteres por token),
+ *    una vez por prompt aunque el limitador lo reintente.
+ * 2️⃣ Con la respuesta ya leída: tokens de prompt y de respuesta según el bloque "usage" de OpenAI,
+ *    también por la acción que devolvió el modelo (etiquetas accion y tipoAccion, los campos "accion"
+ *    y "tipo" del JSON). Solo toman valores conocidos: crear/actualizar/eliminar y proyecto/tarea,
+ *    "otra" para cualquier otro, "varias" si una reunión mezcla varios y "desconocido" si no es JSON.
+ * 3️⃣ Latencia de cada intento (sin contar la espera del limitador), por resultado: ok, limitada (429) o error.
+ * 4️⃣ Respuestas que no se pudieron interpretar como JSON (accion y tipoAccion "desconocido").
+ *
+ * Métricas (todas con la etiqueta tipo): bitacora.openai.prompt.caracteres, bitacora.openai.tokens.estimados,
+ * bitacora.openai.tokens.prompt, bitacora.openai.tokens.respuesta, bitacora.openai.latencia
+ * y bitacora.openai.respuestas.invalidas. Las distribuciones publican histograma para percentiles.
+ */
+@Component
+class MetricasOpenAi {
+
+    static final String COMANDO = "comando";
+    static final String REUNION = "reunion";
+    static final String REUNION_FRAGMENTO = "reunion-fragmento";
+
+    static final String DESCONOCIDO = "desconocido";
+    private static final String OTRA = "otra";
+    private static final String VARIAS = "varias";
+    private static final Set<String> ACCIONES = Set.of("crear", "actualizar", "eliminar");
+    private static final Set<String> TIPOS_ACCION = Set.of("proyecto", "tarea");
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    MetricasOpenAi(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    //Tamaño del prompt; se llama una vez antes del limitador para que los reintentos no lo cuenten de nuevo
+    void registrarPrompt(String tipo, Map<String, Object> cuerpo) {
+        Tags etiquetas = Tags.of("tipo", tipo);
+        distribucion("bitacora.openai.prompt.caracteres", "Caracteres de los mensajes enviados", "caracteres", etiquetas)
+                .record(LimitadorOpenAi.caracteresPrompt(cuerpo));
+        distribucion("bitacora.openai.tokens.estimados", "Tokens de prompt estimados antes de enviar", "tokens", etiquetas)
+                .record(LimitadorOpenAi.estimarTokensPrompt(cuerpo));
+    }
+
+    //Mide un intento de llamada; se usa dentro del limitador para que cada reintento cuente por separado
+    <T> ResponseEntity<T> medir(String tipo, LimitadorOpenAi.LlamadaOpenAi<T> llamada) {
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            ResponseEntity<T> respuesta = llamada.ejecutar();
+            resultado = "ok";
+            return respuesta;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            resultado = "limitada";
+            throw e;
+        } finally {
+            Timer.builder("bitacora.openai.latencia")
+                    .description("Duración de cada llamada a OpenAI")
+                    .tag("tipo", tipo)
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void respuestaInvalida(String tipo) {
+        Counter.builder("bitacora.openai.respuestas.invalidas")
+                .description("Respuestas de OpenAI que no son JSON válido")
+                .tag("tipo", tipo)
+                .tag("accion", DESCONOCIDO)
+                .tag("tipoAccion", DESCONOCIDO)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Tokens que informa OpenAI en "cuerpo" (la respuesta completa), por la acción de "contenido"
+     * (el JSON que devolvió el modelo, sin las marcas de markdown). Se llama una vez por respuesta
+     * correcta, fuera del limitador, porque la acción recién se conoce al leer el contenido.
+     */
+    void registrarUso(String tipo, Object cuerpo, String contenido) {
+        if (!(cuerpo instanceof Map<?, ?> respuesta) || !(respuesta.get("usage") instanceof Map<?, ?> uso)) return;
+        Accion accion = accion(contenido);
+        Tags etiquetas = Tags.of("tipo", tipo, "accion", accion.accion(), "tipoAccion", accion.tipo());
+        if (uso.get("prompt_tokens") instanceof Number prompt) {
+            distribucion("bitacora.openai.tokens.prompt", "Tokens de prompt según OpenAI", "tokens", etiquetas)
+                    .record(prompt.doubleValue());
+        }
+        if (uso.get("completion_tokens") instanceof Number completado) {
+            distribucion("bitacora.openai.tokens.respuesta", "Tokens de respuesta según OpenAI", "tokens", etiquetas)
+                    .record(completado.doubleValue());
+        }
+    }
+
+    private record Accion(String accion, String tipo) {
+        static final Accion DESCONOCIDA = new Accion(DESCONOCIDO, DESCONOCIDO);
+    }
+
+    //"accion" y "tipo" del JSON: un objeto (comando) o un array de acciones (reunión)
+    private Accion accion(String contenido) {
+        JsonNode arbol;
+        try {
+            arbol = objectMapper.readTree(contenido);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Accion.DESCONOCIDA;
+        }
+        if (arbol == null || !(arbol.isObject() || arbol.isArray())) {
+            return Accion.DESCONOCIDA;
+        }
+        Set<String> acciones = new TreeSet<>();
+        Set<String> tipos = new TreeSet<>();
+        for (JsonNode nodo : arbol.isArray() ? arbol : List.of(arbol)) {
+            acciones.add(valorConocido(nodo.path("accion").asText(), ACCIONES));
+            tipos.add(valorConocido(nodo.path("tipo").asText(), TIPOS_ACCION));
+        }
+        return new Accion(resumir(acciones), resumir(tipos));
+    }
+
+    //Solo valores conocidos: la etiqueta no debe crecer con lo que invente el modelo
+    private static String valorConocido(String valor, Set<String> conocidos) {
+        String normalizado = valor.strip().toLowerCase(Locale.ROOT);
+        return conocidos.contains(normalizado) ? normalizado : OTRA;
+    }
+
+    private static String resumir(Set<String> valores) {
+        if (valores.isEmpty()) return DESCONOCIDO;
+        return valores.size() == 1 ? valores.iterator().next() : VARIAS;
+    }
+
+    private DistributionSummary distribucion(String nombre, String descripcion, String unidad, Tags etiquetas) {
+        return DistributionSummary.builder(nombre)
+                .description(descripcion)
+                .baseUnit(unidad)
+                .tags(etiquetas)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,60 +1,203 @@
 package com.bitacora.bitacora.service;
 
+import com.bitacora.bitacora.config.CacheConfig;
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.dto.ProyectoResumen;
+import com.bitacora.bitacora.dto.ReporteProyecto;
+import com.bitacora.bitacora.dto.VersionColeccion;
+import com.bitacora.bitacora.dto.VersionFila;
 import com.bitacora.bitacora.model.Proyecto;
 import com.bitacora.bitacora.model.Tarea;
 import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 public class ProyectoService {
 
     private final ProyectoRepository proyectoRepository;
+    private final ReintentoOptimista reintento;
+    private final BusquedaService busquedaService;
 
-    public ProyectoService(ProyectoRepository proyectoRepository) {
+    public ProyectoService(ProyectoRepository proyectoRepository, ReintentoOptimista reintento,
+                           BusquedaService busquedaService) {
         this.proyectoRepository = proyectoRepository;
+        this.reintento = reintento;
+        this.busquedaService = busquedaService;
     }
 
+    @Transactional(readOnly = true)
     public List<Proyecto> obtenerTodos() {
-        return proyectoRepository.findAll();
+        return proyectoRepository.buscarTodosConTareas();
     }
 
+    //Página de proyectos ordenada por id, empezando después del cursor recibido
+    //Las tareas de toda la página se cargan con una segunda consulta, no una por proyecto
+    @Transactional(readOnly = true)
+    public Pagina<Proyecto> obtenerPagina(String cursor, Integer tamano) {
+        Pagina<Proyecto> pagina = buscarPagina(cursor, tamano);
+        if (!pagina.items().isEmpty()) {
+            proyectoRepository.cargarTareas(pagina.items().stream().map(Proyecto::getId).toList());
+        }
+        return pagina;
+    }
+
+    //Vistas resumidas: sin descripción ni tareas (no se carga la colección de tareas)
+    @Transactional(readOnly = true)
+    public List<ProyectoResumen> obtenerResumenes() {
+        return proyectoRepository.findAll().stream().map(ProyectoResumen::de).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<ProyectoResumen> obtenerPaginaResumen(String cursor, Integer tamano) {
+        return buscarPagina(cursor, tamano).map(ProyectoResumen::de);
+    }
+
+    //Totales por proyecto (tareas, completadas, horas y progreso) calculados en la base de datos
+    @Transactional(readOnly = true)
+    public List<ReporteProyecto> obtenerReporte() {
+        return proyectoRepository.obtenerReporte();
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Proyecto> obtenerPorId(Long id) {
         return proyectoRepository.findById(id);
     }
 
-    //Guarda el proyecto calculando la duración total automáticamente
+    //Lee en la base principal (transacción de escritura), nunca en la réplica: para lecturas que deciden una escritura
+    @Transactional
+    public Optional<Proyecto> obtenerParaModificar(Long id) {
+        return proyectoRepository.findById(id);
+    }
+
+    // ====== Versiones para los ETag (no cargan entidades) ======
+
+    @Transactional(readOnly = true)
+    public Optional<Long> obtenerVersion(Long id) {
+        return proyectoRepository.buscarVersion(id);
+    }
+
+    //Id y versión de las mismas filas que devolvería obtenerPagina con esos parámetros
+    @Transactional(readOnly = true)
+    public Pagina<VersionFila> obtenerVersionesPagina(String cursor, Integer tamano) {
+        int tamanoPagina = Pagina.limitarTamano(tamano);
+        List<VersionFila> filas = proyectoRepository.findByIdGreaterThanOrderByIdAsc(
+                Pagina.decodificarCursor(cursor), Limit.of(tamanoPagina + 1), VersionFila.class);
+        return Pagina.de(filas, tamanoPagina, VersionFila::getId);
+    }
+
+    //También sirve para el reporte: cualquier cambio en un proyecto o sus tareas cambia su versión
+    @Transactional(readOnly = true)
+    public VersionColeccion obtenerVersionColeccion() {
+        return proyectoRepository.obtenerVersionColeccion();
+    }
+
+    //Id del primer proyecto con ese nombre (sin distinguir mayúsculas); se guarda en caché si existe
+    @Cacheable(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, condition = "#nombre != null",
+            key = "T(com.bitacora.bitacora.util.NormalizadorTexto).normalizar(#nombre)", unless = "#result == null")
+    public Optional<Long> buscarIdPorNombre(String nombre) {
+        if (nombre == null) return Optional.empty();
+        return proyectoRepository.buscarIdsPorNombreNormalizado(NormalizadorTexto.normalizar(nombre), Limit.of(1))
+                .stream().findFirst();
+    }
+
+    //Guarda el proyecto; los totales de horas y tareas se calculan al crearlo (ver Proyecto.antesDeInsertar)
+    //Las tareas que vienen dentro (guardadas en cascada) se agregan al índice de búsqueda
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, allEntries = true)
     public Proyecto guardar(Proyecto proyecto) {
-        recalcularDuracion(proyecto);
-        return proyectoRepository.save(proyecto);
+        vincularTareas(proyecto);
+        Proyecto guardado = proyectoRepository.save(proyecto);
+        if (guardado.getTareas() != null && Hibernate.isInitialized(guardado.getTareas())) {
+            busquedaService.indexar(guardado.getTareas());
+        }
+        return guardado;
+    }
+
+    /**
+     * Actualiza solo los campos básicos informados (nombre, descripción y fechas), sin tocar la lista de tareas.
+     * El UPDATE escribe también los totales leídos, así que lleva control de @Version: si una tarea
+     * cambió los totales en medio, se vuelve a leer el proyecto y se repite (ver ReintentoOptimista).
+     */
+    @CacheEvict(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, allEntries = true)
+    public Proyecto actualizar(Long id, Proyecto cambios) {
+        return modificar(id, proyecto -> {
+            if (cambios.getNombre() != null) proyecto.setNombre(cambios.getNombre());
+            if (cambios.getDescripcion() != null) proyecto.setDescripcion(cambios.getDescripcion());
+            if (cambios.getFechaInicio() != null) proyecto.setFechaInicio(cambios.getFechaInicio());
+            if (cambios.getFechaFin() != null) proyecto.setFechaFin(cambios.getFechaFin());
+
+            //Recalcular duración si tiene fechas válidas
+            if (proyecto.getFechaInicio() != null && proyecto.getFechaFin() != null) {
+                long minutos = Duration.between(proyecto.getFechaInicio(), proyecto.getFechaFin()).toMinutes();
+                proyecto.setDuracionHoras(minutos / 60.0);
+            }
+        });
+    }
+
+    /**
+     * Lee el proyecto en la base principal, le aplica los cambios y lo guarda en la misma transacción,
+     * con reintento si una tarea cambió sus totales en medio (ver ReintentoOptimista).
+     * Como puede ejecutarse más de una vez, los cambios deben asignar valores, no acumularlos.
+     */
+    @CacheEvict(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, allEntries = true)
+    public Proyecto modificar(Long id, Consumer<Proyecto> cambios) {
+        return reintento.ejecutar(() -> {
+            Proyecto proyecto = proyectoRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Proyecto no encontrado con ID: " + id));
+            cambios.accept(proyecto);
+            return proyectoRepository.save(proyecto);
+        });
     }
 
+    //Al eliminar el proyecto se eliminan también sus tareas (cascade), por eso se vacían ambas cachés
+    //El borrado comprueba la versión: si una tarea cambió el proyecto en medio, se repite
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.PROYECTO_ID_POR_NOMBRE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    })
     public void eliminar(Long id) {
-        proyectoRepository.deleteById(id);
+        reintento.ejecutar(() -> {
+            busquedaService.quitarProyectoDelIndice(id);
+            proyectoRepository.deleteById(id);
+            return null;
+        });
     }
 
     /**
-     - Recalcula la duración total del proyecto.
-     - Si tiene tareas asociadas, suma las horas de todas.
-     - Si tiene fechas de inicio y fin, usa esas fechas.
+     * Recalcula desde cero horas, tareas totales y completadas de todos los proyectos.
+     * Los totales se mantienen de forma incremental; esto solo corrige posibles desajustes.
      */
+    @Transactional
+    public int reconstruirTotales() {
+        int proyectos = proyectoRepository.reconstruirTotales();
+        proyectoRepository.reconstruirDuraciones();
+        return proyectos;
+    }
 
-    private void recalcularDuracion(Proyecto proyecto) {
-        double totalHoras = 0.0;
+    private Pagina<Proyecto> buscarPagina(String cursor, Integer tamano) {
+        int tamanoPagina = Pagina.limitarTamano(tamano);
+        List<Proyecto> filas = proyectoRepository.findByIdGreaterThanOrderByIdAsc(
+                Pagina.decodificarCursor(cursor), Limit.of(tamanoPagina + 1), Proyecto.class);
+        return Pagina.de(filas, tamanoPagina, Proyecto::getId);
+    }
 
-        if (proyecto.getTareas() != null && !proyecto.getTareas().isEmpty()) {
+    //Asegura la relación bidireccional de las tareas recibidas, sin forzar la carga de la colección
+    private void vincularTareas(Proyecto proyecto) {
+        if (proyecto.getTareas() != null && Hibernate.isInitialized(proyecto.getTareas())) {
             for (Tarea tarea : proyecto.getTareas()) {
-                // Aseguramos la relación bidireccional
                 tarea.setProyecto(proyecto);
-
-                if (tarea.getDuracionHoras() != null) {
-                    totalHoras += tarea.getDuracionHoras();
-                }
             }
         }
-
-        //Si no hay tareas, dejamos la duración en null (no en 0)
-        proyecto.setDuracionHoras(totalHoras > 0 ? totalHoras : null);
     }
 }
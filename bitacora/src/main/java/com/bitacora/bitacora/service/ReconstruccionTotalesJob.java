@@ -0,0 +1,29 @@
+package com.bitacora.bitacora.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que reconcilia los totales desnormalizados de los proyectos
+ * (horas, tareas totales y completadas). Por defecto corre cada noche a las 3:00;
+ * se puede cambiar con bitacora.totales.cron ("-" la desactiva).
+ */
+@Component
+public class ReconstruccionTotalesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconstruccionTotalesJob.class);
+
+    private final ProyectoService proyectoService;
+
+    public ReconstruccionTotalesJob(ProyectoService proyectoService) {
+        this.proyectoService = proyectoService;
+    }
+
+    @Scheduled(cron = "${bitacora.totales.cron:0 0 3 * * *}")
+    public void reconstruirTotales() {
+        int proyectos = proyectoService.reconstruirTotales();
+        log.info("Totales reconstruidos para {} proyectos", proyectos);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bitacora.bitacora.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una lectura-modificación-escritura en su propia transacción y, si falla por un
+ * conflicto de concurrencia (otra escritura cambió la versión de la fila entre la lectura y
+ * el UPDATE, o la base de datos eligió esta transacción como víctima de un deadlock), la
+ * repite desde el principio con datos frescos.
+ * Los intentos están acotados (bitacora.concurrencia.intentos) y entre uno y otro se espera
+ * un poco más cada vez, con una parte aleatoria para que los hilos en conflicto se separen.
+ * Si ya hay una transacción en curso se ejecuta una sola vez: reintentar le toca a quien la abrió.
+ */
+@Component
+class ReintentoOptimista {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int intentos;
+    private final long esperaMs;
+    private final Counter reintentos;
+
+    ReintentoOptimista(TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${bitacora.concurrencia.intentos:5}") int intentos,
+                       @Value("${bitacora.concurrencia.espera-ms:10}") long esperaMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.intentos = Math.max(1, intentos);
+        this.esperaMs = Math.max(0, esperaMs);
+        this.reintentos = Counter.builder("bitacora.concurrencia.reintentos")
+                .description("Escrituras repetidas por conflictos de concurrencia")
+                .register(meterRegistry);
+    }
+
+    <T> T ejecutar(Supplier<T> operacion) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operacion.get();
+        }
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(estado -> operacion.get());
+            } catch (ConcurrencyFailureException e) {
+                if (intento >= intentos) {
+                    throw e;
+                }
+                reintentos.increment();
+                esperar(intento, e);
+            }
+        }
+    }
+
+    private void esperar(int intento, ConcurrencyFailureException conflicto) {
+        if (esperaMs == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(esperaMs * intento + ThreadLocalRandom.current().nextLong(esperaMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflicto;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bitacora.bitacora.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Une las solicitudes de chat idénticas que llegan a la vez (reintentos del frontend, doble envío)
+ * para que se llame a OpenAI y se ejecuten las acciones una sola vez.
+ * 1️⃣ La clave es un hash del mensaje normalizado (sin espacios sobrantes).
+ * 2️⃣ La primera solicitud hace el trabajo; las demás con la misma clave esperan y reciben el
+ *    mismo resultado (o la misma excepción).
+ * 3️⃣ Tras terminar bien, el resultado se sigue entregando durante bitacora.chat.unificar.ventana-ms
+ *    a quien repita el mensaje; si falló, se olvida enseguida para que se pueda reintentar.
+ *
+ * Métrica: bitacora.chat.solicitudes.unificadas (solicitudes que no repitieron el trabajo).
+ */
+@Component
+class SolicitudesEnCurso {
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> enCurso = new ConcurrentHashMap<>();
+    private final long ventanaMs;
+    private final Counter unificadas;
+
+    SolicitudesEnCurso(MeterRegistry meterRegistry,
+                       @Value("${bitacora.chat.unificar.ventana-ms:2000}") long ventanaMs) {
+        this.ventanaMs = ventanaMs;
+        this.unificadas = Counter.builder("bitacora.chat.solicitudes.unificadas")
+                .description("Solicitudes de chat resueltas con el resultado de otra idéntica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta "trabajo" si no hay otra solicitud con el mismo mensaje en curso (o recién terminada);
+     * si la hay, llama a "alUnirse" y espera su resultado.
+     */
+    String ejecutar(String mensaje, Supplier<String> trabajo, Runnable alUnirse) {
+        String clave = clave(mensaje);
+        CompletableFuture<String> propia = new CompletableFuture<>();
+        CompletableFuture<String> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            unificadas.increment();
+            alUnirse.run();
+            return esperar(existente);
+        }
+
+        try {
+            String resultado = trabajo.get();
+            propia.complete(resultado);
+            olvidarDespuesDeLaVentana(clave, propia);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            enCurso.remove(clave, propia);
+            propia.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void olvidarDespuesDeLaVentana(String clave, CompletableFuture<String> propia) {
+        if (ventanaMs <= 0) {
+            enCurso.remove(clave, propia);
+            return;
+        }
+        CompletableFuture.delayedExecutor(ventanaMs, TimeUnit.MILLISECONDS)
+                .execute(() -> enCurso.remove(clave, propia));
+    }
+
+    private static String esperar(CompletableFuture<String> existente) {
+        try {
+            return existente.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            if (e.getCause() instanceof Error causa) throw causa;
+            throw e;
+        }
+    }
+
+    static String clave(String mensaje) {
+        String normalizado = mensaje == null ? "" : mensaje.strip().replaceAll("\\s+", " ");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalizado.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,75 +1,406 @@
 package com.bitacora.bitacora.service;
+import com.bitacora.bitacora.config.CacheConfig;
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.dto.ResultadoLote;
+import com.bitacora.bitacora.dto.TareaResumen;
+import com.bitacora.bitacora.dto.VersionColeccion;
+import com.bitacora.bitacora.dto.VersionFila;
+import com.bitacora.bitacora.model.EstadoTarea;
 import com.bitacora.bitacora.model.Proyecto;
 import com.bitacora.bitacora.model.Tarea;
 import com.bitacora.bitacora.repository.ProyectoRepository;
 import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 public class TareaService {
 
+    public static final int TAMANO_MAXIMO_LOTE = 1000;
+
     private final TareaRepository tareaRepository;
     private final ProyectoRepository proyectoRepository;
+    private final ReintentoOptimista reintento;
+    private final BusquedaService busquedaService;
+    private final Cache cacheEntidades; // Caché de segundo nivel: se desalojan los proyectos cuyos totales cambian
 
-    public TareaService(TareaRepository tareaRepository, ProyectoRepository proyectoRepository) {
+    public TareaService(TareaRepository tareaRepository, ProyectoRepository proyectoRepository,
+                        ReintentoOptimista reintento, BusquedaService busquedaService,
+                        EntityManagerFactory entityManagerFactory) {
         this.tareaRepository = tareaRepository;
         this.proyectoRepository = proyectoRepository;
+        this.reintento = reintento;
+        this.busquedaService = busquedaService;
+        this.cacheEntidades = entityManagerFactory.getCache();
     }
 
+    @Transactional(readOnly = true)
     public List<Tarea> obtenerTodas() {
         return tareaRepository.findAll();
     }
 
+    //Página de tareas ordenada por id, empezando después del cursor recibido
+    @Transactional(readOnly = true)
+    public Pagina<Tarea> obtenerPagina(String cursor, Integer tamano) {
+        return buscarPagina(cursor, tamano, null, null);
+    }
+
+    //Igual que la anterior, filtrando opcionalmente por proyecto y/o estado con consultas indexadas
+    @Transactional(readOnly = true)
+    public Pagina<Tarea> obtenerPagina(String cursor, Integer tamano, Long proyectoId, EstadoTarea estado) {
+        return buscarPagina(cursor, tamano, proyectoId, estado);
+    }
+
+    //Vistas resumidas: sin descripción ni observaciones
+    @Transactional(readOnly = true)
+    public List<TareaResumen> obtenerResumenes() {
+        return tareaRepository.findAll().stream().map(TareaResumen::de).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Pagina<TareaResumen> obtenerPaginaResumen(String cursor, Integer tamano, Long proyectoId, EstadoTarea estado) {
+        return buscarPagina(cursor, tamano, proyectoId, estado).map(TareaResumen::de);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Tarea> obtenerPorId(Long id) {
         return tareaRepository.findById(id);
     }
 
+    //Lee en la base principal (transacción de escritura), nunca en la réplica: para lecturas que deciden una escritura
     @Transactional
-    public Tarea guardar(Tarea tarea) {
-        Tarea nuevaTarea = tareaRepository.save(tarea);
+    public Optional<Tarea> obtenerParaModificar(Long id) {
+        return tareaRepository.findById(id);
+    }
 
-        //Si la tarea está asociada a un proyecto, recalcula su duración total
-        if (tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
-            Proyecto proyecto = proyectoRepository.findById(tarea.getProyecto().getId())
-                    .orElseThrow(() -> new RuntimeException("Proyecto no encontrado"));
+    // ====== Versiones para los ETag (no cargan entidades) ======
+
+    @Transactional(readOnly = true)
+    public Optional<Long> obtenerVersion(Long id) {
+        return tareaRepository.buscarVersion(id);
+    }
+
+    //Id y versión de las mismas filas que devolvería obtenerPagina con esos parámetros
+    @Transactional(readOnly = true)
+    public Pagina<VersionFila> obtenerVersionesPagina(String cursor, Integer tamano, Long proyectoId, EstadoTarea estado) {
+        return Pagina.de(buscarFilas(cursor, tamano, proyectoId, estado, VersionFila.class),
+                Pagina.limitarTamano(tamano), VersionFila::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public VersionColeccion obtenerVersionColeccion() {
+        return tareaRepository.obtenerVersionColeccion();
+    }
+
+    //Id de la primera tarea con ese título (sin distinguir mayúsculas); se guarda en caché si existe
+    @Cacheable(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, condition = "#titulo != null",
+            key = "T(com.bitacora.bitacora.util.NormalizadorTexto).normalizar(#titulo)", unless = "#result == null")
+    public Optional<Long> buscarIdPorTitulo(String titulo) {
+        if (titulo == null) return Optional.empty();
+        return tareaRepository.buscarIdsPorTituloNormalizado(NormalizadorTexto.normalizar(titulo), Limit.of(1))
+                .stream().findFirst();
+    }
 
-            double totalHoras = proyecto.getTareas().stream()
-                    .filter(t -> t.getDuracionHoras() != null)
-                    .mapToDouble(Tarea::getDuracionHoras)
-                    .sum();
+    /**
+     * Indica si ya existe una tarea con ese título dentro del mismo proyecto
+     * (o sin proyecto, si proyecto es null). excluirId permite ignorar la propia tarea al renombrarla.
+     */
+    public boolean existeTitulo(String titulo, Proyecto proyecto, Long excluirId) {
+        String tituloNormalizado = NormalizadorTexto.normalizar(titulo);
 
-            proyecto.setDuracionHoras(totalHoras);
-            proyectoRepository.save(proyecto);
+        if (proyecto == null || proyecto.getId() == null) {
+            return excluirId == null
+                    ? tareaRepository.existsByTituloNormalizadoAndProyectoIsNull(tituloNormalizado)
+                    : tareaRepository.existsByTituloNormalizadoAndProyectoIsNullAndIdNot(tituloNormalizado, excluirId);
         }
 
+        return excluirId == null
+                ? tareaRepository.existsByTituloNormalizadoAndProyectoId(tituloNormalizado, proyecto.getId())
+                : tareaRepository.existsByTituloNormalizadoAndProyectoIdAndIdNot(tituloNormalizado, proyecto.getId(), excluirId);
+    }
+
+    /**
+     * Guarda la tarea y actualiza los totales del proyecto aplicando solo la diferencia
+     * entre lo que ya estaba contabilizado y el nuevo estado (horas, completada, proyecto).
+     * No carga ni recorre las demás tareas del proyecto.
+     * El proyecto se vuelve a leer por id en esta misma transacción: el que trae la tarea
+     * puede venir de la petición (solo el id) o de una lectura anterior en la réplica.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public Tarea guardar(Tarea tarea) {
+        if (tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
+            proyectoRepository.findById(tarea.getProyecto().getId()).ifPresent(tarea::setProyecto);
+        }
+        DeltaTotales deltas = new DeltaTotales();
+        Tarea nuevaTarea = guardarContabilizando(tarea, deltas);
+        deltas.aplicar(proyectoRepository, cacheEntidades);
+        busquedaService.indexar(List.of(nuevaTarea));
         return nuevaTarea;
     }
 
+    /**
+     * Aplica los campos informados en cambios sobre la tarea guardada y la mueve de proyecto
+     * si viene otro id. La lectura y la escritura van en la misma transacción y la tarea tiene
+     * @Version: si otra escritura la cambió en medio, se repite todo con la versión actual
+     * en lugar de pisar sus cambios (ver ReintentoOptimista).
+     */
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public Tarea actualizar(Long id, Tarea cambios) {
+        return modificar(id, tarea -> {
+            copiarCambios(tarea, cambios);
+
+            //Solo reasigna el proyecto si viene un nuevo ID diferente
+            if (cambios.getProyecto() != null && cambios.getProyecto().getId() != null) {
+                Long nuevoProyectoId = cambios.getProyecto().getId();
+                if (tarea.getProyecto() == null || !tarea.getProyecto().getId().equals(nuevoProyectoId)) {
+                    proyectoRepository.findById(nuevoProyectoId).ifPresent(tarea::setProyecto);
+                }
+            }
+        });
+    }
+
+    /**
+     * Lee la tarea en la base principal, le aplica los cambios y la guarda en la misma transacción,
+     * con reintento si otra escritura la cambió en medio (ver ReintentoOptimista).
+     * Como puede ejecutarse más de una vez, los cambios deben asignar valores, no acumularlos.
+     * Un proyecto asignado desde otra lectura se vuelve a leer dentro de esta transacción.
+     */
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public Tarea modificar(Long id, Consumer<Tarea> cambios) {
+        return reintento.ejecutar(() -> {
+            Tarea tarea = tareaRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Tarea no encontrada con ID: " + id));
+            cambios.accept(tarea);
+            if (tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
+                proyectoRepository.findById(tarea.getProyecto().getId()).ifPresent(tarea::setProyecto);
+            }
+
+            DeltaTotales deltas = new DeltaTotales();
+            Tarea guardada = guardarContabilizando(tarea, deltas);
+            deltas.aplicar(proyectoRepository, cacheEntidades);
+            busquedaService.indexar(List.of(guardada));
+            return guardada;
+        });
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public void eliminar(Long id) {
+        reintento.ejecutar(() -> {
+            Tarea tarea = tareaRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Tarea no encontrada"));
+
+            DeltaTotales deltas = new DeltaTotales();
+            eliminarContabilizando(tarea, deltas);
+            deltas.aplicar(proyectoRepository, cacheEntidades);
+            busquedaService.quitarDelIndice(List.of(id));
+            return null;
+        });
+    }
+
+    //Copia los campos informados (no null) de cambios sobre la tarea destino; el proyecto se maneja aparte
+    public void copiarCambios(Tarea destino, Tarea cambios) {
+        if (cambios.getTitulo() != null) destino.setTitulo(cambios.getTitulo());
+        if (cambios.getDescripcion() != null) destino.setDescripcion(cambios.getDescripcion());
+        if (cambios.getEstado() != null) destino.setEstado(cambios.getEstado());
+        if (cambios.getFechaInicio() != null) destino.setFechaInicio(cambios.getFechaInicio());
+        if (cambios.getFechaFin() != null) destino.setFechaFin(cambios.getFechaFin());
+        if (cambios.getDuracionHoras() != null) destino.setDuracionHoras(cambios.getDuracionHoras());
+        if (cambios.getObservaciones() != null) destino.setObservaciones(cambios.getObservaciones());
+    }
+
+    // ====== Operaciones por lotes ======
+    // Todo el lote va en una transacción; los errores de validación se informan por elemento
+    // y los totales de cada proyecto afectado y el índice de búsqueda se actualizan una sola vez al final.
+
     @Transactional
-public void eliminar(Long id) {
-    Tarea tarea = tareaRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Tarea no encontrada"));
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public List<ResultadoLote> crearLote(List<Tarea> tareas) {
+        validarTamanoLote(tareas);
+        Map<Long, Proyecto> proyectos = cargarProyectos(tareas);
+        DeltaTotales deltas = new DeltaTotales();
+        List<ResultadoLote> resultados = new ArrayList<>();
+        List<Tarea> guardadas = new ArrayList<>();
+
+        for (int i = 0; i < tareas.size(); i++) {
+            Tarea tarea = tareas.get(i);
+            if (tarea == null || tarea.getTitulo() == null || tarea.getTitulo().trim().isEmpty()) {
+                resultados.add(ResultadoLote.fallo(i, null, "El título de la tarea es requerido"));
+                continue;
+            }
+            if (tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
+                Proyecto proyecto = proyectos.get(tarea.getProyecto().getId());
+                if (proyecto == null) {
+                    resultados.add(ResultadoLote.fallo(i, null, "Proyecto no encontrado: " + tarea.getProyecto().getId()));
+                    continue;
+                }
+                tarea.setProyecto(proyecto);
+            } else {
+                tarea.setProyecto(null);
+            }
+            tarea.setId(null);
+            Tarea guardada = guardarContabilizando(tarea, deltas);
+            guardadas.add(guardada);
+            resultados.add(ResultadoLote.exito(i, guardada.getId()));
+        }
+
+        deltas.aplicar(proyectoRepository, cacheEntidades);
+        busquedaService.indexar(guardadas);
+        return resultados;
+    }
 
-    Proyecto proyecto = tarea.getProyecto();
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public List<ResultadoLote> actualizarLote(List<Tarea> cambios) {
+        validarTamanoLote(cambios);
+        Map<Long, Tarea> existentes = new HashMap<>();
+        tareaRepository.findAllById(cambios.stream()
+                        .filter(c -> c != null && c.getId() != null)
+                        .map(Tarea::getId)
+                        .toList())
+                .forEach(t -> existentes.put(t.getId(), t));
+        Map<Long, Proyecto> proyectos = cargarProyectos(cambios);
+        DeltaTotales deltas = new DeltaTotales();
+        List<ResultadoLote> resultados = new ArrayList<>();
+        List<Tarea> guardadas = new ArrayList<>();
 
-    //Desvincula la tarea del proyecto antes de eliminarla
-    if (proyecto != null) {
-        proyecto.getTareas().remove(tarea);
+        for (int i = 0; i < cambios.size(); i++) {
+            Tarea cambio = cambios.get(i);
+            if (cambio == null || cambio.getId() == null) {
+                resultados.add(ResultadoLote.fallo(i, null, "El id de la tarea es requerido"));
+                continue;
+            }
+            Tarea tarea = existentes.get(cambio.getId());
+            if (tarea == null) {
+                resultados.add(ResultadoLote.fallo(i, cambio.getId(), "Tarea no encontrada"));
+                continue;
+            }
+            if (cambio.getProyecto() != null && cambio.getProyecto().getId() != null) {
+                Proyecto proyecto = proyectos.get(cambio.getProyecto().getId());
+                if (proyecto == null) {
+                    resultados.add(ResultadoLote.fallo(i, cambio.getId(), "Proyecto no encontrado: " + cambio.getProyecto().getId()));
+                    continue;
+                }
+                tarea.setProyecto(proyecto);
+            }
+            copiarCambios(tarea, cambio);
+            guardadas.add(guardarContabilizando(tarea, deltas));
+            resultados.add(ResultadoLote.exito(i, tarea.getId()));
+        }
 
-        //Recalcula las horas totales del proyecto
-        double totalHoras = proyecto.getTareas().stream()
-                .filter(t -> t.getDuracionHoras() != null)
-                .mapToDouble(Tarea::getDuracionHoras)
-                .sum();
+        deltas.aplicar(proyectoRepository, cacheEntidades);
+        busquedaService.indexar(guardadas);
+        return resultados;
+    }
 
-        proyecto.setDuracionHoras(totalHoras);
-        proyectoRepository.save(proyecto);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAREA_ID_POR_TITULO, allEntries = true)
+    public List<ResultadoLote> eliminarLote(List<Long> ids) {
+        validarTamanoLote(ids);
+        Map<Long, Tarea> existentes = new HashMap<>();
+        tareaRepository.findAllById(ids.stream().filter(Objects::nonNull).toList())
+                .forEach(t -> existentes.put(t.getId(), t));
+        DeltaTotales deltas = new DeltaTotales();
+        List<ResultadoLote> resultados = new ArrayList<>();
+        List<Long> eliminadas = new ArrayList<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            Tarea tarea = ids.get(i) != null ? existentes.remove(ids.get(i)) : null;
+            if (tarea == null) {
+                resultados.add(ResultadoLote.fallo(i, ids.get(i), "Tarea no encontrada"));
+                continue;
+            }
+            eliminarContabilizando(tarea, deltas);
+            eliminadas.add(tarea.getId());
+            resultados.add(ResultadoLote.exito(i, tarea.getId()));
+        }
+
+        deltas.aplicar(proyectoRepository, cacheEntidades);
+        busquedaService.quitarDelIndice(eliminadas);
+        return resultados;
+    }
+
+    private Pagina<Tarea> buscarPagina(String cursor, Integer tamano, Long proyectoId, EstadoTarea estado) {
+        return Pagina.de(buscarFilas(cursor, tamano, proyectoId, estado, Tarea.class),
+                Pagina.limitarTamano(tamano), Tarea::getId);
+    }
+
+    //Filas de la página (tamaño + 1 para saber si hay más) como entidades o como id + versión
+    private <T> List<T> buscarFilas(String cursor, Integer tamano, Long proyectoId, EstadoTarea estado, Class<T> tipo) {
+        long despuesDeId = Pagina.decodificarCursor(cursor);
+        Limit limite = Limit.of(Pagina.limitarTamano(tamano) + 1);
+
+        if (proyectoId != null && estado != null) {
+            return tareaRepository.findByProyectoIdAndEstadoAndIdGreaterThanOrderByIdAsc(proyectoId, estado, despuesDeId, limite, tipo);
+        } else if (proyectoId != null) {
+            return tareaRepository.findByProyectoIdAndIdGreaterThanOrderByIdAsc(proyectoId, despuesDeId, limite, tipo);
+        } else if (estado != null) {
+            return tareaRepository.findByEstadoAndIdGreaterThanOrderByIdAsc(estado, despuesDeId, limite, tipo);
+        }
+        return tareaRepository.findByIdGreaterThanOrderByIdAsc(despuesDeId, limite, tipo);
     }
 
-    //Luego elimina la tarea
-    tareaRepository.delete(tarea);
+    //Guarda la tarea registrando en deltas lo que cambia en los totales de su(s) proyecto(s)
+    private Tarea guardarContabilizando(Tarea tarea, DeltaTotales deltas) {
+        //Estado que los totales ya tienen en cuenta (si la tarea viene sin él, se toma el guardado)
+        Tarea referencia = tarea;
+        if (!tarea.isTotalesAplicados() && tarea.getId() != null) {
+            referencia = tareaRepository.findById(tarea.getId()).orElse(tarea);
+        }
+        deltas.quitarContabilizado(referencia);
+
+        //Horas definitivas antes de calcular la diferencia (el @PreUpdate correría recién al hacer flush)
+        tarea.calcularDuracion();
+        Tarea nuevaTarea = tareaRepository.save(tarea);
+
+        deltas.agregar(nuevaTarea);
+        nuevaTarea.marcarTotalesAplicados();
+        return nuevaTarea;
+    }
+
+    private void eliminarContabilizando(Tarea tarea, DeltaTotales deltas) {
+        Proyecto proyecto = tarea.getProyecto();
+
+        //Desvincula la tarea del proyecto si su lista ya está cargada (no se fuerza la carga)
+        if (proyecto != null && proyecto.getTareas() != null && Hibernate.isInitialized(proyecto.getTareas())) {
+            proyecto.getTareas().remove(tarea);
+        }
+
+        //Descuenta la tarea de los totales del proyecto y luego la elimina
+        deltas.quitarContabilizado(tarea);
+        tareaRepository.delete(tarea);
+    }
+
+    //Carga en una sola consulta los proyectos referenciados por las tareas del lote
+    private Map<Long, Proyecto> cargarProyectos(List<Tarea> tareas) {
+        Set<Long> ids = new HashSet<>();
+        for (Tarea tarea : tareas) {
+            if (tarea != null && tarea.getProyecto() != null && tarea.getProyecto().getId() != null) {
+                ids.add(tarea.getProyecto().getId());
+            }
+        }
+        Map<Long, Proyecto> proyectos = new HashMap<>();
+        if (!ids.isEmpty()) {
+            proyectoRepository.findAllById(ids).forEach(p -> proyectos.put(p.getId(), p));
+        }
+        return proyectos;
+    }
+
+    private void validarTamanoLote(List<?> elementos) {
+        if (elementos == null || elementos.isEmpty()) {
+            throw new IllegalArgumentException("El lote está vacío");
+        }
+        if (elementos.size() > TAMANO_MAXIMO_LOTE) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + TAMANO_MAXIMO_LOTE + " elementos");
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTrabajo;
+import com.bitacora.bitacora.model.TrabajoChat;
+import com.bitacora.bitacora.repository.TrabajoChatRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Procesa mensajes de chat (transcripciones de reuniones) en segundo plano, para no ocupar
+ * un hilo de Tomcat durante todo el análisis.
+ * 1️⃣ Cada trabajo se guarda en trabajos_chat (EN_COLA) y se responde su id enseguida.
+ * 2️⃣ Lo procesan bitacora.chat.trabajos.hilos hilos fijos; a lo sumo
+ *    bitacora.chat.trabajos.capacidad-cola esperan su turno. Con la cola llena, encolar lanza
+ *    TaskRejectedException (el controlador responde 503 con Retry-After) en vez de acumular hilos.
+ * 3️⃣ Al arrancar se retoman los que quedaron EN_COLA y se marcan FALLIDO los que quedaron
+ *    EN_CURSO hace más de bitacora.chat.trabajos.maximo-minutos (su instancia se detuvo).
+ *
+ * Métricas: bitacora.chat.trabajos.en-cola, .en-curso y .rechazados.
+ */
+@Service
+public class TrabajosChatService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrabajosChatService.class);
+
+    private final TrabajoChatRepository trabajoChatRepository;
+    private final ChatService chatService;
+    private final ThreadPoolExecutor ejecutor;
+    private final Counter rechazados;
+
+    @Value("${bitacora.chat.trabajos.maximo-minutos:30}")
+    private long maximoMinutos;
+
+    public TrabajosChatService(TrabajoChatRepository trabajoChatRepository, ChatService chatService,
+                               MeterRegistry meterRegistry,
+                               @Value("${bitacora.chat.trabajos.hilos:2}") int hilos,
+                               @Value("${bitacora.chat.trabajos.capacidad-cola:20}") int capacidadCola) {
+        this.trabajoChatRepository = trabajoChatRepository;
+        this.chatService = chatService;
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), new CustomizableThreadFactory("chat-trabajo-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("bitacora.chat.trabajos.en-cola", ejecutor, e -> e.getQueue().size())
+                .description("Trabajos de chat esperando un hilo")
+                .register(meterRegistry);
+        Gauge.builder("bitacora.chat.trabajos.en-curso", ejecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Trabajos de chat en proceso")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("bitacora.chat.trabajos.rechazados")
+                .description("Trabajos rechazados por cola llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Guarda el trabajo y lo pone en la cola; devuelve enseguida, con estado EN_COLA.
+     * No es @Transactional a propósito: la fila debe estar confirmada antes de que un hilo la tome.
+     */
+    public TrabajoChat encolar(String mensaje) {
+        if (ejecutor.getQueue().remainingCapacity() == 0) {
+            rechazados.increment();
+            throw new TaskRejectedException("Hay demasiados trabajos en cola, intenta más tarde");
+        }
+        TrabajoChat trabajo = trabajoChatRepository.save(new TrabajoChat(mensaje));
+        try {
+            ejecutor.execute(() -> procesar(trabajo.getId()));
+        } catch (RejectedExecutionException e) {
+            trabajoChatRepository.delete(trabajo);
+            rechazados.increment();
+            throw new TaskRejectedException("Hay demasiados trabajos en cola, intenta más tarde", e);
+        }
+        return trabajo;
+    }
+
+    //Sin transacción de solo lectura: se lee de la primaria, así el estado está al día aunque haya réplica
+    public Optional<TrabajoChat> obtener(Long id) {
+        return trabajoChatRepository.findById(id);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomarPendientes() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int abandonados = trabajoChatRepository.marcarAbandonados(
+                ahora.minusMinutes(maximoMinutos), ahora, "Interrumpido: la aplicación se detuvo durante el proceso");
+        List<Long> enCola = trabajoChatRepository.buscarIdsPorEstado(EstadoTrabajo.EN_COLA);
+        int retomados = 0;
+        for (Long id : enCola) {
+            try {
+                ejecutor.execute(() -> procesar(id));
+                retomados++;
+            } catch (RejectedExecutionException e) {
+                break; // Los que no entran siguen EN_COLA hasta el próximo arranque
+            }
+        }
+        if (abandonados > 0 || retomados > 0) {
+            log.info("Trabajos de chat: {} retomados de la cola, {} marcados como fallidos", retomados, abandonados);
+        }
+    }
+
+    private void procesar(Long id) {
+        // Otra instancia pudo haberlo tomado al retomar pendientes
+        if (trabajoChatRepository.tomar(id, LocalDateTime.now()) == 0) return;
+        TrabajoChat trabajo = trabajoChatRepository.findById(id).orElse(null);
+        if (trabajo == null) return;
+
+        try {
+            trabajo.setResultado(chatService.procesarMensaje(trabajo.getMensaje()));
+            trabajo.setEstado(EstadoTrabajo.TERMINADO);
+        } catch (RuntimeException e) {
+            log.warn("Falló el trabajo de chat {}", id, e);
+            trabajo.setEstado(EstadoTrabajo.FALLIDO);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            trabajo.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        }
+        trabajo.setFechaFin(LocalDateTime.now());
+        trabajoChatRepository.save(trabajo);
+    }
+
+    @PreDestroy
+    void detener() {
+        // Los que esperaban siguen EN_COLA en la base y se retoman en el próximo arranque
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,110 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.EventoChat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Procesa los mensajes de /api/chat/stream en hilos propios y envía el progreso como
+ * Server-Sent Events, para no ocupar un hilo de Tomcat ni el ejecutor compartido de la aplicación.
+ * 1️⃣ Lo procesan a lo sumo bitacora.chat.stream.hilos hilos y esperan
+ *    bitacora.chat.stream.capacidad-cola más. Con la cola llena, transmitir lanza
+ *    TaskRejectedException (el controlador responde 503 con Retry-After, como con los trabajos).
+ * 2️⃣ El emisor siempre termina: con "resumen", con un evento "error" si el análisis falla,
+ *    o con completeWithError ante cualquier otro problema.
+ *
+ * Métricas: bitacora.chat.stream.en-cola, .en-curso y .rechazados.
+ */
+@Service
+public class TransmisionesChatService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransmisionesChatService.class);
+
+    private final ChatService chatService;
+    private final ThreadPoolExecutor ejecutor;
+    private final Counter rechazados;
+
+    @Value("${bitacora.chat.stream.timeout-ms:300000}")
+    private long timeoutMs;
+
+    public TransmisionesChatService(ChatService chatService, MeterRegistry meterRegistry,
+                                    @Value("${bitacora.chat.stream.hilos:4}") int hilos,
+                                    @Value("${bitacora.chat.stream.capacidad-cola:10}") int capacidadCola) {
+        this.chatService = chatService;
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), new CustomizableThreadFactory("chat-stream-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("bitacora.chat.stream.en-cola", ejecutor, e -> e.getQueue().size())
+                .description("Mensajes en vivo esperando un hilo")
+                .register(meterRegistry);
+        Gauge.builder("bitacora.chat.stream.en-curso", ejecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Mensajes en vivo en proceso")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("bitacora.chat.stream.rechazados")
+                .description("Mensajes en vivo rechazados por cola llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el emisor enseguida; el mensaje se procesa en un hilo propio.
+     * Si el cliente se desconecta, el análisis termina igual y lo creado queda guardado.
+     */
+    public SseEmitter transmitir(String mensaje) {
+        SseEmitter emisor = new SseEmitter(timeoutMs);
+        try {
+            ejecutor.execute(() -> procesar(mensaje, emisor));
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new TaskRejectedException("Hay demasiados mensajes en proceso, intenta más tarde", e);
+        }
+        return emisor;
+    }
+
+    private void procesar(String mensaje, SseEmitter emisor) {
+        try {
+            String resumen = chatService.procesarMensaje(mensaje, evento -> enviar(emisor, evento));
+            enviar(emisor, new EventoChat(EventoChat.RESUMEN, resumen));
+            emisor.complete();
+        } catch (RuntimeException e) {
+            log.warn("Error procesando mensaje de chat en vivo", e);
+            enviar(emisor, new EventoChat(EventoChat.ERROR, "⚠️ " + e.getMessage()));
+            emisor.complete();
+        } catch (Throwable e) {
+            // Errores graves (memoria, pila): se cierra el emisor para no dejar al cliente esperando
+            log.error("Error grave procesando mensaje de chat en vivo", e);
+            emisor.completeWithError(e);
+            throw e;
+        }
+    }
+
+    private static void enviar(SseEmitter emisor, EventoChat evento) {
+        try {
+            emisor.send(SseEmitter.event().name(evento.tipo()).data(evento, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emisor vencido: se dejan de enviar eventos
+            log.debug("No se pudo enviar el evento {}: {}", evento.tipo(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        ejecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,66 @@
+package com.bitacora.bitacora.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Separa un texto en los términos que guarda el índice de búsqueda de tareas:
+ * minúsculas, sin tildes, solo letras y números, sin palabras vacías ("de", "la", "para"...).
+ * Se aplica igual al indexar y al buscar, así "Reunión" encuentra "reunion".
+ */
+public final class AnalizadorTerminos {
+
+    public static final int LARGO_MAXIMO = 64;
+    public static final int MAXIMO_TERMINOS_CONSULTA = 10;
+
+    public static final int PESO_TITULO = 3;
+    public static final int PESO_TEXTO = 1;
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern TILDES = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "de", "del", "la", "las", "el", "los", "lo", "le", "les", "un", "una", "unos", "unas",
+            "al", "en", "por", "para", "con", "sin", "que", "se", "su", "sus", "es", "como", "mas", "pero",
+            "the", "and", "of", "to", "in", "for", "on", "is");
+
+    private AnalizadorTerminos() {
+    }
+
+    //Términos distintos del texto, en el orden en que aparecen
+    public static Set<String> terminos(String texto) {
+        Set<String> terminos = new LinkedHashSet<>();
+        if (texto == null || texto.isBlank()) return terminos;
+
+        String plano = TILDES.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        for (String palabra : SEPARADORES.split(plano.toLowerCase(Locale.ROOT))) {
+            if (palabra.length() < 2 || PALABRAS_VACIAS.contains(palabra)) continue;
+            terminos.add(palabra.length() > LARGO_MAXIMO ? palabra.substring(0, LARGO_MAXIMO) : palabra);
+        }
+        return terminos;
+    }
+
+    //Peso de cada término de una tarea: el título cuenta más que la descripción y las observaciones
+    public static Map<String, Integer> pesos(String titulo, String descripcion, String observaciones) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        terminos(titulo).forEach(t -> pesos.merge(t, PESO_TITULO, Integer::sum));
+        terminos(descripcion).forEach(t -> pesos.merge(t, PESO_TEXTO, Integer::sum));
+        terminos(observaciones).forEach(t -> pesos.merge(t, PESO_TEXTO, Integer::sum));
+        return pesos;
+    }
+
+    //Términos de una consulta (como máximo MAXIMO_TERMINOS_CONSULTA); error si no queda ninguno
+    public static List<String> consulta(String texto) {
+        List<String> terminos = terminos(texto).stream().limit(MAXIMO_TERMINOS_CONSULTA).toList();
+        if (terminos.isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda necesita al menos una palabra de 2 o más letras");
+        }
+        return terminos;
+    }
+}
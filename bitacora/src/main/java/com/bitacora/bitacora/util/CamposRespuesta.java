@@ -0,0 +1,99 @@
+package com.bitacora.bitacora.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Forma de las respuestas de proyectos y tareas según lo que pide el cliente:
+ * ?vista=resumen (sin textos largos ni lista de tareas) y ?fields=id,nombre,... (solo esos campos).
+ * Los campos no pedidos no se llegan a leer al serializar (por ejemplo, no se carga la lista de tareas).
+ * Un campo que el tipo devuelto no tiene es un error del cliente (IllegalArgumentException → 400).
+ */
+public final class CamposRespuesta {
+
+    // Ids de @JsonFilter en Proyecto/ProyectoResumen y Tarea/TareaResumen
+    public static final String FILTRO_PROYECTO = "proyecto";
+    public static final String FILTRO_TAREA = "tarea";
+
+    public static final String VISTA_COMPLETA = "completa";
+    public static final String VISTA_RESUMEN = "resumen";
+
+    // Solo para leer los nombres de las propiedades que Jackson serializa de cada tipo
+    private static final ObjectMapper INTROSPECCION = new ObjectMapper();
+    private static final Map<Class<?>, Set<String>> CAMPOS_POR_TIPO = new ConcurrentHashMap<>();
+
+    private CamposRespuesta() {
+    }
+
+    //Filtros por defecto del ObjectMapper: todo se serializa si no se piden campos
+    public static SimpleFilterProvider sinFiltrar() {
+        return new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    }
+
+    /**
+     * Nombres pedidos en ?fields=, ordenados y sin repetir (vacío si no se pidió ninguno).
+     * Lanza IllegalArgumentException si alguno no es un campo de "tipo" en la respuesta.
+     */
+    public static SortedSet<String> campos(String campos, Class<?> tipo) {
+        if (campos == null || campos.isBlank()) return Collections.emptySortedSet();
+        SortedSet<String> nombres = Arrays.stream(campos.split(","))
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        Set<String> disponibles = camposDe(tipo);
+        for (String nombre : nombres) {
+            if (!disponibles.contains(nombre)) {
+                throw new IllegalArgumentException("Campo no válido: " + nombre
+                        + " (disponibles: " + String.join(", ", new TreeSet<>(disponibles)) + ")");
+            }
+        }
+        return nombres;
+    }
+
+    /**
+     * Envuelve el cuerpo de la respuesta dejando solo los campos indicados en los objetos
+     * con el filtro dado (los anidados de otro tipo se serializan completos).
+     * Sin campos la respuesta queda igual.
+     */
+    public static MappingJacksonValue filtrar(Object cuerpo, String filtro, Set<String> campos) {
+        MappingJacksonValue valor = new MappingJacksonValue(cuerpo);
+        if (!campos.isEmpty()) {
+            valor.setFilters(sinFiltrar().addFilter(filtro, SimpleBeanPropertyFilter.filterOutAllExcept(campos)));
+        }
+        return valor;
+    }
+
+    //Propiedades que se escriben en el JSON del tipo (sin @JsonIgnore ni la referencia inversa a su padre)
+    static Set<String> camposDe(Class<?> tipo) {
+        return CAMPOS_POR_TIPO.computeIfAbsent(tipo, t -> INTROSPECCION.getSerializationConfig()
+                .introspect(INTROSPECCION.constructType(t))
+                .findProperties().stream()
+                .filter(BeanPropertyDefinition::couldSerialize)
+                .filter(p -> p.findReferenceType() == null || p.findReferenceType().isManagedReference())
+                .map(BeanPropertyDefinition::getName)
+                .collect(Collectors.toUnmodifiableSet()));
+    }
+
+    //true para la vista resumen; lanza IllegalArgumentException si la vista no existe
+    public static boolean esResumen(String vista) {
+        if (vista == null || vista.isBlank()) return false;
+        String valor = vista.trim().toLowerCase(Locale.ROOT);
+        if (VISTA_RESUMEN.equals(valor)) return true;
+        if (VISTA_COMPLETA.equals(valor)) return false;
+        throw new IllegalArgumentException("Vista no válida: " + vista + " (usa completa o resumen)");
+    }
+}
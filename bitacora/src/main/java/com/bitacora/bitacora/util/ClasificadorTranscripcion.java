@@ -0,0 +1,122 @@
+package com.bitacora.bitacora.util;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decide si un mensaje de chat es una transcripción de reunión recorriendo el texto una sola vez,
+ * sin expresiones regulares, sin partirlo en líneas y sin copiarlo en minúsculas.
+ * Es un texto de más de 300 caracteres con al menos una de estas señales:
+ * 1️⃣ HORA: una hora como "10:15" (un dígito, dos puntos y dos dígitos).
+ * 2️⃣ PARTICIPANTE: "Nombre:" (letra, dígito o "_" antes de los dos puntos, con espacios o no)
+ *    o un "[" seguido más adelante de un "]".
+ * 3️⃣ VARIAS_LINEAS: más de 10 líneas (sin contar los saltos de línea del final).
+ * 4️⃣ PALABRA_REUNION: "reunión", "meeting", "participante" o "agenda", sin distinguir mayúsculas.
+ *
+ * Para agregar una señal: una constante en Senal y su detección en el recorrido de analizar.
+ */
+public final class ClasificadorTranscripcion {
+
+    public static final int LONGITUD_MINIMA = 300;
+    private static final int LINEAS_MINIMAS = 10;
+
+    public enum Senal { HORA, PARTICIPANTE, VARIAS_LINEAS, PALABRA_REUNION }
+
+    /** Señales encontradas y cantidad de líneas (como las contaría texto.split("\n")). */
+    public record Rasgos(int longitud, int lineas, Set<Senal> senales) {
+
+        public boolean tiene(Senal senal) {
+            return senales.contains(senal);
+        }
+    }
+
+    private ClasificadorTranscripcion() {
+    }
+
+    public static boolean esTranscripcionReunion(String texto) {
+        if (texto == null || texto.length() <= LONGITUD_MINIMA) return false;
+        return !recorrer(texto, true).isEmpty();
+    }
+
+    //Todas las señales, sin cortar en la primera (para métricas o para combinar señales)
+    public static Rasgos analizar(String texto) {
+        EnumSet<Senal> senales = recorrer(texto, false);
+        return new Rasgos(texto.length(), contarLineas(texto), senales);
+    }
+
+    // ====== Recorrido ======
+
+    private static EnumSet<Senal> recorrer(String texto, boolean pararEnLaPrimera) {
+        EnumSet<Senal> senales = EnumSet.noneOf(Senal.class);
+        int largo = texto.length();
+        int saltos = 0;
+        boolean corcheteAbierto = false;
+        char ultimoNoEspacio = 0; // Último carácter visto que no es espacio (para "Nombre :")
+
+        for (int i = 0; i < largo; i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '\n' -> saltos++;
+                case '[' -> corcheteAbierto = true;
+                case ']' -> {
+                    if (corcheteAbierto) senales.add(Senal.PARTICIPANTE);
+                }
+                case ':' -> {
+                    if (esPalabra(ultimoNoEspacio)) senales.add(Senal.PARTICIPANTE);
+                    if (i > 0 && esDigito(texto.charAt(i - 1))
+                            && i + 2 < largo && esDigito(texto.charAt(i + 1)) && esDigito(texto.charAt(i + 2))) {
+                        senales.add(Senal.HORA);
+                    }
+                }
+                default -> {
+                    if (!senales.contains(Senal.PALABRA_REUNION) && empiezaPalabraReunion(texto, i, c)) {
+                        senales.add(Senal.PALABRA_REUNION);
+                    }
+                }
+            }
+            if (c != '\n' && saltos >= LINEAS_MINIMAS) senales.add(Senal.VARIAS_LINEAS);
+            if (!esEspacio(c)) ultimoNoEspacio = c;
+            if (pararEnLaPrimera && !senales.isEmpty()) break;
+        }
+        return senales;
+    }
+
+    //Cada palabra empieza con una letra distinta: se descarta por las dos primeras letras antes de comparar
+    private static boolean empiezaPalabraReunion(String texto, int i, char c) {
+        String palabra = switch (c) {
+            case 'r', 'R' -> "reunión";
+            case 'm', 'M' -> "meeting";
+            case 'p', 'P' -> "participante";
+            case 'a', 'A' -> "agenda";
+            default -> null;
+        };
+        if (palabra == null || i + palabra.length() > texto.length()) return false;
+        if ((texto.charAt(i + 1) | 0x20) != palabra.charAt(1)) return false; // La segunda letra es ASCII
+        return texto.regionMatches(true, i, palabra, 0, palabra.length());
+    }
+
+    //Como split("\n").length: los saltos del final no cuentan y un texto vacío es una línea
+    private static int contarLineas(String texto) {
+        if (texto.isEmpty()) return 1;
+        int saltos = 0;
+        int saltosHastaUltimoTexto = -1;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '\n') saltos++;
+            else saltosHastaUltimoTexto = saltos;
+        }
+        return saltosHastaUltimoTexto + 1;
+    }
+
+    // Mismas clases que \d, \w y \s en las expresiones regulares de Java (solo ASCII)
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean esPalabra(char c) {
+        return esDigito(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
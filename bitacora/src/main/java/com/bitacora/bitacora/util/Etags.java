@@ -0,0 +1,82 @@
+package com.bitacora.bitacora.util;
+
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.dto.VersionColeccion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * ETags fuertes calculados a partir de las columnas @Version, para responder 304 Not Modified
+ * sin cargar ni serializar las entidades cuando el cliente ya tiene la última versión.
+ * Los mismos datos con otra forma (?vista=, ?fields=) son otra variante y llevan otro ETag.
+ */
+public final class Etags {
+
+    private Etags() {
+    }
+
+    //Un recurso: cambia con su versión
+    public static String deVersion(String tipo, Long id, long version) {
+        return "\"" + tipo + "-" + id + "-v" + version + "\"";
+    }
+
+    /**
+     * Una página: resumen de los pares id/versión de sus filas y de si hay página siguiente.
+     * Da lo mismo con las versiones (VersionFila) que con las entidades ya cargadas.
+     */
+    public static <T> String dePagina(String tipo, Pagina<T> pagina, Function<T, Long> id, ToLongFunction<T> version) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (T fila : pagina.items()) {
+                digest.update((id.apply(fila) + ":" + version.applyAsLong(fila) + ";").getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((pagina.siguienteCursor() != null ? "+" : "").getBytes(StandardCharsets.UTF_8));
+            return "\"" + tipo + "-" + HexFormat.of().formatHex(digest.digest(), 0, 12) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //Una lista completa: filas, suma de versiones e id máximo de la tabla
+    public static String deColeccion(String tipo, VersionColeccion coleccion) {
+        return "\"" + tipo + "-" + coleccion.filas() + "-" + coleccion.sumaVersiones() + "-" + coleccion.maxId() + "\"";
+    }
+
+    //La misma lista completa ya cargada: igual que deColeccion con las versiones de la tabla
+    public static <T> String deLista(String tipo, List<T> filas, Function<T, Long> id, ToLongFunction<T> version) {
+        long sumaVersiones = filas.stream().mapToLong(version).sum();
+        long maxId = filas.stream().mapToLong(id::apply).max().orElse(0L);
+        return deColeccion(tipo, new VersionColeccion((long) filas.size(), sumaVersiones, maxId));
+    }
+
+    //Agrega la variante de la respuesta (vista resumida y campos pedidos, en orden) al ETag
+    public static String conVariante(String etag, boolean resumen, Set<String> campos) {
+        if (!resumen && campos.isEmpty()) return etag;
+        StringBuilder variante = new StringBuilder(etag.substring(0, etag.length() - 1));
+        if (resumen) variante.append(";vista=resumen");
+        if (!campos.isEmpty()) variante.append(";fields=").append(String.join("+", new TreeSet<>(campos)));
+        return variante.append('"').toString();
+    }
+
+    /**
+     * true si el ETag aparece en la cabecera If-None-Match del cliente
+     * (acepta "*", listas separadas por comas y ETags débiles W/"...").
+     */
+    public static boolean coincide(String siNoCoincide, String etag) {
+        if (siNoCoincide == null || siNoCoincide.isBlank()) return false;
+        for (String valor : siNoCoincide.split(",")) {
+            String candidato = valor.trim();
+            if (candidato.startsWith("W/")) candidato = candidato.substring(2);
+            if (candidato.equals("*") || candidato.equals(etag)) return true;
+        }
+        return false;
+    }
+}
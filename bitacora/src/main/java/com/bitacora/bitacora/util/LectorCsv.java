@@ -0,0 +1,65 @@
+package com.bitacora.bitacora.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee un CSV registro a registro (coma como separador, comillas dobles para campos
+ * con comas o saltos de línea y "" para una comilla dentro del campo).
+ * Solo mantiene en memoria el registro actual.
+ */
+public class LectorCsv {
+
+    private final BufferedReader entrada;
+    private boolean terminado;
+
+    public LectorCsv(BufferedReader entrada) {
+        this.entrada = entrada;
+    }
+
+    //Campos del siguiente registro, o null si no quedan más
+    public List<String> siguiente() throws IOException {
+        if (terminado) return null;
+
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean leido = false;
+        int c;
+
+        while ((c = entrada.read()) != -1) {
+            leido = true;
+            if (entreComillas) {
+                if (c == '"') {
+                    entrada.mark(1);
+                    int siguiente = entrada.read();
+                    if (siguiente == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        if (siguiente != -1) entrada.reset();
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                campos.add(campo.toString());
+                return campos;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+
+        terminado = true;
+        if (!leido) return null;
+        campos.add(campo.toString());
+        return campos;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bitacora.bitacora.util;
+
+import java.util.Locale;
+
+/**
+ * Normaliza nombres y títulos para compararlos sin distinguir mayúsculas.
+ * Es la misma regla que se guarda en las columnas indexadas
+ * (nombre_normalizado, titulo_normalizado), así las búsquedas usan el índice.
+ */
+public final class NormalizadorTexto {
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        return texto == null ? null : texto.trim().toLowerCase(Locale.ROOT);
+    }
+}
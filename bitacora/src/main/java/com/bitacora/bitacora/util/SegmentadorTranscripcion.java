@@ -0,0 +1,109 @@
+package com.bitacora.bitacora.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Divide una transcripción larga en fragmentos que se analizan por separado.
+ * Corta solo entre intervenciones (una línea que empieza con hora "10:15" / "[10:15]" o con
+ * "Nombre:" / "[Nombre]", o un párrafo tras una línea en blanco), nunca en medio de una frase,
+ * y cada fragmento repite las últimas intervenciones del anterior para no perder el contexto
+ * de un compromiso que queda justo en el corte.
+ */
+public final class SegmentadorTranscripcion {
+
+    private static final Pattern INICIO_INTERVENCION = Pattern.compile(
+            "^\\s*(?:[\\[(]?\\d{1,2}:\\d{2}(?::\\d{2})?\\s*(?:[AaPp][Mm])?[\\])]?"
+                    + "|\\[[^\\]\\n]{1,40}\\]"
+                    + "|[\\p{L}][\\p{L}\\p{Nd} .'-]{0,40}:(?:\\s|$)).*");
+
+    private SegmentadorTranscripcion() {
+    }
+
+    /**
+     * Fragmentos de hasta maxCaracteres (una intervención más larga se corta entre palabras).
+     * Cada fragmento después del primero empieza con las últimas intervencionesSolapadas del anterior,
+     * siempre que ocupen menos de la mitad del fragmento. Un texto corto devuelve un solo fragmento.
+     */
+    public static List<String> segmentar(String texto, int maxCaracteres, int intervencionesSolapadas) {
+        if (maxCaracteres <= 0) throw new IllegalArgumentException("maxCaracteres debe ser positivo");
+        if (texto == null || texto.isBlank()) return List.of();
+        if (texto.length() <= maxCaracteres) return List.of(texto);
+
+        List<String> fragmentos = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        int largoActual = 0;
+        boolean actualTieneNuevas = false;
+
+        for (String intervencion : intervenciones(texto, maxCaracteres)) {
+            if (actualTieneNuevas && largoActual + intervencion.length() > maxCaracteres) {
+                fragmentos.add(String.join("\n", actual));
+                actual = solapamiento(actual, intervencionesSolapadas, maxCaracteres / 2);
+                while (!actual.isEmpty() && largo(actual) + intervencion.length() > maxCaracteres) {
+                    actual.remove(0);
+                }
+                largoActual = largo(actual);
+                actualTieneNuevas = false;
+            }
+            actual.add(intervencion);
+            largoActual += intervencion.length() + 1;
+            actualTieneNuevas = true;
+        }
+        if (actualTieneNuevas) {
+            fragmentos.add(String.join("\n", actual));
+        }
+        return fragmentos;
+    }
+
+    //Agrupa las líneas por intervención; las que no empiezan una nueva siguen la anterior
+    private static List<String> intervenciones(String texto, int maxCaracteres) {
+        List<String> intervenciones = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean lineaAnteriorVacia = false;
+        for (String linea : texto.split("\\R")) {
+            if (linea.isBlank()) {
+                lineaAnteriorVacia = true;
+                continue;
+            }
+            if (!actual.isEmpty() && (lineaAnteriorVacia || INICIO_INTERVENCION.matcher(linea).matches())) {
+                agregarCortando(intervenciones, actual.toString(), maxCaracteres);
+                actual.setLength(0);
+            }
+            if (!actual.isEmpty()) actual.append('\n');
+            actual.append(linea.strip());
+            lineaAnteriorVacia = false;
+        }
+        if (!actual.isEmpty()) {
+            agregarCortando(intervenciones, actual.toString(), maxCaracteres);
+        }
+        return intervenciones;
+    }
+
+    private static void agregarCortando(List<String> intervenciones, String intervencion, int maxCaracteres) {
+        String resto = intervencion;
+        while (resto.length() > maxCaracteres) {
+            int corte = resto.lastIndexOf(' ', maxCaracteres);
+            if (corte <= 0) corte = maxCaracteres;
+            intervenciones.add(resto.substring(0, corte).strip());
+            resto = resto.substring(corte).strip();
+        }
+        if (!resto.isEmpty()) intervenciones.add(resto);
+    }
+
+    private static List<String> solapamiento(List<String> fragmento, int cantidad, int maxCaracteres) {
+        List<String> repetidas = new ArrayList<>();
+        int largo = 0;
+        for (int i = fragmento.size() - 1; i >= 0 && repetidas.size() < cantidad; i--) {
+            String intervencion = fragmento.get(i);
+            if (largo + intervencion.length() + 1 > maxCaracteres) break;
+            repetidas.add(0, intervencion);
+            largo += intervencion.length() + 1;
+        }
+        return repetidas;
+    }
+
+    private static int largo(List<String> intervenciones) {
+        return intervenciones.stream().mapToInt(i -> i.length() + 1).sum();
+    }
+}
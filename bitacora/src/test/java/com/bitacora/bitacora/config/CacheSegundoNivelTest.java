@@ -0,0 +1,89 @@
+package com.bitacora.bitacora.config;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.service.TareaService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Caché de segundo nivel tras escribir una tarea: solo se desaloja el proyecto cuyos totales
+ * cambiaron (un fallo y vuelve a cachearse con los totales nuevos); los demás proyectos y la
+ * propia tarea, actualizada en la caché por Hibernate, se siguen leyendo sin ir a la base.
+ */
+@SpringBootTest
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void escribirUnaTareaSoloDesalojaSuProyecto() {
+        Proyecto modificado = crearProyecto("Con tarea modificada");
+        Long otroId = crearProyecto("Sin cambios").getId();
+        Long tareaId = modificado.getTareas().get(0).getId();
+
+        // Calienta la caché con las tres entidades
+        proyectoService.obtenerPorId(modificado.getId());
+        proyectoService.obtenerPorId(otroId);
+        tareaService.obtenerPorId(tareaId);
+
+        Tarea cambios = new Tarea();
+        cambios.setDuracionHoras(4.0);
+        tareaService.actualizar(tareaId, cambios);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        proyectoService.obtenerPorId(otroId);
+        assertAciertosYFallos(estadisticas, CacheConfig.REGION_PROYECTOS, 1, 0);
+
+        Proyecto leido = proyectoService.obtenerPorId(modificado.getId()).orElseThrow();
+        assertEquals(4.0, leido.getHorasTareas(), 1e-9, "totales leídos después de la escritura");
+        assertAciertosYFallos(estadisticas, CacheConfig.REGION_PROYECTOS, 1, 1);
+
+        // La tarea sale de la caché y su proyecto, recién vuelto a cachear, también
+        assertEquals(4.0, tareaService.obtenerPorId(tareaId).orElseThrow().getDuracionHoras(), 1e-9);
+        assertAciertosYFallos(estadisticas, CacheConfig.REGION_TAREAS, 1, 0);
+        assertAciertosYFallos(estadisticas, CacheConfig.REGION_PROYECTOS, 2, 1);
+
+        proyectoService.obtenerPorId(modificado.getId());
+        assertAciertosYFallos(estadisticas, CacheConfig.REGION_PROYECTOS, 3, 1);
+    }
+
+    private static void assertAciertosYFallos(Statistics estadisticas, String region, long aciertos, long fallos) {
+        CacheRegionStatistics estadisticasRegion = estadisticas.getDomainDataRegionStatistics(region);
+        assertEquals(aciertos, estadisticasRegion.getHitCount(), "aciertos en la región " + region);
+        assertEquals(fallos, estadisticasRegion.getMissCount(), "fallos en la región " + region);
+    }
+
+    private Proyecto crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        Tarea tarea = new Tarea();
+        tarea.setTitulo(nombre + " tarea");
+        tarea.setEstado(EstadoTarea.PENDIENTE);
+        tarea.setDuracionHoras(1.0);
+        tarea.setProyecto(proyecto);
+        proyecto.setTareas(new ArrayList<>(List.of(tarea)));
+        return proyectoService.guardar(proyecto);
+    }
+}
@@ -0,0 +1,122 @@
+package com.bitacora.bitacora.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cliente hacia OpenAI contra un servidor HTTP local que imita la API:
+ * reutiliza la conexión entre llamadas, descomprime gzip, corta las respuestas lentas
+ * en el timeout total y publica las métricas del pool.
+ */
+@SpringBootTest(properties = {
+        "bitacora.openai.timeout-total-ms=500",
+        "bitacora.openai.max-conexiones=2"
+})
+class ClienteOpenAiTest {
+
+    private static final String RESPUESTA = "{\"choices\":[{\"message\":{\"content\":\"hola\"}}]}";
+
+    private static HttpServer servidor;
+    private static final Set<Integer> puertosCliente = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger respuestasGzip = new AtomicInteger();
+
+    @Autowired
+    private RestTemplate restTemplateOpenAi;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newFixedThreadPool(4));
+        servidor.createContext("/v1/chat/completions", intercambio -> {
+            puertosCliente.add(intercambio.getRemoteAddress().getPort());
+            intercambio.getRequestBody().readAllBytes();
+            boolean gzip = "gzip".equals(intercambio.getRequestHeaders().getFirst("Accept-Encoding"));
+            if (gzip) respuestasGzip.incrementAndGet();
+            responder(intercambio, RESPUESTA, gzip);
+        });
+        servidor.createContext("/lento", intercambio -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            responder(intercambio, RESPUESTA, false);
+        });
+        servidor.start();
+    }
+
+    @AfterAll
+    static void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reutilizaLaConexionYDescomprimeGzip() {
+        String url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions";
+        for (int i = 0; i < 5; i++) {
+            Map<String, Object> respuesta = restTemplateOpenAi.postForObject(url, Map.of("model", "prueba"), Map.class);
+            assertNotNull(respuesta);
+            assertTrue(respuesta.containsKey("choices"));
+        }
+        assertEquals(1, puertosCliente.size(), "conexiones abiertas: " + puertosCliente);
+        assertEquals(5, respuestasGzip.get());
+
+        assertEquals(2.0, meterRegistry.get("bitacora.openai.conexiones.maximo").gauge().value());
+        assertEquals(0.0, meterRegistry.get("bitacora.openai.conexiones.activas").gauge().value());
+    }
+
+    @Test
+    void cortaLaRespuestaLentaEnElTimeoutTotal() {
+        String url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/lento";
+        long inicio = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () -> restTemplateOpenAi.postForObject(url, Map.of(), Map.class));
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        assertTrue(milisegundos < 2000, "tardó " + milisegundos + " ms");
+    }
+
+    private static void responder(HttpExchange intercambio, String cuerpo, boolean gzip) throws IOException {
+        byte[] contenido = cuerpo.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream();
+            try (GZIPOutputStream salida = new GZIPOutputStream(comprimido)) {
+                salida.write(contenido);
+            }
+            contenido = comprimido.toByteArray();
+            intercambio.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(200, contenido.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(contenido);
+        }
+    }
+}
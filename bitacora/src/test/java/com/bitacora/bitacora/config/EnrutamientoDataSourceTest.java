@@ -0,0 +1,109 @@
+package com.bitacora.bitacora.config;
+
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.service.TareaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dos bases H2 en memoria hacen de primaria y réplica. La "replicación" se simula copiando
+ * la primaria con SCRIPT: mientras no se copia, las lecturas readOnly no ven lo escrito.
+ * Las lecturas que deciden una escritura no deben ir a la réplica.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primaria;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "bitacora.datasource.replica.url=" + EnrutamientoDataSourceTest.URL_REPLICA
+})
+class EnrutamientoDataSourceTest {
+
+    static final String URL_REPLICA = "jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(URL_REPLICA, "sa", ""));
+
+    @BeforeEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM tareas");
+        jdbcTemplate.update("DELETE FROM proyectos");
+        replicar();
+    }
+
+    @Test
+    void lecturasReadOnlyVanALaReplicaYEscriturasALaPrimaria() {
+        double lecturasAntes = conexiones(DataSourceEnrutado.REPLICA);
+
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre("Dashboard");
+        proyectoService.guardar(proyecto);
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM proyectos", Integer.class));
+        assertTrue(proyectoService.obtenerTodos().isEmpty());
+        assertTrue(proyectoService.obtenerReporte().isEmpty());
+
+        replicar();
+
+        assertEquals(1, proyectoService.obtenerTodos().size());
+        assertEquals(1, proyectoService.obtenerReporte().size());
+        assertEquals(4, conexiones(DataSourceEnrutado.REPLICA) - lecturasAntes);
+    }
+
+    @Test
+    void lasEscriturasLeenElProyectoEnLaPrimaria() {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre("Recién creado");
+        Long proyectoId = proyectoService.guardar(proyecto).getId();
+        // Sin replicar y sin la caché de segundo nivel: solo la primaria tiene el proyecto
+        entityManagerFactory.getCache().evictAll();
+        double lecturasAntes = conexiones(DataSourceEnrutado.REPLICA);
+
+        assertTrue(proyectoService.obtenerParaModificar(proyectoId).isPresent());
+
+        // Como llega a POST /api/tareas: el proyecto solo con su id
+        Tarea tarea = new Tarea();
+        tarea.setTitulo("Primera tarea");
+        tarea.setDuracionHoras(2.0);
+        Proyecto referencia = new Proyecto();
+        referencia.setId(proyectoId);
+        tarea.setProyecto(referencia);
+        Tarea guardada = tareaService.guardar(tarea);
+
+        assertEquals("Recién creado", guardada.getProyecto().getNombre());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT tareas_totales FROM proyectos WHERE id = ?", Integer.class, proyectoId));
+        assertEquals(0, conexiones(DataSourceEnrutado.REPLICA) - lecturasAntes);
+    }
+
+    private void replicar() {
+        replica.execute("DROP ALL OBJECTS");
+        jdbcTemplate.queryForList("SCRIPT", String.class).forEach(replica::execute);
+    }
+
+    private double conexiones(String destino) {
+        return meterRegistry.get("bitacora.datasource.conexiones").tag("destino", destino).counter().count();
+    }
+}
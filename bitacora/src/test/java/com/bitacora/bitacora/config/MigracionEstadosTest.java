@@ -0,0 +1,74 @@
+package com.bitacora.bitacora.config;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Migración de los estados de texto libre al arrancar (NormalizacionInicial): los valores conocidos,
+ * en cualquier combinación de mayúsculas, pasan a la constante del enum; los desconocidos quedan
+ * tal cual y se informan, en lugar de convertirse en PENDIENTE, también cuando se edita la tarea.
+ */
+@SpringBootTest
+class MigracionEstadosTest {
+
+    private static final long PRIMER_ID = 900_000_001L;
+
+    @Autowired
+    private NormalizacionInicial normalizacionInicial;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migraLosConocidosYDejaLosDesconocidos() {
+        String[] anteriores = {"Completada", "EN progreso", "en_progreso", "Pendiente", null, "PENDIENTE", "bloqueada"};
+        for (int i = 0; i < anteriores.length; i++) {
+            jdbcTemplate.update("INSERT INTO tareas (id, titulo, estado, version) VALUES (?, ?, ?, 0)",
+                    PRIMER_ID + i, "Antigua " + i, anteriores[i]);
+        }
+
+        normalizacionInicial.rellenarColumnasNormalizadas();
+
+        String[] esperados = {"COMPLETADA", "EN_PROGRESO", "EN_PROGRESO", "PENDIENTE", "PENDIENTE", "PENDIENTE", "bloqueada"};
+        List<String> migrados = jdbcTemplate.queryForList(
+                "SELECT estado FROM tareas WHERE id >= ? ORDER BY id", String.class, PRIMER_ID);
+        assertArrayEquals(esperados, migrados.toArray());
+
+        List<Object[]> desconocidos = tareaRepository.contarEstadosDesconocidos();
+        assertEquals(1, desconocidos.size());
+        assertEquals("bloqueada", desconocidos.get(0)[0]);
+        assertEquals(1L, ((Number) desconocidos.get(0)[1]).longValue());
+
+        // Al leerla, la tarea con estado desconocido queda sin estado (no aparece como pendiente)
+        assertNull(tareaRepository.findById(PRIMER_ID + 6).orElseThrow().getEstado());
+        assertEquals(EstadoTarea.COMPLETADA, tareaRepository.findById(PRIMER_ID).orElseThrow().getEstado());
+
+        // Editar otra columna de esa tarea no reescribe su estado
+        Tarea bloqueada = tareaRepository.findById(PRIMER_ID + 6).orElseThrow();
+        bloqueada.setTitulo("Antigua renombrada");
+        tareaRepository.saveAndFlush(bloqueada);
+        assertEquals("bloqueada", jdbcTemplate.queryForObject(
+                "SELECT estado FROM tareas WHERE id = ?", String.class, PRIMER_ID + 6));
+        assertEquals("antigua renombrada", jdbcTemplate.queryForObject(
+                "SELECT titulo_normalizado FROM tareas WHERE id = ?", String.class, PRIMER_ID + 6));
+
+        // Es idempotente: una segunda pasada no cambia nada
+        normalizacionInicial.rellenarColumnasNormalizadas();
+        assertEquals(migrados, jdbcTemplate.queryForList(
+                "SELECT estado FROM tareas WHERE id >= ? ORDER BY id", String.class, PRIMER_ID));
+    }
+}
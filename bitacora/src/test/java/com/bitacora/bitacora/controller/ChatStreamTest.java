@@ -0,0 +1,128 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.dto.EventoChat;
+import com.bitacora.bitacora.service.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/chat/stream: los eventos llegan en orden y el emisor siempre se completa, con
+ * "resumen" o con "error"; con el único hilo ocupado y la cola llena responde 503 con Retry-After.
+ */
+@SpringBootTest(properties = {
+        "bitacora.chat.stream.hilos=1",
+        "bitacora.chat.stream.capacidad-cola=1"
+})
+@AutoConfigureMockMvc
+class ChatStreamTest {
+
+    private static final Pattern EVENTO = Pattern.compile("^event:(\\S+)$", Pattern.MULTILINE);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ChatService chatService;
+
+    @Test
+    void enviaLosEventosEnOrdenYCompleta() throws Exception {
+        when(chatService.procesarMensaje(anyString(), any())).thenAnswer(invocacion -> {
+            Consumer<EventoChat> progreso = invocacion.getArgument(1);
+            progreso.accept(new EventoChat(EventoChat.INICIO, "Analizando"));
+            progreso.accept(new EventoChat(EventoChat.PROYECTO, "Web"));
+            progreso.accept(new EventoChat(EventoChat.TAREA, "Diseño"));
+            return "✅ Proyecto Web creado";
+        });
+
+        String cuerpo = transmitir("crea el proyecto Web con la tarea Diseño");
+
+        assertEquals(List.of(EventoChat.INICIO, EventoChat.PROYECTO, EventoChat.TAREA, EventoChat.RESUMEN),
+                eventos(cuerpo), cuerpo);
+        assertTrue(cuerpo.contains("✅ Proyecto Web creado"), cuerpo);
+    }
+
+    @Test
+    void unErrorTerminaConElEventoDeError() throws Exception {
+        when(chatService.procesarMensaje(anyString(), any())).thenAnswer(invocacion -> {
+            Consumer<EventoChat> progreso = invocacion.getArgument(1);
+            progreso.accept(new EventoChat(EventoChat.INICIO, "Analizando"));
+            throw new IllegalStateException("OpenAI no respondió");
+        });
+
+        String cuerpo = transmitir("reunión");
+
+        assertEquals(List.of(EventoChat.INICIO, EventoChat.ERROR), eventos(cuerpo), cuerpo);
+        assertTrue(cuerpo.contains("OpenAI no respondió"), cuerpo);
+    }
+
+    @Test
+    void rechazaConLaColaLlena() throws Exception {
+        CountDownLatch enProceso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(chatService.procesarMensaje(anyString(), any())).thenAnswer(invocacion -> {
+            enProceso.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return "ok";
+        });
+
+        MvcResult primero = iniciar("reunión 1");
+        assertTrue(enProceso.await(10, TimeUnit.SECONDS));
+        MvcResult segundo = iniciar("reunión 2");
+
+        mockMvc.perform(post("/api/chat/stream").content("reunión 3"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+
+        liberar.countDown();
+        assertEquals(List.of(EventoChat.RESUMEN), eventos(terminar(primero)));
+        assertEquals(List.of(EventoChat.RESUMEN), eventos(terminar(segundo)));
+    }
+
+    private String transmitir(String mensaje) throws Exception {
+        return terminar(iniciar(mensaje));
+    }
+
+    private MvcResult iniciar(String mensaje) throws Exception {
+        return mockMvc.perform(post("/api/chat/stream").content(mensaje))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    //asyncDispatch espera a que el emisor se complete; si no se completara, fallaría por tiempo
+    private String terminar(MvcResult resultado) throws Exception {
+        resultado.getAsyncResult(TimeUnit.SECONDS.toMillis(10));
+        return mockMvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> eventos(String cuerpo) {
+        Matcher matcher = EVENTO.matcher(cuerpo);
+        return matcher.results().map(m -> m.group(1)).toList();
+    }
+}
@@ -0,0 +1,132 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.service.TareaService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ETag de proyectos y tareas: If-None-Match con el ETag vigente es 304, una escritura lo cambia,
+ * y cada variante de la respuesta (?vista=, ?fields= en cualquier orden) tiene el suyo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EtagRespuestaTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Test
+    void unaEscrituraCambiaElEtagDelRecurso() throws Exception {
+        Long id = crearProyecto("Etag recurso").getId();
+        String url = "/api/proyectos/" + id;
+
+        String etag = etag(get(url));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"otro\", W/" + etag))
+                .andExpect(status().isNotModified());
+
+        Proyecto cambios = new Proyecto();
+        cambios.setNombre("Etag recurso renombrado");
+        proyectoService.actualizar(id, cambios);
+
+        String nuevo = etag(get(url).header(HttpHeaders.IF_NONE_MATCH, etag));
+        assertNotEquals(etag, nuevo);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, nuevo)).andExpect(status().isNotModified());
+    }
+
+    @Test
+    void cadaVarianteTieneSuEtag() throws Exception {
+        Long id = crearProyecto("Etag variantes").getId();
+        String url = "/api/proyectos/" + id;
+
+        String completo = etag(get(url));
+        String resumen = etag(get(url).param("vista", "resumen"));
+        String campos = etag(get(url).param("fields", "nombre,id"));
+        assertEquals(3, Set.of(completo, resumen, campos).size(), completo + " " + resumen + " " + campos);
+
+        // Los mismos campos en otro orden son la misma variante
+        assertEquals(campos, etag(get(url).param("fields", " id,nombre,id")));
+        mockMvc.perform(get(url).param("fields", "id,nombre").header(HttpHeaders.IF_NONE_MATCH, campos))
+                .andExpect(status().isNotModified());
+
+        // El ETag de una variante no vale para otra
+        mockMvc.perform(get(url).param("vista", "resumen").header(HttpHeaders.IF_NONE_MATCH, completo))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, resumen));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, campos))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, completo));
+    }
+
+    @Test
+    void elEtagDeLasListasCoincideConElDeLasVersiones() throws Exception {
+        Proyecto proyecto = crearProyecto("Etag listas");
+        // Sin If-None-Match el ETag sale de las entidades cargadas; con él, de la consulta de versiones
+        for (MockHttpServletRequestBuilder peticion : List.of(
+                get("/api/tareas").param("proyectoId", proyecto.getId().toString()).param("tamano", "2"),
+                get("/api/tareas").param("proyectoId", proyecto.getId().toString()).param("tamano", "5"),
+                get("/api/tareas").param("todos", "true"),
+                get("/api/proyectos").param("todos", "true").param("fields", "id"),
+                get("/api/tareas").param("proyectoId", proyecto.getId().toString()).param("vista", "resumen"))) {
+            String etag = etag(peticion);
+            mockMvc.perform(peticion.header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+        }
+
+        String url = "/api/tareas?tamano=5&proyectoId=" + proyecto.getId();
+        String antes = etag(get(url));
+        Tarea cambios = new Tarea();
+        cambios.setEstado(EstadoTarea.COMPLETADA);
+        tareaService.actualizar(proyecto.getTareas().get(1).getId(), cambios);
+
+        String despues = etag(get(url).header(HttpHeaders.IF_NONE_MATCH, antes));
+        assertNotEquals(antes, despues);
+    }
+
+    private String etag(MockHttpServletRequestBuilder peticion) throws Exception {
+        return mockMvc.perform(peticion)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Proyecto crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Tarea tarea = new Tarea();
+            tarea.setTitulo(nombre + " tarea " + i);
+            tarea.setEstado(EstadoTarea.PENDIENTE);
+            tarea.setProyecto(proyecto);
+            tareas.add(tarea);
+        }
+        proyecto.setTareas(tareas);
+        return proyectoService.guardar(proyecto);
+    }
+}
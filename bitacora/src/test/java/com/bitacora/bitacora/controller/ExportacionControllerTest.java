@@ -0,0 +1,77 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cabeceras de /export: tipo de contenido, UTF-8 y nombre de archivo según el formato,
+ * y 400 para un formato desconocido.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportacionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Test
+    void exportaProyectosEnNdjsonPorDefecto() throws Exception {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre("Exportado, con \"comillas\"");
+        proyectoService.guardar(proyecto);
+
+        String cuerpo = mockMvc.perform(get("/api/proyectos/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"proyectos.ndjson\""))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(Arrays.stream(cuerpo.split("\n"))
+                .map(linea -> {
+                    try {
+                        return objectMapper.readTree(linea).get("nombre").asText();
+                    } catch (Exception e) {
+                        throw new AssertionError("línea que no es JSON: " + linea, e);
+                    }
+                })
+                .anyMatch("Exportado, con \"comillas\""::equals), cuerpo);
+    }
+
+    @Test
+    void exportaTareasEnCsv() throws Exception {
+        mockMvc.perform(get("/api/tareas/export").param("formato", "CSV"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tareas.csv\""))
+                .andExpect(content().string(startsWith(
+                        "id,titulo,descripcion,estado,fechaInicio,fechaFin,duracionHoras,observaciones,fechaCreacion,proyectoId\n")));
+    }
+
+    @Test
+    void rechazaFormatosDesconocidos() throws Exception {
+        mockMvc.perform(get("/api/tareas/export").param("formato", "xml")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/proyectos/export").param("formato", "xlsx")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,170 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/tareas/import: las filas válidas se guardan y suman a los totales del proyecto,
+ * las filas mal formadas se informan con su número sin frenar a las demás, y un error de la
+ * base de datos revierte solo el bloque en el que ocurrió (bloques de 2 filas en este test).
+ */
+@SpringBootTest(properties = "bitacora.importacion.tamano-bloque=2")
+@AutoConfigureMockMvc
+class ImportacionTareasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Test
+    void importaUnArchivoNdjsonValido() throws Exception {
+        Long existente = crearProyecto("Importación existente");
+
+        JsonNode resultado = importar("ndjson", """
+                {"titulo": "Por id", "estado": "COMPLETADA", "duracionHoras": 2.0, "proyectoId": %d}
+                {"titulo": "Por nombre", "duracionHoras": 1.5, "proyecto": "Importación nueva"}
+
+                {"titulo": "Mismo nombre", "estado": "en progreso", "proyecto": "  importación NUEVA "}
+                {"titulo": "Sin proyecto", "id": 12345}
+                """.formatted(existente));
+
+        assertEquals(4, resultado.get("filasLeidas").asInt());
+        assertEquals(4, resultado.get("tareasCreadas").asInt());
+        assertEquals(1, resultado.get("proyectosCreados").asInt());
+        assertEquals(0, resultado.get("filasConError").asInt());
+        assertEquals(0, resultado.get("errores").size());
+
+        assertTotales(existente, 1, 1, 2.0);
+        List<Proyecto> nuevos = proyectoRepository.findByNombreNormalizadoIn(
+                Set.of(NormalizadorTexto.normalizar("Importación nueva")));
+        assertEquals(1, nuevos.size(), "el nombre repetido se resuelve al mismo proyecto");
+        assertTotales(nuevos.get(0).getId(), 2, 0, 1.5);
+        assertEquals(List.of(EstadoTarea.PENDIENTE, EstadoTarea.EN_PROGRESO),
+                tareasDe(nuevos.get(0).getId()).stream().map(Tarea::getEstado).toList());
+    }
+
+    @Test
+    void informaLasFilasMalFormadasYGuardaLasDemas() throws Exception {
+        Long proyectoId = crearProyecto("Importación CSV");
+
+        JsonNode resultado = importar("csv", """
+                titulo,estado,duracionHoras,proyectoId,observaciones
+                Válida,COMPLETADA,3.0,%d,"con coma, y ""comillas""\"
+                ,PENDIENTE,1.0,%d,
+                Estado raro,archivada,1.0,%d,
+                Horas,PENDIENTE,muchas,%d,
+                Proyecto perdido,PENDIENTE,1.0,%d,
+                Otra válida,,0.5,%d,"dos
+                líneas"
+                """.formatted(proyectoId, proyectoId, proyectoId, proyectoId, Long.MAX_VALUE, proyectoId));
+
+        assertEquals(6, resultado.get("filasLeidas").asInt());
+        assertEquals(2, resultado.get("tareasCreadas").asInt());
+        assertEquals(4, resultado.get("filasConError").asInt());
+
+        JsonNode errores = resultado.get("errores");
+        assertEquals(List.of(2, 3, 4, 5), List.of(errores.get(0).get("indice").asInt(), errores.get(1).get("indice").asInt(),
+                errores.get(2).get("indice").asInt(), errores.get(3).get("indice").asInt()), errores.toString());
+        assertEquals("El título de la tarea es requerido", errores.get(0).get("error").asText());
+        assertTrue(errores.get(1).get("error").asText().contains("archivada"), errores.toString());
+        assertTrue(errores.get(2).get("error").asText().startsWith("Fila no válida"), errores.toString());
+        assertEquals("Proyecto no encontrado: " + Long.MAX_VALUE, errores.get(3).get("error").asText());
+
+        assertTotales(proyectoId, 2, 1, 3.5);
+        List<Tarea> tareas = tareasDe(proyectoId);
+        assertEquals("con coma, y \"comillas\"", tareas.get(0).getObservaciones());
+        assertEquals("dos\nlíneas", tareas.get(1).getObservaciones());
+    }
+
+    @Test
+    void unErrorDeLaBaseDeDatosRevierteSoloSuBloque() throws Exception {
+        Long proyectoId = crearProyecto("Importación por bloques");
+
+        // Bloque 1: filas 1 y 2. Bloque 2: filas 3 y 4, la 4 no cabe en la columna. Bloque 3: fila 5
+        JsonNode resultado = importar("ndjson", """
+                {"titulo": "Bloque uno A", "duracionHoras": 1.0, "proyectoId": %1$d}
+                {"titulo": "Bloque uno B", "duracionHoras": 1.0, "proyectoId": %1$d}
+                {"titulo": "Bloque dos A", "duracionHoras": 5.0, "proyecto": "Creado en el bloque revertido"}
+                {"titulo": "%2$s", "proyectoId": %1$d}
+                {"titulo": "Bloque tres", "estado": "COMPLETADA", "duracionHoras": 2.0, "proyectoId": %1$d}
+                """.formatted(proyectoId, "x".repeat(300)));
+
+        assertEquals(5, resultado.get("filasLeidas").asInt());
+        assertEquals(3, resultado.get("tareasCreadas").asInt());
+        assertEquals(0, resultado.get("proyectosCreados").asInt());
+        assertEquals(2, resultado.get("filasConError").asInt());
+        JsonNode errores = resultado.get("errores");
+        assertEquals(3, errores.get(0).get("indice").asInt());
+        assertEquals(4, errores.get(1).get("indice").asInt());
+        assertTrue(errores.get(0).get("error").asText().startsWith("Bloque no importado"), errores.toString());
+
+        assertEquals(List.of("Bloque uno A", "Bloque uno B", "Bloque tres"),
+                tareasDe(proyectoId).stream().map(Tarea::getTitulo).toList());
+        assertTotales(proyectoId, 3, 1, 4.0);
+        assertTrue(proyectoRepository.findByNombreNormalizadoIn(
+                Set.of(NormalizadorTexto.normalizar("Creado en el bloque revertido"))).isEmpty());
+    }
+
+    @Test
+    void rechazaFormatosDesconocidos() throws Exception {
+        mockMvc.perform(post("/api/tareas/import").param("formato", "xml").content("<tareas/>"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode importar(String formato, String contenido) throws Exception {
+        String respuesta = mockMvc.perform(post("/api/tareas/import").param("formato", formato).content(contenido))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta);
+    }
+
+    private List<Tarea> tareasDe(Long proyectoId) {
+        return tareaRepository.findByProyectoIdAndIdGreaterThanOrderByIdAsc(proyectoId, 0L, Limit.of(100), Tarea.class);
+    }
+
+    private void assertTotales(Long proyectoId, long tareas, long completadas, double horas) {
+        Proyecto proyecto = proyectoService.obtenerPorId(proyectoId).orElseThrow();
+        assertEquals(tareas, proyecto.getTareasTotales(), "tareas");
+        assertEquals(completadas, proyecto.getTareasCompletadas(), "completadas");
+        assertEquals(horas, proyecto.getHorasTareas(), 1e-9, "horas");
+    }
+
+    private Long crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        proyecto.setTareas(List.<Tarea>of());
+        return proyectoService.guardar(proyecto).getId();
+    }
+}
@@ -0,0 +1,129 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/proyectos paginado: el cursor recorre todos los proyectos sin repetir ni saltar,
+ * el tamaño se limita, un cursor inválido es 400 y las tareas de la página se cargan
+ * con una sola consulta (no una por proyecto).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ProyectoPaginacionTest {
+
+    private static final int PROYECTOS = 5;
+    private static final int TAREAS_POR_PROYECTO = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void elCursorRecorreTodasLasPaginas() throws Exception {
+        List<Long> ids = crearProyectos("Recorrido");
+        String cursor = Pagina.codificarCursor(ids.get(0) - 1);
+
+        List<Long> vistos = new ArrayList<>();
+        List<Integer> tamanos = new ArrayList<>();
+        while (cursor != null) {
+            JsonNode pagina = pedir("/api/proyectos?tamano=2&cursor=" + cursor);
+            assertEquals(2, pagina.get("tamano").asInt());
+            tamanos.add(pagina.get("items").size());
+            pagina.get("items").forEach(p -> vistos.add(p.get("id").asLong()));
+            cursor = pagina.get("siguienteCursor").isNull() ? null : pagina.get("siguienteCursor").asText();
+        }
+
+        assertEquals(ids, vistos);
+        assertEquals(List.of(2, 2, 1), tamanos);
+    }
+
+    @Test
+    void limitaElTamanoYRechazaCursoresInvalidos() throws Exception {
+        List<Long> ids = crearProyectos("Limites");
+        String cursor = Pagina.codificarCursor(ids.get(0) - 1);
+
+        JsonNode minimo = pedir("/api/proyectos?tamano=0&cursor=" + cursor);
+        assertEquals(1, minimo.get("tamano").asInt());
+        assertEquals(1, minimo.get("items").size());
+
+        JsonNode maximo = pedir("/api/proyectos?tamano=100000&cursor=" + cursor);
+        assertEquals(Pagina.TAMANO_MAXIMO, maximo.get("tamano").asInt());
+
+        mockMvc.perform(get("/api/proyectos").param("cursor", "!!!")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/proyectos").param("cursor", "YWJj")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cargaLasTareasDeLaPaginaEnUnaConsulta() throws Exception {
+        List<Long> ids = crearProyectos("Tareas");
+        String url = "/api/proyectos?tamano=" + PROYECTOS + "&cursor=" + Pagina.codificarCursor(ids.get(0) - 1);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        estadisticas.clear();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(PROYECTOS))
+                .andExpect(jsonPath("$.items[0].tareas.length()").value(TAREAS_POR_PROYECTO))
+                .andExpect(jsonPath("$.items[4].tareas.length()").value(TAREAS_POR_PROYECTO));
+
+        // Página de proyectos + tareas de toda la página (sin If-None-Match el ETag sale de lo cargado)
+        long sentencias = estadisticas.getPrepareStatementCount();
+        assertTrue(sentencias <= 2, "sentencias para una página de " + PROYECTOS + " proyectos: " + sentencias);
+    }
+
+    private JsonNode pedir(String url) throws Exception {
+        String cuerpo = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(cuerpo);
+    }
+
+    private List<Long> crearProyectos(String prefijo) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PROYECTOS; i++) {
+            Proyecto proyecto = new Proyecto();
+            proyecto.setNombre(prefijo + " " + i);
+            List<Tarea> tareas = new ArrayList<>();
+            for (int j = 0; j < TAREAS_POR_PROYECTO; j++) {
+                Tarea tarea = new Tarea();
+                tarea.setTitulo(prefijo + " " + i + " tarea " + j);
+                tarea.setEstado(EstadoTarea.PENDIENTE);
+                tareas.add(tarea);
+            }
+            proyecto.setTareas(tareas);
+            ids.add(proyectoService.guardar(proyecto).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,144 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.service.TareaService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints /api/tareas/batch: un resultado por elemento, los elementos inválidos se informan
+ * sin frenar a los demás, y un error de la base de datos deshace el lote completo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TareaLotesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Test
+    void creaActualizaYEliminaEnLote() throws Exception {
+        Long proyectoId = crearProyecto("Lote completo");
+
+        JsonNode creadas = enviar(post("/api/tareas/batch"), """
+                [{"titulo": "Uno", "duracionHoras": 2.0, "proyecto": {"id": %d}},
+                 {"titulo": "Dos", "estado": "COMPLETADA", "duracionHoras": 1.0, "proyecto": {"id": %d}}]
+                """.formatted(proyectoId, proyectoId));
+        assertTrue(creadas.get(0).get("ok").asBoolean() && creadas.get(1).get("ok").asBoolean(), creadas.toString());
+        Long uno = creadas.get(0).get("id").asLong();
+        Long dos = creadas.get(1).get("id").asLong();
+        assertTotales(proyectoId, 2, 1, 3.0);
+
+        JsonNode actualizadas = enviar(patch("/api/tareas/batch"), """
+                [{"id": %d, "estado": "COMPLETADA"}, {"id": %d, "duracionHoras": 4.0}]
+                """.formatted(uno, dos));
+        assertEquals(2, actualizadas.size());
+        assertEquals(EstadoTarea.COMPLETADA, tareaService.obtenerPorId(uno).orElseThrow().getEstado());
+        assertTotales(proyectoId, 2, 2, 6.0);
+
+        JsonNode eliminadas = enviar(delete("/api/tareas/batch"), "[%d, %d]".formatted(uno, dos));
+        assertTrue(eliminadas.get(0).get("ok").asBoolean() && eliminadas.get(1).get("ok").asBoolean());
+        assertFalse(tareaRepository.existsById(uno) || tareaRepository.existsById(dos));
+        assertTotales(proyectoId, 0, 0, 0.0);
+    }
+
+    @Test
+    void informaLosElementosInvalidosYGuardaLosDemas() throws Exception {
+        Long proyectoId = crearProyecto("Lote parcial");
+
+        JsonNode resultados = enviar(post("/api/tareas/batch"), """
+                [{"titulo": "Válida", "duracionHoras": 1.5, "proyecto": {"id": %d}},
+                 {"titulo": "  "},
+                 {"titulo": "Sin proyecto", "proyecto": {"id": %d}}]
+                """.formatted(proyectoId, Long.MAX_VALUE));
+
+        assertEquals(3, resultados.size());
+        assertTrue(resultados.get(0).get("ok").asBoolean());
+        assertEquals("El título de la tarea es requerido", resultados.get(1).get("error").asText());
+        assertEquals("Proyecto no encontrado: " + Long.MAX_VALUE, resultados.get(2).get("error").asText());
+        assertEquals(2, resultados.get(2).get("indice").asInt());
+        assertTrue(tareaRepository.existsById(resultados.get(0).get("id").asLong()));
+        assertTotales(proyectoId, 1, 0, 1.5);
+
+        JsonNode borrado = enviar(delete("/api/tareas/batch"), "[%d]".formatted(Long.MAX_VALUE));
+        assertEquals("Tarea no encontrada", borrado.get(0).get("error").asText());
+
+        mockMvc.perform(post("/api/tareas/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unErrorDeLaBaseDeDatosDeshaceTodoElLote() throws Exception {
+        Long proyectoId = crearProyecto("Lote deshecho");
+
+        // La segunda tarea no cabe en la columna: falla al escribir, después de aceptar la primera
+        String contenido = """
+                [{"titulo": "Antes del error", "duracionHoras": 3.0, "proyecto": {"id": %d}},
+                 {"titulo": "%s", "proyecto": {"id": %d}}]
+                """.formatted(proyectoId, "x".repeat(300), proyectoId);
+        ServletException error = assertThrows(ServletException.class, () -> mockMvc.perform(
+                post("/api/tareas/batch").contentType(MediaType.APPLICATION_JSON).content(contenido)));
+        assertInstanceOf(DataIntegrityViolationException.class, error.getCause());
+
+        assertFalse(tareaService.existeTitulo("Antes del error", proyectoService.obtenerPorId(proyectoId).orElseThrow(), null));
+        assertTotales(proyectoId, 0, 0, 0.0);
+    }
+
+    private JsonNode enviar(MockHttpServletRequestBuilder peticion, String contenido) throws Exception {
+        String respuesta = mockMvc.perform(peticion.contentType(MediaType.APPLICATION_JSON).content(contenido))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(respuesta);
+    }
+
+    private void assertTotales(Long proyectoId, long tareas, long completadas, double horas) {
+        Proyecto proyecto = proyectoService.obtenerPorId(proyectoId).orElseThrow();
+        assertEquals(tareas, proyecto.getTareasTotales(), "tareas");
+        assertEquals(completadas, proyecto.getTareasCompletadas(), "completadas");
+        assertEquals(horas, proyecto.getHorasTareas(), 1e-9, "horas");
+    }
+
+    private Long crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        proyecto.setTareas(List.<Tarea>of());
+        return proyectoService.guardar(proyecto).getId();
+    }
+}
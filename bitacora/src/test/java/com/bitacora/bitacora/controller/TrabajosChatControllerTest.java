@@ -0,0 +1,82 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.service.ChatService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /api/chat/jobs: el POST responde 202 con el id y Location, el GET de esa dirección devuelve
+ * el estado hasta que termina con el resultado, y un id desconocido responde 404.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TrabajosChatControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ChatService chatService;
+
+    @Test
+    void encolaYDevuelveElResultadoEnLaDireccionIndicada() throws Exception {
+        when(chatService.procesarMensaje(anyString())).thenAnswer(invocacion -> "✅ " + invocacion.getArgument(0));
+
+        MvcResult encolado = mockMvc.perform(post("/api/chat/jobs").content("reunión del lunes"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        JsonNode trabajo = leer(encolado);
+        long id = trabajo.get("id").asLong();
+        assertEquals("/api/chat/jobs/" + id, encolado.getResponse().getHeader(HttpHeaders.LOCATION));
+        assertEquals("EN_COLA", trabajo.get("estado").asText());
+
+        JsonNode terminado = esperar(encolado.getResponse().getHeader(HttpHeaders.LOCATION));
+        assertEquals(id, terminado.get("id").asLong());
+        assertEquals("TERMINADO", terminado.get("estado").asText());
+        assertEquals("✅ reunión del lunes", terminado.get("resultado").asText());
+    }
+
+    @Test
+    void unTrabajoDesconocidoResponde404() throws Exception {
+        mockMvc.perform(get("/api/chat/jobs/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode esperar(String direccion) throws Exception {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            JsonNode trabajo = leer(mockMvc.perform(get(direccion)).andExpect(status().isOk()).andReturn());
+            String estado = trabajo.get("estado").asText();
+            if (estado.equals("TERMINADO") || estado.equals("FALLIDO")) {
+                return trabajo;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("El trabajo " + direccion + " no terminó");
+    }
+
+    private JsonNode leer(MvcResult resultado) throws Exception {
+        return objectMapper.readTree(resultado.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+}
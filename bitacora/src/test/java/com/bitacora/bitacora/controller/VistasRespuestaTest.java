@@ -0,0 +1,117 @@
+package com.bitacora.bitacora.controller;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * ?vista=resumen y ?fields= en proyectos y tareas: los contadores del resumen coinciden con las
+ * tareas del proyecto, solo se devuelven los campos pedidos y un campo desconocido es 400.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class VistasRespuestaTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Test
+    void elResumenTraeLosContadoresSinTareas() throws Exception {
+        Proyecto proyecto = crearProyecto("Resumen");
+
+        JsonNode resumen = pedir("/api/proyectos/" + proyecto.getId() + "?vista=resumen");
+        assertEquals(3, resumen.get("tareasTotales").asInt());
+        assertEquals(1, resumen.get("tareasCompletadas").asInt());
+        assertEquals(6.0, resumen.get("duracionHoras").asDouble(), 1e-9);
+        assertFalse(resumen.has("tareas") || resumen.has("descripcion"), resumen.toString());
+
+        Long tareaId = proyecto.getTareas().get(0).getId();
+        JsonNode tarea = pedir("/api/tareas/" + tareaId + "?vista=RESUMEN");
+        assertEquals(proyecto.getId(), tarea.get("proyectoId").asLong());
+        assertFalse(tarea.has("descripcion") || tarea.has("observaciones"), tarea.toString());
+    }
+
+    @Test
+    void soloDevuelveLosCamposPedidos() throws Exception {
+        Proyecto proyecto = crearProyecto("Campos");
+
+        JsonNode completo = pedir("/api/proyectos/" + proyecto.getId() + "?fields=nombre,id");
+        assertEquals(List.of("id", "nombre"), nombres(completo));
+
+        JsonNode resumen = pedir("/api/proyectos/" + proyecto.getId() + "?vista=resumen&fields=tareasTotales");
+        assertEquals(List.of("tareasTotales"), nombres(resumen));
+        assertEquals(3, resumen.get("tareasTotales").asInt());
+
+        JsonNode pagina = pedir("/api/tareas?proyectoId=" + proyecto.getId() + "&fields=titulo");
+        assertEquals(3, pagina.get("items").size());
+        pagina.get("items").forEach(t -> assertEquals(List.of("titulo"), nombres(t)));
+    }
+
+    @Test
+    void rechazaCamposYVistasDesconocidos() throws Exception {
+        Long id = crearProyecto("Desconocidos").getId();
+
+        mockMvc.perform(get("/api/proyectos/" + id).param("fields", "id,color")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/proyectos").param("fields", "nombreNormalizado")).andExpect(status().isBadRequest());
+        // descripcion existe en la vista completa, no en el resumen
+        mockMvc.perform(get("/api/proyectos").param("vista", "resumen").param("fields", "descripcion"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tareas").param("fields", "proyecto")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tareas/search").param("q", "tarea").param("fields", "texto"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/proyectos/" + id).param("vista", "corta")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode pedir(String url) throws Exception {
+        String cuerpo = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(cuerpo);
+    }
+
+    private static List<String> nombres(JsonNode objeto) {
+        List<String> nombres = new ArrayList<>();
+        objeto.fieldNames().forEachRemaining(nombres::add);
+        return nombres;
+    }
+
+    private Proyecto crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        proyecto.setDescripcion("Descripción de " + nombre);
+        List<Tarea> tareas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Tarea tarea = new Tarea();
+            tarea.setTitulo(nombre + " tarea " + i);
+            tarea.setDescripcion("Detalle " + i);
+            tarea.setEstado(i == 0 ? EstadoTarea.COMPLETADA : EstadoTarea.PENDIENTE);
+            tarea.setDuracionHoras(2.0);
+            tarea.setProyecto(proyecto);
+            tareas.add(tarea);
+        }
+        proyecto.setTareas(tareas);
+        return proyectoService.guardar(proyecto);
+    }
+}
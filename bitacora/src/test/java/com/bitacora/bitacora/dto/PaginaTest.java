@@ -0,0 +1,75 @@
+package com.bitacora.bitacora.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cursor opaco (ida y vuelta, valores inválidos), límites del tamaño pedido
+ * y corte de la página con la fila extra que indica si hay más resultados.
+ */
+class PaginaTest {
+
+    @Test
+    void elCursorVuelveAlMismoId() {
+        for (long id : new long[]{1L, 50L, 123_456_789L, Long.MAX_VALUE}) {
+            String cursor = Pagina.codificarCursor(id);
+            assertEquals(id, Pagina.decodificarCursor(cursor));
+            // Base64 URL sin relleno: se puede poner tal cual en la query string
+            assertEquals(-1, indiceDeCaracterNoUrl(cursor), cursor);
+        }
+        assertEquals(0L, Pagina.decodificarCursor(null));
+        assertEquals(0L, Pagina.decodificarCursor(" "));
+    }
+
+    @Test
+    void rechazaCursoresInvalidos() {
+        String noEsNumero = Pagina.codificarCursor(1L).replace("MQ", "YWJj"); // "abc" en Base64
+        for (String cursor : new String[]{"!!!", "a b", noEsNumero}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> Pagina.decodificarCursor(cursor));
+            assertEquals("Cursor inválido: " + cursor, e.getMessage());
+        }
+    }
+
+    @Test
+    void limitaElTamanoPedido() {
+        assertEquals(Pagina.TAMANO_POR_DEFECTO, Pagina.limitarTamano(null));
+        assertEquals(1, Pagina.limitarTamano(0));
+        assertEquals(1, Pagina.limitarTamano(-5));
+        assertEquals(7, Pagina.limitarTamano(7));
+        assertEquals(Pagina.TAMANO_MAXIMO, Pagina.limitarTamano(Pagina.TAMANO_MAXIMO));
+        assertEquals(Pagina.TAMANO_MAXIMO, Pagina.limitarTamano(Pagina.TAMANO_MAXIMO + 1));
+    }
+
+    @Test
+    void laFilaExtraSoloIndicaQueHayMas() {
+        Pagina<Long> incompleta = Pagina.de(List.of(1L, 2L), 3, id -> id);
+        assertEquals(List.of(1L, 2L), incompleta.items());
+        assertNull(incompleta.siguienteCursor());
+
+        Pagina<Long> justa = Pagina.de(List.of(1L, 2L, 3L), 3, id -> id);
+        assertEquals(List.of(1L, 2L, 3L), justa.items());
+        assertNull(justa.siguienteCursor());
+
+        Pagina<Long> conMas = Pagina.de(List.of(1L, 2L, 3L, 4L), 3, id -> id);
+        assertEquals(List.of(1L, 2L, 3L), conMas.items());
+        assertEquals(3L, Pagina.decodificarCursor(conMas.siguienteCursor()));
+
+        Pagina<Long> vacia = Pagina.de(List.of(), 3, id -> id);
+        assertEquals(List.of(), vacia.items());
+        assertNull(vacia.siguienteCursor());
+    }
+
+    private static int indiceDeCaracterNoUrl(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '-' || c == '_')) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bitacora.bitacora.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Lectura de la columna estado: nombres de constante, texto libre anterior sin importar
+ * mayúsculas ni tildes, y valores desconocidos que se leen como sin estado (no como PENDIENTE).
+ */
+class EstadoTareaConverterTest {
+
+    private final EstadoTareaConverter converter = new EstadoTareaConverter();
+
+    @Test
+    void guardaElNombreDeLaConstante() {
+        assertEquals("EN_PROGRESO", converter.convertToDatabaseColumn(EstadoTarea.EN_PROGRESO));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void leeValoresConocidosYTextoLibre() {
+        assertEquals(EstadoTarea.PENDIENTE, converter.convertToEntityAttribute("PENDIENTE"));
+        assertEquals(EstadoTarea.EN_PROGRESO, converter.convertToEntityAttribute("EN_PROGRESO"));
+        assertEquals(EstadoTarea.COMPLETADA, converter.convertToEntityAttribute("COMPLETADA"));
+
+        assertEquals(EstadoTarea.COMPLETADA, converter.convertToEntityAttribute("Completada"));
+        assertEquals(EstadoTarea.EN_PROGRESO, converter.convertToEntityAttribute("  en PROGRESO "));
+        assertEquals(EstadoTarea.EN_PROGRESO, converter.convertToEntityAttribute("In-Progress"));
+        assertEquals(EstadoTarea.PENDIENTE, converter.convertToEntityAttribute("To Do"));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void unValorDesconocidoNoSeConvierteEnPendiente() {
+        assertNull(converter.convertToEntityAttribute("bloqueada"));
+        assertNull(converter.convertToEntityAttribute("cancelada"));
+    }
+}
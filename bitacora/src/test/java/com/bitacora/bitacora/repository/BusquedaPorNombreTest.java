@@ -0,0 +1,77 @@
+package com.bitacora.bitacora.repository;
+
+import com.bitacora.bitacora.config.NormalizacionInicial;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.service.ProyectoService;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsquedas por nombre y título normalizados: encuentran los registros con tildes sin importar
+ * las mayúsculas de la consulta, tanto los creados por la aplicación como los anteriores a la columna
+ * normalizada, que NormalizacionInicial completa con la misma regla (NormalizadorTexto).
+ */
+@SpringBootTest
+class BusquedaPorNombreTest {
+
+    private static final long PRIMER_ID = 910_000_001L;
+
+    @Autowired
+    private NormalizacionInicial normalizacionInicial;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void encuentraLosRegistrosAnterioresALaColumnaNormalizada() {
+        jdbcTemplate.update("INSERT INTO proyectos (id, nombre, tareas_totales, tareas_completadas, version) " +
+                "VALUES (?, ?, 0, 0, 0)", PRIMER_ID, "  Diseño GRÁFICO  Anual ");
+        jdbcTemplate.update("INSERT INTO tareas (id, titulo, estado, proyecto_id, version) VALUES (?, ?, ?, ?, 0)",
+                PRIMER_ID, "Revisión de ÍCONOS", "PENDIENTE", PRIMER_ID);
+
+        normalizacionInicial.rellenarColumnasNormalizadas();
+
+        assertEquals(NormalizadorTexto.normalizar("  Diseño GRÁFICO  Anual "), jdbcTemplate.queryForObject(
+                "SELECT nombre_normalizado FROM proyectos WHERE id = ?", String.class, PRIMER_ID));
+        assertEquals(List.of(PRIMER_ID), proyectoRepository.buscarIdsPorNombreNormalizado(
+                NormalizadorTexto.normalizar("diseño gráfico  ANUAL"), Limit.of(10)));
+        assertEquals(1, proyectoRepository.findByNombreNormalizadoIn(
+                Set.of(NormalizadorTexto.normalizar("DISEÑO Gráfico  anual"))).size());
+
+        assertEquals(List.of(PRIMER_ID), tareaRepository.buscarIdsPorTituloNormalizado(
+                NormalizadorTexto.normalizar("revisión de íconos"), Limit.of(10)));
+        assertTrue(tareaRepository.existsByTituloNormalizadoAndProyectoId(
+                NormalizadorTexto.normalizar(" REVISIÓN DE ÍCONOS "), PRIMER_ID));
+    }
+
+    @Test
+    void encuentraLosCreadosPorLaAplicacion() {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre("Ñandú Veloz");
+        proyecto.setTareas(List.<Tarea>of());
+        Long id = proyectoService.guardar(proyecto).getId();
+
+        assertEquals(List.of(id), proyectoRepository.buscarIdsPorNombreNormalizado(
+                NormalizadorTexto.normalizar("ÑANDÚ veloz "), Limit.of(10)));
+    }
+}
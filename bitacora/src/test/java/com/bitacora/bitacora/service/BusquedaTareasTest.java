@@ -0,0 +1,81 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.Pagina;
+import com.bitacora.bitacora.model.Tarea;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsqueda por texto: orden por relevancia (el título pesa más), paginación por cursor
+ * sin repetir ni saltar resultados, y el índice al día tras editar y eliminar tareas.
+ */
+@SpringBootTest
+class BusquedaTareasTest {
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private BusquedaService busquedaService;
+
+    @Test
+    void ordenaPorRelevanciaYPagina() {
+        Tarea enDescripcion = crear("Enviar reporte semanal", "Incluye datos del tablero Zafiro", null);
+        Tarea enTitulo = crear("Revisar tablero Zafiro", null, null);
+        Tarea enAmbos = crear("Zafiro: migrar servidor", null, "Servidor del tablero zafiro caído");
+
+        List<Long> ids = idsDe(busquedaService.buscarTareas("zafiro servidor", null, null));
+        assertEquals(List.of(enAmbos.getId(), enTitulo.getId(), enDescripcion.getId()), ids);
+
+        // Sin tildes ni mayúsculas en la consulta, y de a un resultado por página
+        List<Long> paginados = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Tarea> pagina = busquedaService.buscarTareas("ZAFIRO Tablero", cursor, 1);
+            paginados.addAll(idsDe(pagina));
+            cursor = pagina.siguienteCursor();
+        } while (cursor != null);
+        assertEquals(3, paginados.size());
+        assertTrue(paginados.containsAll(ids));
+
+        assertThrows(IllegalArgumentException.class, () -> busquedaService.buscarTareas("de la", null, null));
+    }
+
+    @Test
+    void mantieneElIndiceAlEditarYEliminar() {
+        Tarea tarea = crear("Llamar a proveedor Ónix", null, null);
+        assertEquals(List.of(tarea.getId()), idsDe(busquedaService.buscarTareas("onix", null, null)));
+
+        Tarea cambios = new Tarea();
+        cambios.setTitulo("Llamar a proveedor Ámbar");
+        tareaService.actualizar(tarea.getId(), cambios);
+        assertTrue(idsDe(busquedaService.buscarTareas("onix", null, null)).isEmpty());
+        assertEquals(List.of(tarea.getId()), idsDe(busquedaService.buscarTareas("ambar", null, null)));
+
+        tareaService.eliminar(tarea.getId());
+        Pagina<Tarea> vacia = busquedaService.buscarTareas("ambar", null, null);
+        assertTrue(vacia.items().isEmpty());
+        assertNull(vacia.siguienteCursor());
+    }
+
+    private Tarea crear(String titulo, String descripcion, String observaciones) {
+        Tarea tarea = new Tarea();
+        tarea.setTitulo(titulo);
+        tarea.setDescripcion(descripcion);
+        tarea.setObservaciones(observaciones);
+        return tareaService.guardar(tarea);
+    }
+
+    private static List<Long> idsDe(Pagina<Tarea> pagina) {
+        return pagina.items().stream().map(Tarea::getId).toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bitacora.bitacora.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Caché de respuestas de OpenAI: la clave ignora diferencias de espacios pero no de modelo
+ * ni temperatura, las respuestas con una hora del mismo día no se guardan salvo la fecha actual
+ * del prompt, que se reemplaza al reutilizarlas, los aciertos se reflejan en las métricas y las
+ * entradas sobreviven a un reinicio cuando hay archivo configurado.
+ */
+class CacheRespuestasIATest {
+
+    private static final String ACCION = "{\"accion\":\"crear_tarea\",\"titulo\":\"Llamar a Ana\"}";
+
+    @Test
+    void claveNormalizaElMensaje() {
+        String clave = CacheRespuestasIA.clave("comando", "gpt-4o-mini", 0.0, "crear tarea  Llamar a Ana");
+        assertEquals(clave, CacheRespuestasIA.clave("comando", "gpt-4o-mini", 0.0, " crear tarea\nLlamar a Ana "));
+        assertNotEquals(clave, CacheRespuestasIA.clave("comando", "gpt-4o", 0.0, "crear tarea Llamar a Ana"));
+        assertNotEquals(clave, CacheRespuestasIA.clave("comando", "gpt-4o-mini", 0.1, "crear tarea Llamar a Ana"));
+        assertNotEquals(clave, CacheRespuestasIA.clave("reunion", "gpt-4o-mini", 0.0, "crear tarea Llamar a Ana"));
+    }
+
+    @Test
+    void noGuardaLasRespuestasQueDependenDeLaHora() {
+        CacheRespuestasIA cache = new CacheRespuestasIA(new SimpleMeterRegistry(), 10, 60, "");
+        LocalDate hoy = LocalDate.now();
+        String ahora = hoy.atTime(14, 35, 12).toString();
+        String manana = hoy.plusDays(1).atTime(10, 0).toString();
+
+        // Fecha y hora de hoy, también dentro de un array de acciones de reunión
+        String conHora = "{\"accion\":\"crear\",\"tarea\":{\"titulo\":\"Informe\",\"fechaInicio\":\"" + ahora + "\"}}";
+        String reunion = "[{\"accion\":\"crear\"},{\"tarea\":{\"fechaFin\":\"" + ahora + "\"}}]";
+        assertTrue(cache.dependeDeLaHora(conHora, hoy));
+        assertTrue(cache.dependeDeLaHora(reunion, hoy));
+        // Otro día, solo el día de hoy o sin fechas: no dependen de la hora
+        assertFalse(cache.dependeDeLaHora("{\"tarea\":{\"fechaFin\":\"" + manana + "\"}}", hoy));
+        assertFalse(cache.dependeDeLaHora("{\"tarea\":{\"fechaFin\":\"" + hoy.atStartOfDay() + "\"}}", hoy));
+        assertFalse(cache.dependeDeLaHora(ACCION, hoy));
+
+        // Pedidos hechos a otra hora: 14:35 no es la fecha actual del prompt
+        LocalDateTime pedido = hoy.atTime(9, 0);
+        cache.guardar("con-hora", conHora, pedido);
+        cache.guardar("reunion", reunion, pedido);
+        cache.guardar("sin-hora", ACCION, pedido);
+        assertTrue(cache.obtener("con-hora", pedido).isEmpty());
+        assertTrue(cache.obtener("reunion", pedido).isEmpty());
+        assertEquals(Optional.of(ACCION), cache.obtener("sin-hora", pedido));
+    }
+
+    @Test
+    void reemplazaLaFechaActualAlReutilizarLaRespuesta() {
+        CacheRespuestasIA cache = new CacheRespuestasIA(new SimpleMeterRegistry(), 10, 60, "");
+        LocalDate hoy = LocalDate.now();
+        LocalDateTime primerPedido = hoy.atTime(9, 15, 30);
+        LocalDateTime segundoPedido = hoy.atTime(16, 40, 5);
+        String manana = hoy.plusDays(1).atTime(10, 0).toString();
+
+        // Transcripción: fechaInicio es la fecha actual del prompt (sin segundos); fechaFin, otro día
+        String reunion = "[{\"accion\":\"crear\",\"tipo\":\"tarea\",\"datos\":{\"titulo\":\"Informe\","
+                + "\"fechaInicio\":\"" + hoy.atTime(9, 15) + "\",\"fechaFin\":\"" + manana + "\"}}]";
+        cache.guardar("reunion", reunion, primerPedido);
+
+        String reutilizada = cache.obtener("reunion", segundoPedido).orElseThrow();
+        assertEquals("[{\"accion\":\"crear\",\"tipo\":\"tarea\",\"datos\":{\"titulo\":\"Informe\","
+                + "\"fechaInicio\":\"" + segundoPedido + "\",\"fechaFin\":\"" + manana + "\"}}]", reutilizada);
+        assertFalse(reutilizada.contains(CacheRespuestasIA.MARCA_FECHA_ACTUAL));
+    }
+
+    @Test
+    void registraAciertosYSePersisteEnDisco(@TempDir Path directorio) {
+        MeterRegistry metricas = new SimpleMeterRegistry();
+        Path archivo = directorio.resolve("respuestas.ndjson");
+        String clave = CacheRespuestasIA.clave("comando", "gpt-4o-mini", 0.0, "crear tarea Llamar a Ana");
+
+        CacheRespuestasIA cache = new CacheRespuestasIA(metricas, 10, 60, archivo.toString());
+        LocalDateTime ahora = LocalDateTime.now().withNano(0);
+        assertTrue(cache.obtener(clave, ahora).isEmpty());
+        cache.guardar(clave, ACCION, ahora);
+        assertEquals(Optional.of(ACCION), cache.obtener(clave, ahora));
+        assertEquals(1.0, metricas.get("cache.gets").tag("cache", CacheRespuestasIA.NOMBRE)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, metricas.get("cache.gets").tag("cache", CacheRespuestasIA.NOMBRE)
+                .tag("result", "miss").functionCounter().count());
+
+        cache.guardarEnDisco();
+        CacheRespuestasIA recargada = new CacheRespuestasIA(new SimpleMeterRegistry(), 10, 60, archivo.toString());
+        assertEquals(Optional.of(ACCION), recargada.obtener(clave, ahora));
+
+        // Con TTL 0 todo lo guardado ya está vencido al cargar
+        CacheRespuestasIA vencida = new CacheRespuestasIA(new SimpleMeterRegistry(), 10, 0, archivo.toString());
+        assertTrue(vencida.obtener(clave, ahora).isEmpty());
+    }
+}
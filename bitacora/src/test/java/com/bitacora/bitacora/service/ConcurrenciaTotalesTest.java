@@ -0,0 +1,140 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Muchos hilos editan a la vez tareas de un mismo proyecto (horas y estado), crean y borran
+ * tareas y modifican el propio proyecto. Al terminar, los totales guardados en el proyecto
+ * deben coincidir con lo que suman sus tareas: ninguna escritura pisó a otra.
+ */
+@SpringBootTest(properties = {"bitacora.concurrencia.intentos=50", "bitacora.concurrencia.espera-ms=2"})
+class ConcurrenciaTotalesTest {
+
+    private static final int HILOS = 12;
+    private static final int OPERACIONES = 30;
+    private static final int TAREAS_INICIALES = 6;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void escriturasConcurrentesNoPierdenTotales() throws InterruptedException {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre("Concurrencia");
+        List<Tarea> iniciales = new ArrayList<>();
+        for (int i = 0; i < TAREAS_INICIALES; i++) {
+            Tarea tarea = new Tarea();
+            tarea.setTitulo("Compartida " + i);
+            tarea.setEstado(EstadoTarea.PENDIENTE);
+            tarea.setDuracionHoras(1.0);
+            tarea.setProyecto(proyecto);
+            iniciales.add(tarea);
+        }
+        proyecto.setTareas(iniciales);
+        Long proyectoId = proyectoService.guardar(proyecto).getId();
+        List<Long> compartidas = iniciales.stream().map(Tarea::getId).toList();
+
+        Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            hilos.submit(() -> {
+                Random azar = new Random(hilo);
+                List<Long> propias = new ArrayList<>();
+                try {
+                    salida.await();
+                    for (int i = 0; i < OPERACIONES; i++) {
+                        switch ((hilo + i) % 4) {
+                            case 0 -> {
+                                Tarea cambios = new Tarea();
+                                cambios.setDuracionHoras(azar.nextInt(17) / 2.0);
+                                cambios.setEstado(azar.nextBoolean() ? EstadoTarea.COMPLETADA : EstadoTarea.PENDIENTE);
+                                tareaService.actualizar(compartidas.get(azar.nextInt(compartidas.size())), cambios);
+                            }
+                            case 1 -> {
+                                // Como las ediciones del chat: valores ya decididos que se aplican al guardar
+                                double horas = azar.nextInt(17) / 2.0;
+                                EstadoTarea estado = azar.nextBoolean() ? EstadoTarea.COMPLETADA : EstadoTarea.EN_PROGRESO;
+                                tareaService.modificar(compartidas.get(azar.nextInt(compartidas.size())), tarea -> {
+                                    tarea.setDuracionHoras(horas);
+                                    tarea.setEstado(estado);
+                                });
+                            }
+                            case 2 -> {
+                                String descripcion = "Hilo " + hilo + " operación " + i;
+                                if (azar.nextBoolean()) {
+                                    Proyecto cambios = new Proyecto();
+                                    cambios.setDescripcion(descripcion);
+                                    proyectoService.actualizar(proyectoId, cambios);
+                                } else {
+                                    proyectoService.modificar(proyectoId, p -> p.setDescripcion(descripcion));
+                                }
+                            }
+                            default -> {
+                                if (!propias.isEmpty() && azar.nextBoolean()) {
+                                    tareaService.eliminar(propias.remove(propias.size() - 1));
+                                } else {
+                                    Tarea nueva = new Tarea();
+                                    nueva.setTitulo("Hilo " + hilo + " tarea " + i);
+                                    nueva.setEstado(azar.nextBoolean() ? EstadoTarea.COMPLETADA : EstadoTarea.EN_PROGRESO);
+                                    nueva.setDuracionHoras(2.5);
+                                    nueva.setProyecto(proyectoService.obtenerPorId(proyectoId).orElseThrow());
+                                    propias.add(tareaService.guardar(nueva).getId());
+                                }
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            });
+        }
+        salida.countDown();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(2, TimeUnit.MINUTES), "los hilos no terminaron");
+        assertTrue(errores.isEmpty(), () -> "operaciones fallidas: " + errores);
+
+        List<Tarea> tareas = tareaRepository.findByProyectoIdAndIdGreaterThanOrderByIdAsc(
+                proyectoId, 0L, Limit.of(10_000), Tarea.class);
+        Proyecto guardado = proyectoService.obtenerPorId(proyectoId).orElseThrow();
+        double reintentos = meterRegistry.counter("bitacora.concurrencia.reintentos").count();
+        String detalle = HILOS + " hilos x " + OPERACIONES + " operaciones, " + (long) reintentos + " reintentos";
+
+        assertEquals(tareas.size(), guardado.getTareasTotales(), "tareas totales (" + detalle + ")");
+        assertEquals(tareas.stream().filter(Tarea::estaCompletada).count(), guardado.getTareasCompletadas(),
+                "tareas completadas (" + detalle + ")");
+        assertEquals(tareas.stream().mapToDouble(Tarea::getDuracionHoras).sum(), guardado.getHorasTareas(), 1e-9,
+                "horas (" + detalle + ")");
+    }
+}
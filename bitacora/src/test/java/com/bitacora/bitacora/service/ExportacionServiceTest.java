@@ -0,0 +1,92 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.ProyectoExportado;
+import com.bitacora.bitacora.dto.TareaExportada;
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Formato de las exportaciones: cabecera y escapado CSV (comas, comillas, saltos de línea, null),
+ * una línea JSON por fila en NDJSON, y salida sin filas cuando no hay datos.
+ */
+class ExportacionServiceTest {
+
+    private static final LocalDateTime CREACION = LocalDateTime.of(2025, 3, 14, 9, 30);
+
+    private final TareaRepository tareaRepository = mock(TareaRepository.class);
+    private final ProyectoRepository proyectoRepository = mock(ProyectoRepository.class);
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) // Como lo configura Spring Boot
+            .build();
+    private final ExportacionService exportacionService =
+            new ExportacionService(tareaRepository, proyectoRepository, objectMapper);
+
+    @Test
+    void csvConCabeceraYTextosEscapados() {
+        when(tareaRepository.exportarTodas()).thenReturn(Stream.of(
+                new TareaExportada(1L, "Simple", null, EstadoTarea.EN_PROGRESO, null, null, 2.5, null, CREACION, 7L),
+                new TareaExportada(2L, "Con, coma", "Dice \"hola\"", EstadoTarea.COMPLETADA, null, null, null,
+                        "línea 1\nlínea 2", CREACION, null)));
+
+        assertEquals("""
+                id,titulo,descripcion,estado,fechaInicio,fechaFin,duracionHoras,observaciones,fechaCreacion,proyectoId
+                1,Simple,,En progreso,,,2.5,,2025-03-14T09:30,7
+                2,"Con, coma","Dice ""hola""\",Completada,,,,"línea 1
+                línea 2",2025-03-14T09:30,
+                """, exportarTareas(ExportacionService.Formato.CSV));
+    }
+
+    @Test
+    void ndjsonConUnObjetoPorLinea() throws Exception {
+        when(proyectoRepository.exportarTodos()).thenReturn(Stream.of(
+                new ProyectoExportado(1L, "Web", "Con \"comillas\"\ny salto", null, null, 4.0, CREACION, 3, 1),
+                new ProyectoExportado(2L, "App", null, null, null, null, CREACION, 0, 0)));
+
+        String salida = exportarProyectos(ExportacionService.Formato.NDJSON);
+        String[] lineas = salida.split("\n");
+
+        assertEquals(2, lineas.length);
+        assertTrue(salida.endsWith("\n"));
+        JsonNode primero = objectMapper.readTree(lineas[0]);
+        assertEquals("Con \"comillas\"\ny salto", primero.get("descripcion").asText());
+        assertEquals(3, primero.get("tareasTotales").asInt());
+        assertEquals("2025-03-14T09:30:00", primero.get("fechaCreacion").asText());
+        assertTrue(objectMapper.readTree(lineas[1]).get("descripcion").isNull());
+    }
+
+    @Test
+    void sinFilasSoloQuedaLaCabecera() {
+        when(tareaRepository.exportarTodas()).thenAnswer(invocacion -> Stream.empty()); // Un Stream nuevo por llamada
+
+        assertEquals("id,titulo,descripcion,estado,fechaInicio,fechaFin,duracionHoras,observaciones,fechaCreacion,proyectoId\n",
+                exportarTareas(ExportacionService.Formato.CSV));
+        assertEquals("", exportarTareas(ExportacionService.Formato.NDJSON));
+    }
+
+    private String exportarTareas(ExportacionService.Formato formato) {
+        StringWriter salida = new StringWriter();
+        exportacionService.exportarTareas(formato, salida);
+        return salida.toString();
+    }
+
+    private String exportarProyectos(ExportacionService.Formato formato) {
+        StringWriter salida = new StringWriter();
+        exportacionService.exportarProyectos(formato, salida);
+        return salida.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mide cuántas sentencias JDBC cuesta guardar un proyecto de reunión con 40 tareas:
+ * sin lotes (como con IDENTITY, un INSERT por fila) frente a lotes JDBC con ids por bloques.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ImportacionLotesTest {
+
+    private static final int TAREAS = 40;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void guardarProyectoConTareasUsaLotes() {
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Calienta los generadores de ids para no contar la reserva del primer bloque
+        importar("Calentamiento", null);
+
+        estadisticas.clear();
+        importar("Sin lotes", 1);
+        long sentenciasSinLotes = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        importar("Con lotes", null);
+        long sentenciasConLotes = estadisticas.getPrepareStatementCount();
+
+        // Sin contar las entradas del índice de búsqueda, que se insertan en los mismos lotes
+        long insertsProyectoYTareas = estadisticas.getEntityStatistics(Proyecto.class.getName()).getInsertCount()
+                + estadisticas.getEntityStatistics(Tarea.class.getName()).getInsertCount();
+        assertEquals(1 + TAREAS, insertsProyectoYTareas, "inserts de proyecto y tareas");
+        assertTrue(sentenciasSinLotes >= 1 + TAREAS, "sentencias sin lotes: " + sentenciasSinLotes
+                + " (se esperaban al menos " + (1 + TAREAS) + ", una por fila)");
+        assertTrue(sentenciasConLotes <= 4, "sentencias con lotes: " + sentenciasConLotes
+                + " (sin lotes: " + sentenciasSinLotes + ")");
+    }
+
+    // Guarda un proyecto con sus tareas en cascada, como hace ChatService con una reunión
+    private void importar(String nombre, Integer tamanoLote) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            if (tamanoLote != null) {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+            }
+            Proyecto proyecto = new Proyecto();
+            proyecto.setNombre(nombre);
+            List<Tarea> tareas = new ArrayList<>();
+            for (int i = 0; i < TAREAS; i++) {
+                Tarea tarea = new Tarea();
+                tarea.setTitulo("Tarea " + i);
+                tarea.setEstado(EstadoTarea.PENDIENTE);
+                tarea.setDuracionHoras(4.0);
+                tareas.add(tarea);
+            }
+            proyecto.setTareas(tareas);
+            proyectoService.guardar(proyecto);
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.bitacora.bitacora.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Intérprete local de comandos contra un corpus de mensajes reales (chat/corpus-comandos.tsv):
+ * ninguno puede interpretarse distinto de lo esperado (lo que no reconoce con seguridad va a OpenAI)
+ * y debe resolver localmente casi todos los comandos simples.
+ */
+class InterpreteComandosTest {
+
+    private static final double COBERTURA_MINIMA = 0.95;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void interpretaElCorpusSinErrores() throws IOException {
+        MeterRegistry metricas = new SimpleMeterRegistry();
+        InterpreteComandos interprete = new InterpreteComandos(metricas);
+
+        List<String> errores = new ArrayList<>();
+        int simples = 0;
+        int resueltos = 0;
+        int casos = 0;
+        for (String linea : leerCorpus()) {
+            String[] partes = linea.split("\t");
+            String mensaje = partes[0].replace("\\n", "\n");
+            String esperado = partes[1];
+            Optional<String> json = interprete.interpretar(mensaje);
+            String obtenido = json.isPresent() ? resumir(objectMapper.readTree(json.get())) : "openai";
+            casos++;
+
+            if (!esperado.equals("openai")) simples++;
+            if (obtenido.equals(esperado)) {
+                if (!esperado.equals("openai")) resueltos++;
+            } else if (!obtenido.equals("openai")) {
+                errores.add(mensaje + " → " + obtenido + " (esperado " + esperado + ")");
+            }
+        }
+
+        double cobertura = (double) resueltos / simples;
+        assertTrue(errores.isEmpty(), () -> "interpretaciones incorrectas:\n" + String.join("\n", errores));
+        assertTrue(cobertura >= COBERTURA_MINIMA, String.format(
+                "el intérprete local resolvió %d de %d comandos simples (%.1f%%), se esperaba al menos %.0f%%",
+                resueltos, simples, cobertura * 100, COBERTURA_MINIMA * 100));
+
+        double locales = metricas.get("bitacora.chat.comandos").tag("interprete", "local").counter().count();
+        double openAi = metricas.get("bitacora.chat.comandos").tag("interprete", "openai").counter().count();
+        assertEquals(resueltos, locales);
+        assertEquals(casos - resueltos, openAi);
+    }
+
+    // accion|tipo|nombre|dato, con el mismo formato que el corpus
+    private static String resumir(JsonNode accion) {
+        String dato = "";
+        if (accion.path("accion").asText().equals("crear") && accion.path("tipo").asText().equals("tarea")) {
+            dato = accion.path("tarea").path("proyecto").path("nombre").asText("");
+        } else if (accion.path("accion").asText().equals("actualizar")) {
+            dato = accion.path("tarea").path("estado").asText();
+        }
+        return String.join("|", accion.path("accion").asText(), accion.path("tipo").asText(),
+                accion.path("nombre").asText(), dato);
+    }
+
+    private static List<String> leerCorpus() throws IOException {
+        try (InputStream entrada = InterpreteComandosTest.class.getResourceAsStream("/chat/corpus-comandos.tsv")) {
+            assertNotNull(entrada, "falta chat/corpus-comandos.tsv");
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(linea -> !linea.isBlank() && !linea.startsWith("#"))
+                    .toList();
+        }
+    }
+}
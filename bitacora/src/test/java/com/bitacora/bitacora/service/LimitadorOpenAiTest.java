@@ -0,0 +1,191 @@
+package com.bitacora.bitacora.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Limitador de OpenAI contra un servidor local que responde 429 cuando recibe más de dos
+ * llamadas a la vez: todas terminan bien reintentando, y como la concurrencia baja con cada
+ * ráfaga de rechazos, hay menos 429 que llamadas. Un servidor que siempre responde 429 agota
+ * los reintentos respetando Retry-After. Una llamada rechazada localmente por no conseguir
+ * lugar de concurrencia devuelve la petición y los tokens que había reservado.
+ */
+@SpringBootTest(properties = {
+        "bitacora.openai.limite.concurrencia-inicial=8",
+        "bitacora.openai.limite.reintentos=5",
+        "bitacora.openai.limite.espera-base-ms=20"
+})
+class LimitadorOpenAiTest {
+
+    private static final int MAXIMO_SIMULTANEAS = 2;
+    private static final Map<String, Object> CUERPO = Map.of("max_tokens", 10,
+            "messages", List.of(Map.of("role", "user", "content", "hola")));
+
+    private static HttpServer servidor;
+    private static final AtomicInteger enCurso = new AtomicInteger();
+    private static final AtomicInteger rechazadas = new AtomicInteger();
+    private static final AtomicInteger saturadas = new AtomicInteger();
+
+    @Autowired
+    private LimitadorOpenAi limitador;
+
+    @Autowired
+    private RestTemplate restTemplateOpenAi;
+
+    @BeforeAll
+    static void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newFixedThreadPool(16));
+        servidor.createContext("/limitado", intercambio -> {
+            try {
+                if (enCurso.incrementAndGet() > MAXIMO_SIMULTANEAS) {
+                    rechazadas.incrementAndGet();
+                    intercambio.getResponseHeaders().set("retry-after-ms", "30");
+                    responder(intercambio, 429, "{\"error\":{\"type\":\"requests\"}}");
+                    return;
+                }
+                Thread.sleep(20);
+                intercambio.getResponseHeaders().set("x-ratelimit-remaining-requests", "9999");
+                responder(intercambio, 200, "{\"usage\":{\"total_tokens\":12}}");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                enCurso.decrementAndGet();
+            }
+        });
+        servidor.createContext("/saturado", intercambio -> {
+            saturadas.incrementAndGet();
+            intercambio.getResponseHeaders().set(HttpHeaders.RETRY_AFTER, "0.2");
+            responder(intercambio, 429, "{\"error\":{\"type\":\"requests\"}}");
+        });
+        servidor.start();
+    }
+
+    @AfterAll
+    static void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void reintentaLos429HastaCompletarTodas() throws Exception {
+        int hilos = 6;
+        int llamadasPorHilo = 8;
+        ExecutorService clientes = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int i = 0; i < hilos * llamadasPorHilo; i++) {
+                resultados.add(clientes.submit(() -> limitador.ejecutar(CUERPO,
+                        () -> restTemplateOpenAi.getForEntity(url("/limitado"), Map.class)).getStatusCode().value()));
+            }
+            for (Future<Integer> resultado : resultados) {
+                assertEquals(200, resultado.get());
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        assertTrue(rechazadas.get() > 0, "El servidor nunca rechazó: la prueba no ejercita los 429");
+        assertTrue(rechazadas.get() < hilos * llamadasPorHilo, "429 recibidos: " + rechazadas.get());
+    }
+
+    @Test
+    void respetaRetryAfterHastaAgotarLosReintentos() {
+        long inicio = System.nanoTime();
+        HttpClientErrorException error = assertThrows(HttpClientErrorException.class, () -> limitador.ejecutar(CUERPO,
+                () -> restTemplateOpenAi.getForEntity(url("/saturado"), Map.class)));
+        long transcurridoMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, error.getStatusCode());
+        assertEquals(6, saturadas.get());
+        assertTrue(transcurridoMs >= 5 * 200, "Esperó " + transcurridoMs + " ms");
+    }
+
+    @Test
+    void devuelveLoReservadoSiNoConsigueLugar() throws Exception {
+        // Dos peticiones por minuto, una llamada a la vez y 100 ms de espera máxima
+        LimitadorOpenAi limitado = new LimitadorOpenAi(new SimpleMeterRegistry(), 2, 200_000, 1, 1, 0, 20, 100);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService cliente = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> ocupada = cliente.submit(() -> limitado.ejecutar(CUERPO, () -> {
+                enCurso.countDown();
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.ok().build();
+            }));
+            assertTrue(enCurso.await(10, TimeUnit.SECONDS));
+
+            // Reserva la segunda petición del minuto pero no consigue lugar de concurrencia
+            HttpClientErrorException error = assertThrows(HttpClientErrorException.class,
+                    () -> limitado.ejecutar(CUERPO, () -> ResponseEntity.ok().build()));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, error.getStatusCode());
+
+            liberar.countDown();
+            ocupada.get(10, TimeUnit.SECONDS);
+        } finally {
+            cliente.shutdownNow();
+        }
+
+        // Si no la hubiera devuelto, la próxima tendría que esperar medio minuto y se rechazaría
+        assertEquals(HttpStatus.OK, limitado.ejecutar(CUERPO, () -> ResponseEntity.ok().build()).getStatusCode());
+    }
+
+    @Test
+    void leeLasEsperasDeLasCabeceras() {
+        assertEquals(90_500, LimitadorOpenAi.duracionMs("1m30.5s"));
+        assertEquals(120, LimitadorOpenAi.duracionMs("120ms"));
+
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.set("x-ratelimit-reset-requests", "2s");
+        cabeceras.set("x-ratelimit-reset-tokens", "6m0s");
+        assertEquals(360_000, LimitadorOpenAi.esperaIndicada(cabeceras).orElseThrow());
+        cabeceras.set(HttpHeaders.RETRY_AFTER, "3");
+        assertEquals(3_000, LimitadorOpenAi.esperaIndicada(cabeceras).orElseThrow());
+    }
+
+    private static String url(String ruta) {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + ruta;
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, String json) throws IOException {
+        byte[] contenido = json.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json");
+        intercambio.sendResponseHeaders(estado, contenido.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(contenido);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bitacora.bitacora.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Métricas por tipo de prompt: tamaño y tokens estimados antes de enviar (una vez por prompt),
+ * tokens según el "usage" de la respuesta por acción devuelta, latencia por resultado y respuestas
+ * que no son JSON.
+ */
+class MetricasOpenAiTest {
+
+    private static final Map<String, Object> USO = Map.of(
+            "usage", Map.of("prompt_tokens", 120, "completion_tokens", 35, "total_tokens", 155));
+    private static final Map<String, Object> CUERPO = Map.of("max_tokens", 1000, "messages", List.of(
+            Map.of("role", "system", "content", "x".repeat(100)),
+            Map.of("role", "user", "content", "y".repeat(300))));
+
+    private final MeterRegistry registro = new SimpleMeterRegistry();
+    private final MetricasOpenAi metricas = new MetricasOpenAi(registro);
+
+    @Test
+    void registraTamanoTokensYLatenciaPorTipo() {
+        metricas.registrarPrompt(MetricasOpenAi.COMANDO, CUERPO);
+        ResponseEntity<Map<String, Object>> respuesta = metricas.medir(MetricasOpenAi.COMANDO,
+                () -> ResponseEntity.ok(USO));
+        metricas.registrarUso(MetricasOpenAi.COMANDO, respuesta.getBody(),
+                "{\"accion\":\"Crear\",\"tipo\":\"tarea\",\"tarea\":{\"titulo\":\"Informe\"}}");
+
+        assertEquals(400, total("bitacora.openai.prompt.caracteres", MetricasOpenAi.COMANDO));
+        assertEquals(100, total("bitacora.openai.tokens.estimados", MetricasOpenAi.COMANDO));
+        assertEquals(120, total("bitacora.openai.tokens.prompt", MetricasOpenAi.COMANDO));
+        assertEquals(35, total("bitacora.openai.tokens.respuesta", MetricasOpenAi.COMANDO));
+        assertEquals(120, registro.get("bitacora.openai.tokens.prompt")
+                .tags("accion", "crear", "tipoAccion", "tarea").summary().totalAmount());
+        assertEquals(1, registro.get("bitacora.openai.latencia")
+                .tags("tipo", MetricasOpenAi.COMANDO, "resultado", "ok").timer().count());
+    }
+
+    @Test
+    void etiquetaLosTokensConValoresConocidos() {
+        metricas.registrarUso(MetricasOpenAi.REUNION, USO,
+                "[{\"accion\":\"crear\",\"tipo\":\"proyecto\"},{\"accion\":\"crear\",\"tipo\":\"tarea\"}]");
+        metricas.registrarUso(MetricasOpenAi.COMANDO, USO, "{\"accion\":\"archivar\",\"tipo\":\"cliente\"}");
+        metricas.registrarUso(MetricasOpenAi.COMANDO, USO, "Lo siento, no entendí");
+
+        assertEquals(35, registro.get("bitacora.openai.tokens.respuesta").tags("tipo", MetricasOpenAi.REUNION,
+                "accion", "crear", "tipoAccion", "varias").summary().totalAmount());
+        // Lo que invente el modelo no crea etiquetas nuevas
+        assertEquals(35, registro.get("bitacora.openai.tokens.respuesta").tags("tipo", MetricasOpenAi.COMANDO,
+                "accion", "otra", "tipoAccion", "otra").summary().totalAmount());
+        assertEquals(35, registro.get("bitacora.openai.tokens.respuesta").tags("tipo", MetricasOpenAi.COMANDO,
+                "accion", MetricasOpenAi.DESCONOCIDO, "tipoAccion", MetricasOpenAi.DESCONOCIDO).summary().totalAmount());
+    }
+
+    @Test
+    void separaLosIntentosLimitadosYLasRespuestasInvalidas() {
+        HttpClientErrorException limitada = HttpClientErrorException.create(
+                HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", HttpHeaders.EMPTY, null, null);
+        metricas.registrarPrompt(MetricasOpenAi.REUNION, CUERPO);
+        assertThrows(HttpClientErrorException.TooManyRequests.class,
+                () -> metricas.medir(MetricasOpenAi.REUNION, () -> { throw limitada; }));
+        metricas.medir(MetricasOpenAi.REUNION, () -> ResponseEntity.ok(Map.of()));
+        metricas.respuestaInvalida(MetricasOpenAi.REUNION);
+
+        assertEquals(1, registro.get("bitacora.openai.latencia")
+                .tags("tipo", MetricasOpenAi.REUNION, "resultado", "limitada").timer().count());
+        assertEquals(1, registro.get("bitacora.openai.latencia")
+                .tags("tipo", MetricasOpenAi.REUNION, "resultado", "ok").timer().count());
+        // El reintento no vuelve a contar el prompt
+        assertEquals(1, registro.get("bitacora.openai.prompt.caracteres")
+                .tag("tipo", MetricasOpenAi.REUNION).summary().count());
+        assertEquals(1, registro.get("bitacora.openai.respuestas.invalidas").tags("tipo", MetricasOpenAi.REUNION,
+                "accion", MetricasOpenAi.DESCONOCIDO, "tipoAccion", MetricasOpenAi.DESCONOCIDO).counter().count());
+        // medir no registra tokens: eso se hace con registrarUso, ya leída la respuesta
+        assertEquals(0, registro.find("bitacora.openai.tokens.prompt").summaries().size());
+    }
+
+    private double total(String nombre, String tipo) {
+        return registro.get(nombre).tag("tipo", tipo).summary().totalAmount();
+    }
+}
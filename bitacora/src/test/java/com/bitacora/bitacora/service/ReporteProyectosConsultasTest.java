@@ -0,0 +1,88 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.ReporteProyecto;
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara cuántas consultas SQL necesita el reporte de proyectos:
+ * recorriendo las tareas de cada proyecto (1 + N) frente a la consulta agrupada (1).
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReporteProyectosConsultasTest {
+
+    private static final int PROYECTOS = 10;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void prepararDatos() {
+        proyectoRepository.deleteAll();
+        for (int i = 0; i < PROYECTOS; i++) {
+            Proyecto proyecto = new Proyecto();
+            proyecto.setNombre("Proyecto " + i);
+            List<Tarea> tareas = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                Tarea tarea = new Tarea();
+                tarea.setTitulo("Tarea " + j);
+                tarea.setEstado(j % 2 == 0 ? EstadoTarea.COMPLETADA : EstadoTarea.PENDIENTE);
+                tarea.setDuracionHoras(2.0);
+                tarea.setProyecto(proyecto);
+                tareas.add(tarea);
+            }
+            proyecto.setTareas(tareas);
+            proyectoRepository.save(proyecto);
+        }
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void reporteAgrupadoUsaUnaSolaConsulta() {
+        // Enfoque anterior: findAll() + recorrer las tareas de cada proyecto
+        transactionTemplate.executeWithoutResult(estado ->
+                proyectoRepository.findAll().forEach(p -> p.getTareas().size()));
+        long consultasRecorriendo = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        List<ReporteProyecto> reporte = proyectoService.obtenerReporte();
+        long consultasAgrupadas = estadisticas.getPrepareStatementCount();
+
+        assertEquals(1 + PROYECTOS, consultasRecorriendo);
+        assertEquals(1, consultasAgrupadas);
+
+        assertEquals(PROYECTOS, reporte.size());
+        ReporteProyecto fila = reporte.get(0);
+        assertEquals(4, fila.tareasTotales());
+        assertEquals(2, fila.tareasCompletadas());
+        assertEquals(50.0, fila.progreso());
+    }
+}
@@ -0,0 +1,161 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.dto.EventoChat;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Una reunión larga se parte en fragmentos que se analizan a la vez (sin pasar el límite de
+ * paralelismo) contra un servidor local que imita a OpenAI. Los fragmentos se solapan, así que
+ * el servidor devuelve algunas tareas repetidas: cada una debe guardarse una sola vez.
+ * El progreso se avisa (inicio, fragmentos, proyectos) antes de devolver el resumen.
+ */
+@SpringBootTest(properties = {
+        "bitacora.openai.reunion.caracteres-fragmento=500",
+        "bitacora.openai.reunion.paralelismo=2"
+})
+class ReunionPorFragmentosTest {
+
+    private static final int COMPROMISOS = 24;
+    private static final Pattern COMPROMISO = Pattern.compile("me encargo de revisar el punto (\\d+) de (\\p{L}+)");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static HttpServer servidor;
+    private static final AtomicInteger llamadas = new AtomicInteger();
+    private static final AtomicInteger enCurso = new AtomicInteger();
+    private static final AtomicInteger maximoEnCurso = new AtomicInteger();
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @BeforeAll
+    static void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newFixedThreadPool(8));
+        servidor.createContext("/v1/chat/completions", intercambio -> {
+            maximoEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            llamadas.incrementAndGet();
+            try {
+                JsonNode pedido = objectMapper.readTree(intercambio.getRequestBody());
+                String prompt = pedido.path("messages").get(1).path("content").asText();
+                String respuesta = objectMapper.writeValueAsString(Map.of("choices", List.of(
+                        Map.of("message", Map.of("content", acciones(prompt))))));
+                Thread.sleep(150);
+
+                byte[] contenido = respuesta.getBytes(StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().set("Content-Type", "application/json");
+                intercambio.sendResponseHeaders(200, contenido.length);
+                try (OutputStream salida = intercambio.getResponseBody()) {
+                    salida.write(contenido);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                enCurso.decrementAndGet();
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterAll
+    static void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void urlOpenAi(DynamicPropertyRegistry registro) {
+        registro.add("openai.api.url",
+                () -> "http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions");
+    }
+
+    @Test
+    void analizaFragmentosEnParaleloYUneSinRepetidos() {
+        String respuesta = chatService.procesarMensaje(transcripcion("Migración"));
+
+        assertTrue(respuesta.contains("fragmentos"), respuesta);
+        assertTrue(llamadas.get() > 2, "llamadas: " + llamadas.get());
+        assertEquals(2, maximoEnCurso.get());
+
+        Long proyectoId = proyectoService.buscarIdPorNombre("Migración").orElseThrow();
+        List<String> titulos = tareaRepository.findByProyectoIdAndIdGreaterThanOrderByIdAsc(
+                        proyectoId, 0L, Limit.of(1000), Tarea.class)
+                .stream().map(Tarea::getTitulo).toList();
+        assertEquals(COMPROMISOS, titulos.size(), titulos::toString);
+        assertEquals(COMPROMISOS, titulos.stream().distinct().count());
+    }
+
+    @Test
+    void avisaElProgresoAntesDelResumen() {
+        Queue<EventoChat> eventos = new ConcurrentLinkedQueue<>();
+        String respuesta = chatService.procesarMensaje(transcripcion("Eventos"), eventos::add);
+
+        List<String> tipos = eventos.stream().map(EventoChat::tipo).toList();
+        assertEquals(EventoChat.INICIO, tipos.get(0));
+        assertTrue(tipos.stream().filter(EventoChat.FRAGMENTO::equals).count() > 2, tipos::toString);
+        assertEquals(EventoChat.PROYECTO, tipos.get(tipos.size() - 1));
+        assertTrue(respuesta.contains(eventos.stream().reduce((a, b) -> b).orElseThrow().mensaje()));
+    }
+
+    private static String transcripcion(String proyecto) {
+        StringBuilder texto = new StringBuilder("Reunión de planificación\n");
+        for (int i = 1; i <= COMPROMISOS; i++) {
+            texto.append(String.format("10:%02d %s: me encargo de revisar el punto %d de %s%n",
+                    i, i % 2 == 0 ? "Ana" : "Luis", i, proyecto));
+        }
+        return texto.toString();
+    }
+
+    //Un proyecto por cada nombre mencionado, con una tarea por compromiso (como lo devolvería el modelo)
+    private static String acciones(String prompt) throws IOException {
+        String texto = prompt.substring(prompt.indexOf("TRANSCRIPCIÓN DE LA REUNIÓN:"));
+        Map<String, List<Map<String, Object>>> tareasPorProyecto = new LinkedHashMap<>();
+        Matcher compromiso = COMPROMISO.matcher(texto);
+        while (compromiso.find()) {
+            tareasPorProyecto.computeIfAbsent(compromiso.group(2), p -> new ArrayList<>())
+                    .add(Map.of("titulo", "Revisar el punto " + compromiso.group(1), "estado", "pendiente",
+                            "duracionHoras", 2));
+        }
+        List<Map<String, Object>> acciones = new ArrayList<>();
+        tareasPorProyecto.forEach((proyecto, tareas) -> acciones.add(Map.of(
+                "accion", "crear",
+                "tipo", "proyecto",
+                "nombre", proyecto,
+                "proyecto", Map.of("nombre", proyecto, "duracionHoras", 0, "tareas", tareas))));
+        return objectMapper.writeValueAsString(acciones);
+    }
+}
@@ -0,0 +1,115 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.repository.ProyectoRepository;
+import com.bitacora.bitacora.util.NormalizadorTexto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Varias solicitudes idénticas a la vez (con distintos espacios) contra un servidor local que
+ * imita a OpenAI: se hace una sola llamada, se crea un solo proyecto y todas reciben la misma respuesta.
+ */
+@SpringBootTest(properties = "bitacora.chat.unificar.ventana-ms=500")
+class SolicitudesEnCursoTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String PROYECTO = "Doble Envío";
+
+    private static HttpServer servidor;
+    private static final AtomicInteger llamadas = new AtomicInteger();
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @BeforeAll
+    static void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newFixedThreadPool(8));
+        servidor.createContext("/v1/chat/completions", intercambio -> {
+            llamadas.incrementAndGet();
+            intercambio.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String accion = objectMapper.writeValueAsString(Map.of("accion", "crear", "tipo", "proyecto",
+                    "proyecto", Map.of("nombre", PROYECTO, "descripcion", "Entrega del lunes")));
+            byte[] contenido = objectMapper.writeValueAsString(Map.of("choices", List.of(
+                    Map.of("message", Map.of("content", accion))))).getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, contenido.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(contenido);
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterAll
+    static void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @DynamicPropertySource
+    static void urlOpenAi(DynamicPropertyRegistry registro) {
+        registro.add("openai.api.url",
+                () -> "http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/chat/completions");
+    }
+
+    @Test
+    void unificaSolicitudesIdenticasSimultaneas() throws Exception {
+        int solicitudes = 8;
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService clientes = Executors.newFixedThreadPool(solicitudes);
+        try {
+            List<Future<String>> respuestas = new ArrayList<>();
+            for (int i = 0; i < solicitudes; i++) {
+                // Mismo mensaje con espacios distintos, como lo reenviaría el frontend
+                String mensaje = "crea el proyecto " + PROYECTO + " con la entrega del lunes" + " ".repeat(i);
+                respuestas.add(clientes.submit(() -> {
+                    largada.await();
+                    return chatService.procesarMensaje(mensaje);
+                }));
+            }
+            largada.countDown();
+
+            String primera = respuestas.get(0).get();
+            for (Future<String> respuesta : respuestas) {
+                assertEquals(primera, respuesta.get());
+            }
+        } finally {
+            clientes.shutdownNow();
+        }
+
+        assertEquals(1, llamadas.get());
+        assertEquals(1, proyectoRepository.buscarIdsPorNombreNormalizado(
+                NormalizadorTexto.normalizar(PROYECTO), Limit.of(10)).size());
+    }
+}
@@ -0,0 +1,148 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.bitacora.bitacora.repository.TareaRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Los totales de horas y tareas que TareaService mantiene por diferencias coinciden, después de
+ * cada escritura, con un recuento completo de las tareas del proyecto; y el endpoint de
+ * reconstrucción corrige los totales que se desajustaron por fuera de la aplicación.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TotalesProyectoTest {
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private TareaService tareaService;
+
+    @Autowired
+    private TareaRepository tareaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void lasDiferenciasCoincidenConElRecuento() {
+        Long origen = crearProyecto("Origen");
+        Long destino = crearProyecto("Destino");
+        verificarRecuento(origen);
+
+        // Crear
+        Tarea nueva = nuevaTarea("Diseño", EstadoTarea.COMPLETADA, 3.0);
+        nueva.setProyecto(proyectoService.obtenerPorId(origen).orElseThrow());
+        Long tareaId = tareaService.guardar(nueva).getId();
+        Tarea otra = nuevaTarea("Pruebas", EstadoTarea.PENDIENTE, 1.5);
+        otra.setProyecto(proyectoService.obtenerPorId(origen).orElseThrow());
+        tareaService.guardar(otra);
+        verificarRecuento(origen);
+
+        // Actualizar horas y estado
+        Tarea cambios = new Tarea();
+        cambios.setDuracionHoras(5.0);
+        cambios.setEstado(EstadoTarea.EN_PROGRESO);
+        tareaService.actualizar(tareaId, cambios);
+        verificarRecuento(origen);
+
+        // Mover a otro proyecto: se descuenta de uno y se suma al otro
+        Tarea mover = new Tarea();
+        Proyecto referencia = new Proyecto();
+        referencia.setId(destino);
+        mover.setProyecto(referencia);
+        mover.setEstado(EstadoTarea.COMPLETADA);
+        tareaService.actualizar(tareaId, mover);
+        verificarRecuento(origen);
+        verificarRecuento(destino);
+        assertEquals(2, proyectoService.obtenerPorId(destino).orElseThrow().getTareasTotales());
+
+        // Eliminar
+        tareaService.eliminar(tareaId);
+        verificarRecuento(origen);
+        verificarRecuento(destino);
+        assertEquals(1, proyectoService.obtenerPorId(destino).orElseThrow().getTareasTotales());
+    }
+
+    @Test
+    void laReconstruccionCorrigeLosDesajustes() throws Exception {
+        Long proyectoId = crearProyecto("Desajustado");
+        jdbcTemplate.update("UPDATE proyectos SET tareas_totales = 99, tareas_completadas = 7, horas_tareas = 0 " +
+                "WHERE id = ?", proyectoId);
+        assertNotEquals(recuento(proyectoId), totalesGuardados(proyectoId));
+
+        mockMvc.perform(post("/api/proyectos/reconstruir-totales")).andExpect(status().isOk());
+
+        assertEquals(recuento(proyectoId), totalesGuardados(proyectoId));
+        verificarRecuento(proyectoId);
+    }
+
+    //Compara los totales del proyecto (como los devuelve el servicio) con el recuento de sus tareas
+    private void verificarRecuento(Long proyectoId) {
+        Proyecto proyecto = proyectoService.obtenerPorId(proyectoId).orElseThrow();
+        Totales esperado = recuento(proyectoId);
+        assertEquals(esperado.tareas(), proyecto.getTareasTotales(), "tareas del proyecto " + proyectoId);
+        assertEquals(esperado.completadas(), proyecto.getTareasCompletadas(), "completadas del proyecto " + proyectoId);
+        assertEquals(esperado.horas(), proyecto.getHorasTareas(), 1e-9, "horas del proyecto " + proyectoId);
+        // Sin fechas, la duración del proyecto es la suma de horas de sus tareas
+        assertEquals(esperado.tareas() > 0 ? esperado.horas() : null, proyecto.getDuracionHoras(),
+                "duración del proyecto " + proyectoId);
+    }
+
+    private Totales recuento(Long proyectoId) {
+        List<Tarea> tareas = tareaRepository.findByProyectoIdAndIdGreaterThanOrderByIdAsc(
+                proyectoId, 0L, Limit.of(10_000), Tarea.class);
+        return new Totales(tareas.size(), tareas.stream().filter(Tarea::estaCompletada).count(),
+                tareas.stream().mapToDouble(t -> t.getDuracionHoras() != null ? t.getDuracionHoras() : 0.0).sum());
+    }
+
+    //Lee las columnas directamente, sin pasar por la caché de segundo nivel
+    private Totales totalesGuardados(Long proyectoId) {
+        Map<String, Object> fila = jdbcTemplate.queryForMap(
+                "SELECT tareas_totales, tareas_completadas, horas_tareas FROM proyectos WHERE id = ?", proyectoId);
+        return new Totales(((Number) fila.get("tareas_totales")).longValue(),
+                ((Number) fila.get("tareas_completadas")).longValue(),
+                ((Number) fila.get("horas_tareas")).doubleValue());
+    }
+
+    private Long crearProyecto(String nombre) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setNombre(nombre);
+        Tarea tarea = nuevaTarea(nombre + " inicial", EstadoTarea.COMPLETADA, 2.0);
+        tarea.setProyecto(proyecto);
+        proyecto.setTareas(new ArrayList<>(List.of(tarea)));
+        return proyectoService.guardar(proyecto).getId();
+    }
+
+    private static Tarea nuevaTarea(String titulo, EstadoTarea estado, double horas) {
+        Tarea tarea = new Tarea();
+        tarea.setTitulo(titulo);
+        tarea.setEstado(estado);
+        tarea.setDuracionHoras(horas);
+        return tarea;
+    }
+
+    private record Totales(long tareas, long completadas, double horas) {
+    }
+}
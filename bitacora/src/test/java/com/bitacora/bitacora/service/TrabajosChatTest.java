@@ -0,0 +1,85 @@
+package com.bitacora.bitacora.service;
+
+import com.bitacora.bitacora.model.EstadoTrabajo;
+import com.bitacora.bitacora.model.TrabajoChat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cola de trabajos de chat con un hilo y lugar para uno más: el tercer trabajo se rechaza
+ * en vez de esperar, y cada uno termina con su resultado o su error guardado.
+ */
+@SpringBootTest(properties = {
+        "bitacora.chat.trabajos.hilos=1",
+        "bitacora.chat.trabajos.capacidad-cola=1"
+})
+class TrabajosChatTest {
+
+    @MockitoBean
+    private ChatService chatService;
+
+    @Autowired
+    private TrabajosChatService trabajosChatService;
+
+    @Test
+    void rechazaConLaColaLlenaYGuardaElResultado() throws InterruptedException {
+        CountDownLatch enProceso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(chatService.procesarMensaje(anyString())).thenAnswer(invocacion -> {
+            String mensaje = invocacion.getArgument(0);
+            if (mensaje.equals("falla")) throw new IllegalStateException("OpenAI no respondió");
+            enProceso.countDown();
+            liberar.await(10, TimeUnit.SECONDS);
+            return "✅ " + mensaje;
+        });
+
+        TrabajoChat primero = trabajosChatService.encolar("reunión 1");
+        assertTrue(enProceso.await(10, TimeUnit.SECONDS));
+        TrabajoChat segundo = trabajosChatService.encolar("falla");
+        assertThrows(TaskRejectedException.class, () -> trabajosChatService.encolar("reunión 3"));
+
+        assertEquals(EstadoTrabajo.EN_CURSO, estado(primero));
+        assertEquals(EstadoTrabajo.EN_COLA, estado(segundo));
+
+        liberar.countDown();
+        TrabajoChat terminado = esperar(primero.getId());
+        assertEquals(EstadoTrabajo.TERMINADO, terminado.getEstado());
+        assertEquals("✅ reunión 1", terminado.getResultado());
+
+        TrabajoChat fallido = esperar(segundo.getId());
+        assertEquals(EstadoTrabajo.FALLIDO, fallido.getEstado());
+        assertEquals("OpenAI no respondió", fallido.getError());
+
+        // Con la cola libre se vuelve a aceptar
+        when(chatService.procesarMensaje(anyString())).thenReturn("ok");
+        assertEquals(EstadoTrabajo.TERMINADO, esperar(trabajosChatService.encolar("reunión 4").getId()).getEstado());
+    }
+
+    private EstadoTrabajo estado(TrabajoChat trabajo) {
+        return trabajosChatService.obtener(trabajo.getId()).orElseThrow().getEstado();
+    }
+
+    private TrabajoChat esperar(Long id) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            TrabajoChat trabajo = trabajosChatService.obtener(id).orElseThrow();
+            if (trabajo.getEstado() == EstadoTrabajo.TERMINADO || trabajo.getEstado() == EstadoTrabajo.FALLIDO) {
+                return trabajo;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("El trabajo " + id + " no terminó");
+    }
+}
@@ -0,0 +1,96 @@
+package com.bitacora.bitacora.util;
+
+import com.bitacora.bitacora.dto.ProyectoResumen;
+import com.bitacora.bitacora.dto.TareaResumen;
+import com.bitacora.bitacora.model.EstadoTarea;
+import com.bitacora.bitacora.model.Proyecto;
+import com.bitacora.bitacora.model.Tarea;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ?fields= y ?vista=: nombres de campo validados contra el tipo que se devuelve,
+ * y serialización de solo los campos pedidos en los objetos del filtro.
+ */
+class CamposRespuestaTest {
+
+    // Con los filtros por defecto que registra JacksonConfig
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .filters(CamposRespuesta.sinFiltrar()).build();
+
+    @Test
+    void losCamposDisponiblesSonLosDelJson() {
+        assertEquals(Set.of("id", "nombre", "descripcion", "fechaInicio", "fechaFin", "duracionHoras",
+                        "fechaCreacion", "tareasTotales", "tareasCompletadas", "version", "tareas"),
+                CamposRespuesta.camposDe(Proyecto.class));
+        assertEquals(Set.of("id", "titulo", "descripcion", "estado", "fechaInicio", "fechaFin", "duracionHoras",
+                        "observaciones", "fechaCreacion", "version"),
+                CamposRespuesta.camposDe(Tarea.class));
+        assertEquals(Set.of("id", "titulo", "estado", "fechaFin", "duracionHoras", "proyectoId"),
+                CamposRespuesta.camposDe(TareaResumen.class));
+    }
+
+    @Test
+    void normalizaYValidaLosCamposPedidos() {
+        assertEquals(List.of("id", "nombre"), List.copyOf(CamposRespuesta.campos(" nombre,id,,nombre ", Proyecto.class)));
+        assertTrue(CamposRespuesta.campos(null, Proyecto.class).isEmpty());
+        assertTrue(CamposRespuesta.campos(" ", Proyecto.class).isEmpty());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CamposRespuesta.campos("id,nombre,color", Proyecto.class));
+        assertTrue(e.getMessage().startsWith("Campo no válido: color"), e.getMessage());
+        // Oculto con @JsonIgnore, o existe solo en la vista completa
+        assertThrows(IllegalArgumentException.class, () -> CamposRespuesta.campos("nombreNormalizado", Proyecto.class));
+        assertThrows(IllegalArgumentException.class, () -> CamposRespuesta.campos("descripcion", ProyectoResumen.class));
+        // La referencia inversa al proyecto no se serializa
+        assertThrows(IllegalArgumentException.class, () -> CamposRespuesta.campos("proyecto", Tarea.class));
+    }
+
+    @Test
+    void filtraSoloLosObjetosDelFiltro() throws Exception {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setId(7L);
+        proyecto.setNombre("Filtrado");
+        proyecto.setDescripcion("No pedida");
+        Tarea tarea = new Tarea();
+        tarea.setTitulo("Anidada");
+        tarea.setEstado(EstadoTarea.PENDIENTE);
+        proyecto.setTareas(List.of(tarea));
+
+        JsonNode filtrado = serializar(CamposRespuesta.filtrar(List.of(proyecto), CamposRespuesta.FILTRO_PROYECTO,
+                CamposRespuesta.campos("id,tareas", Proyecto.class))).get(0);
+        assertEquals(List.of("id", "tareas"), nombres(filtrado));
+        // Las tareas anidadas usan otro filtro y salen completas
+        assertEquals("Anidada", filtrado.get("tareas").get(0).get("titulo").asText());
+        assertTrue(filtrado.get("tareas").get(0).has("descripcion"));
+
+        JsonNode completo = serializar(CamposRespuesta.filtrar(proyecto, CamposRespuesta.FILTRO_PROYECTO,
+                CamposRespuesta.campos(null, Proyecto.class)));
+        assertEquals("No pedida", completo.get("descripcion").asText());
+        assertFalse(completo.has("nombreNormalizado"));
+    }
+
+    private JsonNode serializar(MappingJacksonValue valor) throws Exception {
+        // Como el conversor de Spring: sin filtros propios se usan los del ObjectMapper
+        var escritor = valor.getFilters() != null ? objectMapper.writer(valor.getFilters()) : objectMapper.writer();
+        return objectMapper.readTree(escritor.writeValueAsString(valor.getValue()));
+    }
+
+    private static List<String> nombres(JsonNode objeto) {
+        List<String> nombres = new ArrayList<>();
+        objeto.fieldNames().forEachRemaining(nombres::add);
+        return nombres;
+    }
+}
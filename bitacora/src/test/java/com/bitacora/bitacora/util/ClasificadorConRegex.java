@@ -0,0 +1,33 @@
+package com.bitacora.bitacora.util;
+
+/**
+ * Implementación anterior de ClasificadorTranscripcion, con expresiones regulares. Es la referencia
+ * contra la que se comparan las señales en ClasificadorTranscripcionTest y los tiempos en
+ * ClasificadorTranscripcionBenchmark (src/jmh/java, perfil "benchmark").
+ */
+final class ClasificadorConRegex {
+
+    private ClasificadorConRegex() {
+    }
+
+    static boolean esTranscripcionReunion(String texto) {
+        int longitud = texto.length();
+        return longitud > 300 && (tieneTimestamps(texto) || tieneParticipantes(texto)
+                || texto.split("\n").length > 10 || contienePalabrasReunion(texto));
+    }
+
+    static boolean tieneTimestamps(String texto) {
+        return texto.matches("(?s).*\\d{1,2}:\\d{2}\\s*(?:AM|PM|am|pm)?.*");
+    }
+
+    static boolean tieneParticipantes(String texto) {
+        return texto.matches("(?s).*(?:\\[.*\\]|\\w+\\s*:).*");
+    }
+
+    static boolean contienePalabrasReunion(String texto) {
+        return texto.toLowerCase().contains("reunión") ||
+                texto.toLowerCase().contains("meeting") ||
+                texto.toLowerCase().contains("participante") ||
+                texto.toLowerCase().contains("agenda");
+    }
+}
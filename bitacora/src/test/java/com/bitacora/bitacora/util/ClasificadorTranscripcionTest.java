@@ -0,0 +1,81 @@
+package com.bitacora.bitacora.util;
+
+import com.bitacora.bitacora.util.ClasificadorTranscripcion.Rasgos;
+import com.bitacora.bitacora.util.ClasificadorTranscripcion.Senal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El clasificador de una sola pasada da las mismas señales que las expresiones regulares que
+ * reemplaza (ClasificadorConRegex). Los tiempos se comparan aparte, con
+ * ClasificadorTranscripcionBenchmark (mvn -Pbenchmark).
+ */
+class ClasificadorTranscripcionTest {
+
+    private static final String[] PIEZAS = {"a", "Z", "_", "1", "9", ":", " ", "  ", "\n", "\n\n", "\t", "\r",
+            "[", "]", ".", "ó", "Ó", "AM", "10:15", "1:5", "Ana", "Ana :", "reunión", "REUNIÓN", "Meeting",
+            "agenda", "PARTICIPANTE", "reunion", "agend", "¿", "ñ:"};
+
+    @Test
+    void daLasMismasSenalesQueLasExpresionesRegulares() {
+        List<String> textos = new ArrayList<>(List.of("", "\n", "\n\n\n", "a\n\n", "[", "]", "][", "[]", ":", "a:",
+                " :", "a \t:", "1:23", "1:2", "12:3x", ":12", "x".repeat(301), "x".repeat(300) + "1:00",
+                "línea\n".repeat(10), "línea\n".repeat(11), "\n".repeat(20) + "x", "x" + "\n".repeat(20)));
+        Random azar = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder texto = new StringBuilder();
+            int piezas = azar.nextInt(200);
+            for (int j = 0; j < piezas; j++) {
+                texto.append(PIEZAS[azar.nextInt(PIEZAS.length)]);
+            }
+            textos.add(texto.toString());
+        }
+
+        for (String texto : textos) {
+            Rasgos rasgos = ClasificadorTranscripcion.analizar(texto);
+            String caso = "\"" + texto.replace("\n", "\\n") + "\"";
+            assertEquals(ClasificadorConRegex.tieneTimestamps(texto), rasgos.tiene(Senal.HORA), caso);
+            assertEquals(ClasificadorConRegex.tieneParticipantes(texto), rasgos.tiene(Senal.PARTICIPANTE), caso);
+            assertEquals(texto.split("\n").length, rasgos.lineas(), caso);
+            assertEquals(texto.split("\n").length > 10, rasgos.tiene(Senal.VARIAS_LINEAS), caso);
+            assertEquals(ClasificadorConRegex.contienePalabrasReunion(texto), rasgos.tiene(Senal.PALABRA_REUNION), caso);
+            assertEquals(ClasificadorConRegex.esTranscripcionReunion(texto),
+                    ClasificadorTranscripcion.esTranscripcionReunion(texto), caso);
+        }
+    }
+
+    @Test
+    void reconoceTranscripcionesYComandos() {
+        assertTrue(ClasificadorTranscripcion.esTranscripcionReunion(transcripcion(2_000)));
+        assertTrue(ClasificadorTranscripcion.esTranscripcionReunion(textoCorrido(2_000) + " Fin de la reunión"));
+        assertFalse(ClasificadorTranscripcion.esTranscripcionReunion(textoCorrido(2_000)));
+        assertFalse(ClasificadorTranscripcion.esTranscripcionReunion("crea la tarea Revisar: informe a las 10:30"));
+    }
+
+    // Transcripción con hora y nombre en cada línea, como las que llegan al chat
+    static String transcripcion(int tamano) {
+        String[] nombres = {"Ana", "Luis", "Marta", "Jorge"};
+        StringBuilder texto = new StringBuilder("Reunión semanal de seguimiento\n");
+        for (int i = 0; texto.length() < tamano; i++) {
+            texto.append(String.format("%02d:%02d %s: sobre el punto %d, quedamos en revisar el avance y enviar el informe.%n",
+                    10 + i / 60 % 10, i % 60, nombres[i % nombres.length], i));
+        }
+        return texto.toString();
+    }
+
+    // Texto sin ninguna señal: el clasificador tiene que recorrerlo entero
+    static String textoCorrido(int tamano) {
+        StringBuilder texto = new StringBuilder();
+        while (texto.length() < tamano) {
+            texto.append("El equipo revisó el avance del proyecto y acordó priorizar las tareas pendientes del trimestre. ");
+        }
+        return texto.toString();
+    }
+}